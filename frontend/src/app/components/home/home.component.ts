@@ -3,7 +3,7 @@ import { CommonModule } from '@angular/common';
 import { Router, RouterLink, RouterModule } from '@angular/router';
 import { AuthService } from '../../services/auth.service';
 import { PostService } from '../../services/post.service';
-import { Post, PostComment } from '../../models/post.model';
+import { PostSummary, PostComment } from '../../models/post.model';
 import { User } from '../../models/user.model';
 import { CommentComponent } from '../comment/comment.component';
 
@@ -14,7 +14,7 @@ import { CommentComponent } from '../comment/comment.component';
   imports: [CommonModule, CommentComponent, RouterLink, RouterModule]
 })
 export class HomeComponent implements OnInit {
-  posts: Post[] = [];
+  posts: PostSummary[] = [];
   isLoading = true;
   currentUser: User | null = null;
   currentPage = 0;
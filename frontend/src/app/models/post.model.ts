@@ -11,6 +11,18 @@ export interface Post {
     published: boolean;
 }
 
+export interface PostSummary {
+    id: number;
+    title: string;
+    excerpt: string;
+    authorId: number;
+    authorUsername: string;
+    createdAt: string;
+    updatedAt: string;
+    viewCount: number;
+    commentCount: number;
+}
+
 export interface PostComment {
     id: number;
     content: string;
@@ -4,10 +4,13 @@ export interface User {
   email: string;
   password?: string;
   token?: string;
+  refreshToken?: string;
 }
 
 export interface LoginResponse {
   token: string;
+  refreshToken: string;
+  expiresIn: number;
   id: string;
   username: string;
   email: string;
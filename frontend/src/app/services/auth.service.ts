@@ -13,6 +13,7 @@ import { HttpClient, HttpHeaders } from '@angular/common/http';
 export class AuthService {
   private currentUserSubject = new BehaviorSubject<User | null>(null);
   public currentUser$ = this.currentUserSubject.asObservable();
+  private refreshTimer?: ReturnType<typeof setTimeout>;
 
   constructor(private http: HttpClient) {
     this.initializeUserFromStorage();
@@ -23,9 +24,56 @@ export class AuthService {
     if (storedUser && storedUser !== 'undefined' && storedUser !== 'null') {
       const user = JSON.parse(storedUser);
       this.currentUserSubject.next(user);
+      // 页面刷新后无法得知access token剩余时间，立即续期
+      if (user.refreshToken) {
+        this.scheduleRefresh(0);
+      }
     }
   }
 
+  // access token有效期较短，到期前用refresh token换取新token
+  private scheduleRefresh(expiresInSeconds: number): void {
+    clearTimeout(this.refreshTimer);
+    const delayMs = Math.max(0, (expiresInSeconds - 60) * 1000);
+    this.refreshTimer = setTimeout(() => this.refreshSession(), delayMs);
+  }
+
+  private refreshSession(): void {
+    const user = this.currentUserSubject.value;
+    if (!user?.refreshToken) {
+      return;
+    }
+    this.http
+      .post<LoginResponse>('http://localhost:8080/api/auth/refresh', {
+        refreshToken: user.refreshToken,
+      })
+      .subscribe({
+        next: (response) => this.storeSession(response),
+        error: () => this.clearSession(),
+      });
+  }
+
+  private storeSession(response: LoginResponse): User {
+    const userToStore = {
+      id: response.id,
+      username: response.username,
+      email: response.email,
+      token: response.token, // 确保token也保存在用户对象中
+      refreshToken: response.refreshToken,
+    };
+    // 保存用户信息（包含token）
+    sessionStorage.setItem('currentUser', JSON.stringify(userToStore));
+    this.currentUserSubject.next(userToStore);
+    this.scheduleRefresh(response.expiresIn);
+    return userToStore;
+  }
+
+  private clearSession(): void {
+    clearTimeout(this.refreshTimer);
+    sessionStorage.removeItem('currentUser');
+    this.currentUserSubject.next(null);
+  }
+
   login(credentials: LoginRequest): Observable<User> {
     const headers = new HttpHeaders({
       'Content-Type': 'application/json',
@@ -46,18 +94,7 @@ export class AuthService {
         }
       )
       .pipe(
-        map((response) => {
-          const userToStore = {
-            id: response.id,
-            username: response.username,
-            email: response.email,
-            token: response.token  // 确保token也保存在用户对象中
-          };
-          // 保存用户信息（包含token）
-          sessionStorage.setItem('currentUser', JSON.stringify(userToStore));
-          this.currentUserSubject.next(userToStore);
-          return userToStore;
-        }),
+        map((response) => this.storeSession(response)),
         catchError((error) => {
           const statusCode = error.status;
           const errorDetails =
@@ -138,21 +175,18 @@ export class AuthService {
   }
 
   logout(): void {
-    // 发送登出请求到后端
+    // 发送登出请求到后端，结束当前设备的会话
+    const refreshToken = this.currentUserSubject.value?.refreshToken;
     this.http.post(
       'http://localhost:8080/api/auth/logout',
-      {},
+      { refreshToken },
       { withCredentials: true }
     ).subscribe({
-      next: () => {
-        sessionStorage.removeItem('currentUser');
-        this.currentUserSubject.next(null);
-      },
+      next: () => this.clearSession(),
       error: (error) => {
         console.error('Logout failed:', error);
         // 即使请求失败也清除本地状态
-        sessionStorage.removeItem('currentUser');
-        this.currentUserSubject.next(null);
+        this.clearSession();
       }
     });
   }
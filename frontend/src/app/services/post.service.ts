@@ -2,7 +2,7 @@ import { Injectable } from '@angular/core';
 import { HttpClient, HttpErrorResponse, HttpHeaders } from '@angular/common/http';
 import { Observable, throwError } from 'rxjs';
 import { catchError } from 'rxjs/operators';
-import { Post, PostComment, PageResponse } from '../models/post.model';
+import { Post, PostSummary, PostComment, PageResponse } from '../models/post.model';
 import { AuthService } from './auth.service';
 import { Router } from '@angular/router';
 
@@ -54,8 +54,8 @@ export class PostService {
         }
     }
 
-    getPosts(page: number = 0, size: number = 3): Observable<PageResponse<Post>> {
-        return this.http.get<PageResponse<Post>>(`${this.baseUrl}/posts?page=${page}&size=${size}`, {
+    getPosts(page: number = 0, size: number = 3): Observable<PageResponse<PostSummary>> {
+        return this.http.get<PageResponse<PostSummary>>(`${this.baseUrl}/posts?page=${page}&size=${size}`, {
             withCredentials: true
         });
     }
@@ -15,14 +15,20 @@ CREATE TABLE posts (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     title VARCHAR(255) NOT NULL,
     content TEXT NOT NULL,
+    excerpt VARCHAR(200),
     author_id BIGINT NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     view_count INT DEFAULT 0,
     is_published BOOLEAN DEFAULT TRUE,
+    comment_count BIGINT NOT NULL DEFAULT 0,
+    deleted_at TIMESTAMP NULL,
     FOREIGN KEY (author_id) REFERENCES users(id) ON DELETE CASCADE,
-    INDEX idx_author (author_id),
-    INDEX idx_created_at (created_at)
+    INDEX idx_author_published_created (author_id, is_published, created_at, id),
+    INDEX idx_created_at (created_at),
+    INDEX idx_published_created (is_published, created_at, id),
+    INDEX idx_posts_deleted (deleted_at),
+    FULLTEXT INDEX ft_posts_title_content (title, content) WITH PARSER ngram
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE TABLE comments (
@@ -33,10 +39,23 @@ CREATE TABLE comments (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     parent_id BIGINT,
+    depth INT NOT NULL DEFAULT 0,
+    path VARCHAR(255),
     FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     FOREIGN KEY (parent_id) REFERENCES comments(id) ON DELETE CASCADE,
-    INDEX idx_post (post_id),
     INDEX idx_user (user_id),
-    INDEX idx_parent (parent_id)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
\ No newline at end of file
+    INDEX idx_parent (parent_id),
+    INDEX idx_comment_post_root (post_id, parent_id, created_at, id),
+    INDEX idx_comment_parent_created (parent_id, created_at, id),
+    INDEX idx_comment_post_path (post_id, path),
+    FULLTEXT INDEX ft_comments_content (content) WITH PARSER ngram
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(32) NOT NULL,
+    post_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,5 @@
+-- Search indexes for databases created before full-text search.
+-- New databases get them from INITIALIZE_TBL.sql. Run once, from one client, in a
+-- maintenance window: the first FULLTEXT index on a table rebuilds it and blocks writes.
+ALTER TABLE posts ADD FULLTEXT INDEX ft_posts_title_content (title, content) WITH PARSER ngram;
+ALTER TABLE comments ADD FULLTEXT INDEX ft_comments_content (content) WITH PARSER ngram;
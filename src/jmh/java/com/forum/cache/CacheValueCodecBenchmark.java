@@ -0,0 +1,75 @@
+package com.forum.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.forum.model.PostContent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typed JSON, as used by caches without a codec, against the binary {@code postContent}
+ * codec. Entry sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheValueCodecBenchmark {
+
+    @Param({"200", "5000"})
+    public int contentLength;
+
+    private GenericJackson2JsonRedisSerializer json;
+    private BinaryRedisSerializer<PostContent> binary;
+    private PostContent post;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        json = new GenericJackson2JsonRedisSerializer(objectMapper);
+        binary = new BinaryRedisSerializer<>(new PostContentCodec());
+
+        post = new PostContent(42L, "A title of typical length for a forum post", "x".repeat(contentLength),
+                7L, "author", LocalDateTime.of(2025, 9, 1, 12, 0), LocalDateTime.of(2025, 9, 2, 8, 30), true);
+        jsonBytes = json.serialize(post);
+        binaryBytes = binary.serialize(post);
+        System.out.printf("%ncontent=%d json=%d bytes binary=%d bytes%n",
+                contentLength, jsonBytes.length, binaryBytes.length);
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return json.serialize(post);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return binary.serialize(post);
+    }
+}
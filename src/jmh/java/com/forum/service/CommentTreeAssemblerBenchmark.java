@@ -0,0 +1,119 @@
+package com.forum.service;
+
+import com.forum.dto.response.CommentResponse;
+import com.forum.util.CommentPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link CommentTreeAssembler} against the map-based linking it replaced, kept below as
+ * {@code legacy}. Threads are a third roots with replies spread over recent comments. Both
+ * fill the replies lists they are given, so each invocation gets fresh copies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommentTreeAssemblerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int comments;
+
+    private CommentTreeAssembler assembler;
+    private List<CommentResponse> loaded;
+    private List<CommentResponse> ordered;
+    private List<CommentResponse> shuffled;
+
+    @Setup
+    public void setUp() {
+        assembler = new CommentTreeAssembler(CommentPath.DEFAULT_MAX_DEPTH, CommentTreeAssembler.OrphanPolicy.DROP);
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2025, 9, 1, 12, 0);
+        loaded = new ArrayList<>(comments);
+        for (int i = 0; i < comments; i++) {
+            long id = i + 1;
+            Long parentId = i == 0 || random.nextInt(3) == 0 ? null : (long) (i - random.nextInt(Math.min(i, 50)));
+            loaded.add(new CommentResponse(id, 1L, 1L, "user", "comment", start.plusSeconds(i), null, parentId,
+                    new ArrayList<>()));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        ordered = loaded.stream().map(CommentTreeAssemblerBenchmark::copyOf).collect(Collectors.toList());
+        // Cache hits come back in hash order
+        shuffled = new ArrayList<>(ordered);
+        Collections.shuffle(shuffled, new Random(7));
+    }
+
+    @Benchmark
+    public List<CommentResponse> assembleFromDatabase() {
+        return assembler.assemble(ordered);
+    }
+
+    @Benchmark
+    public List<CommentResponse> legacyFromDatabase() {
+        return legacy(ordered);
+    }
+
+    @Benchmark
+    public List<CommentResponse> assembleFromCache() {
+        return assembler.assemble(shuffled);
+    }
+
+    @Benchmark
+    public List<CommentResponse> legacyFromCache() {
+        return legacy(shuffled);
+    }
+
+    private static CommentResponse copyOf(CommentResponse comment) {
+        return new CommentResponse(comment.getId(), comment.getPostId(), comment.getUserId(), comment.getUsername(),
+                comment.getContent(), comment.getCreatedAt(), comment.getUpdatedAt(), comment.getParentId(),
+                new ArrayList<>());
+    }
+
+    private static List<CommentResponse> legacy(List<CommentResponse> allComments) {
+        Map<Long, CommentResponse> uniqueComments = allComments.stream()
+                .collect(Collectors.toMap(CommentResponse::getId, comment -> comment, (existing, replacement) -> existing));
+
+        List<CommentResponse> distinctComments = new ArrayList<>(uniqueComments.values());
+        distinctComments.sort(Comparator.comparing(CommentResponse::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(CommentResponse::getId));
+
+        Map<Long, CommentResponse> commentMap = new HashMap<>();
+        for (CommentResponse comment : distinctComments) {
+            commentMap.put(comment.getId(), comment);
+        }
+
+        List<CommentResponse> rootComments = new ArrayList<>();
+        for (CommentResponse comment : distinctComments) {
+            Long parentId = comment.getParentId();
+            if (parentId == null) {
+                rootComments.add(comment);
+            } else {
+                CommentResponse parent = commentMap.get(parentId);
+                if (parent != null) {
+                    parent.getReplies().add(comment);
+                }
+            }
+        }
+        return rootComments;
+    }
+}
@@ -0,0 +1,17 @@
+package com.forum.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A cache that can read and fill many keys in one round trip.
+ */
+public interface BatchCache {
+
+    /**
+     * The cached values among {@code keys}, keyed by the given key objects; misses are absent.
+     */
+    Map<Object, Object> getAll(Collection<?> keys);
+
+    void putAll(Map<?, ?> values);
+}
@@ -0,0 +1,77 @@
+package com.forum.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.DateTimeException;
+
+/**
+ * Stores the values of one cache through a {@link CacheValueCodec}, behind a two-byte header
+ * of a format marker and the codec version.
+ * <p>
+ * Values this node cannot read, whether written by a newer release or in another format, are
+ * treated as misses instead of failing the request: the cache reloads them from the database
+ * and overwrites the entry.
+ */
+public class BinaryRedisSerializer<T> implements RedisSerializer<Object> {
+
+    // Cannot start a JSON document, so entries of the JSON serializer are never taken for ours
+    static final byte FORMAT_MARKER = (byte) 0xCA;
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryRedisSerializer.class);
+
+    private final CacheValueCodec<T> codec;
+
+    public BinaryRedisSerializer(CacheValueCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (!codec.getType().isInstance(value)) {
+            throw new SerializationException("Cannot write " + value.getClass().getName()
+                    + " with the codec for " + codec.getType().getName());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_MARKER);
+            out.writeByte(codec.getVersion());
+            codec.encode(codec.getType().cast(value), out);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to write " + codec.getType().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < 2 || bytes[0] != FORMAT_MARKER) {
+            logger.debug("Ignoring {} cache entry in another format", codec.getType().getSimpleName());
+            return null;
+        }
+        int version = bytes[1] & 0xFF;
+        if (version > codec.getVersion()) {
+            logger.debug("Ignoring {} cache entry of newer version {}", codec.getType().getSimpleName(), version);
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2))) {
+            return codec.decode(in, version);
+        } catch (IOException | DateTimeException e) {
+            logger.warn("Ignoring unreadable {} cache entry: {}", codec.getType().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+}
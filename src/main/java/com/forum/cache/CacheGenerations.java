@@ -0,0 +1,123 @@
+package com.forum.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Generation-stamped key namespaces for Redis caches whose entries sometimes all have to go
+ * at once. The current generation of such a cache is part of every key prefix, so clearing
+ * the cache is a single INCR instead of a scan and delete over the keyspace: entries of the
+ * previous generation are no longer addressed and expire on their own TTL.
+ * <p>
+ * Each node keeps the generations it has seen in memory. A bump is broadcast so that other
+ * nodes switch at once, and the value is re-read from Redis every refresh interval in case
+ * a broadcast is lost. Like {@link VersionStamp}, a missing counter starts from the current
+ * time in milliseconds, so a generation is never handed out twice.
+ */
+@ManagedResource(objectName = "com.forum:type=CacheGenerations", description = "Generation-stamped cache namespaces")
+public class CacheGenerations implements MessageListener {
+
+    public static final String CHANNEL = "cache:generation";
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheGenerations.class);
+    private static final String KEY_PREFIX = "cache:generation:";
+    private static final String SEPARATOR = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Set<String> cacheNames;
+    private final LoadingCache<String, Long> generations;
+
+    public CacheGenerations(StringRedisTemplate redisTemplate, Collection<String> cacheNames, Duration refreshInterval) {
+        this.redisTemplate = redisTemplate;
+        this.cacheNames = Collections.unmodifiableSet(new HashSet<>(cacheNames));
+        this.generations = Caffeine.newBuilder()
+                .refreshAfterWrite(refreshInterval)
+                // Refresh on the calling thread; a failed refresh keeps serving the known generation
+                .executor(Runnable::run)
+                .build(this::load);
+    }
+
+    public boolean isGenerational(String cacheName) {
+        return cacheNames.contains(cacheName);
+    }
+
+    /**
+     * Key prefix for {@link org.springframework.data.redis.cache.RedisCacheConfiguration}:
+     * {@code name::} as usual, or {@code name:g<generation>::} for generational caches.
+     */
+    public CacheKeyPrefix keyPrefix() {
+        return cacheName -> isGenerational(cacheName)
+                ? cacheName + ":g" + current(cacheName) + CacheKeyPrefix.SEPARATOR
+                : CacheKeyPrefix.simple().compute(cacheName);
+    }
+
+    public long current(String cacheName) {
+        return generations.get(cacheName);
+    }
+
+    /**
+     * Moves a generational cache to a fresh namespace, on every node.
+     */
+    @ManagedOperation(description = "Drops every entry of a generational cache by moving it to a new generation")
+    @ManagedOperationParameter(name = "cacheName", description = "Name of the cache")
+    public void bump(String cacheName) {
+        if (!isGenerational(cacheName)) {
+            throw new IllegalArgumentException("Cache " + cacheName + " is not generational");
+        }
+        Long generation = redisTemplate.execute(VersionStamp.BUMP_SCRIPT,
+                Collections.singletonList(KEY_PREFIX + cacheName));
+        if (generation == null) {
+            throw new IllegalStateException("No generation returned for cache " + cacheName);
+        }
+        advance(cacheName, generation);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, cacheName + SEPARATOR + generation);
+        } catch (RuntimeException e) {
+            // Other nodes pick the new generation up on their next refresh
+            logger.warn("Failed to broadcast generation {} of cache {}: {}", generation, cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR);
+        if (parts.length != 2 || !isGenerational(parts[0])) {
+            return;
+        }
+        try {
+            advance(parts[0], Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed generation message for cache {}", parts[0]);
+        }
+    }
+
+    private Long load(String cacheName) {
+        String generation = redisTemplate.execute(VersionStamp.CURRENT_SCRIPT,
+                Collections.singletonList(KEY_PREFIX + cacheName));
+        if (generation == null) {
+            throw new IllegalStateException("No generation returned for cache " + cacheName);
+        }
+        return Long.parseLong(generation);
+    }
+
+    // Generations only move forward, whatever order bumps and refreshes arrive in
+    private void advance(String cacheName, long generation) {
+        generations.asMap().merge(cacheName, generation, Math::max);
+    }
+}
@@ -0,0 +1,11 @@
+package com.forum.cache;
+
+/**
+ * Tells the other nodes to drop entries from their in-process caches.
+ */
+public interface CacheInvalidationPublisher {
+
+    void publishEvict(String cacheName, String key);
+
+    void publishClear(String cacheName);
+}
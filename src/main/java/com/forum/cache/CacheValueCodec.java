@@ -0,0 +1,30 @@
+package com.forum.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Hand-written binary layout of one cached value type, used by {@link BinaryRedisSerializer}
+ * in place of self-describing JSON.
+ * <p>
+ * Every entry is written in the current {@link #getVersion() version} and stamped with it.
+ * A codec must keep reading the layouts of earlier versions it shipped with, so that entries
+ * written by nodes still on the previous release stay readable during a rolling deploy.
+ */
+public interface CacheValueCodec<T> {
+
+    Class<T> getType();
+
+    /**
+     * Layout written by {@link #encode}; bump it whenever the layout changes.
+     */
+    int getVersion();
+
+    void encode(T value, DataOutput out) throws IOException;
+
+    /**
+     * Reads a value written in {@code version}, which is never newer than {@link #getVersion()}.
+     */
+    T decode(DataInput in, int version) throws IOException;
+}
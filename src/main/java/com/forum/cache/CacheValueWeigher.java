@@ -0,0 +1,44 @@
+package com.forum.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Weighs L1 entries by the size of their JSON form, which tracks how much heap a cached
+ * post or comment tree holds far better than an entry count does.
+ */
+class CacheValueWeigher implements Weigher<Object, Object> {
+
+    private static final int FALLBACK_WEIGHT = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Override
+    public int weigh(Object key, Object value) {
+        CountingOutputStream out = new CountingOutputStream();
+        try {
+            objectMapper.writeValue(out, value);
+        } catch (IOException e) {
+            return FALLBACK_WEIGHT;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, out.count);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.forum.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Nullable field helpers shared by the {@link CacheValueCodec} implementations. Strings are
+ * written as length-prefixed UTF-8 so that post bodies are not bound by the 64 KB limit of
+ * {@link DataOutput#writeUTF}.
+ * <p>
+ * Lengths read back come from Redis and are checked against the bytes left in the entry
+ * before anything is allocated, so a corrupt or foreign entry fails as unreadable.
+ */
+final class CodecStreams {
+
+    private CodecStreams() {
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > remaining(in)) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // BinaryRedisSerializer reads from a byte array, whose stream reports exactly what is left
+    private static int remaining(DataInput in) throws IOException {
+        return in instanceof InputStream ? ((InputStream) in).available() : Integer.MAX_VALUE;
+    }
+
+    static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    // Timestamps are zone-less in the entities, so the UTC offset only serves as a fixed reference
+    static void writeDateTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    static LocalDateTime readDateTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = in.readLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+}
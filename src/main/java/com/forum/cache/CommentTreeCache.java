@@ -0,0 +1,336 @@
+package com.forum.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.forum.dto.response.CommentResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Comments of a post kept in Redis as a hash of comment id to flat payload, so that a new,
+ * edited or deleted comment patches one field instead of invalidating the whole thread.
+ * <p>
+ * Every write bumps a per-post version counter held in a separate key that outlives the
+ * hash. A snapshot loaded from MySQL is only stored if the counter did not move while it
+ * was being read, so a write that lands between the load and the store cannot be lost.
+ * The hash records the version it reflects, which lets each node keep the assembled tree
+ * in memory and reuse it for as long as the version matches.
+ * <p>
+ * The version counter also serves as the ETag of the thread. A missing counter starts from
+ * the current time in milliseconds rather than from 1, so that a version handed out before
+ * the counter expired never comes back for a different thread.
+ * <p>
+ * Patches run after the surrounding transaction commits. Redis failures degrade to
+ * reading from MySQL; a failed patch is bounded by the hash TTL.
+ */
+public class CommentTreeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentTreeCache.class);
+
+    static final String KEY_PREFIX = "comment:tree:";
+    static final String VERSION_SUFFIX = ":v";
+    static final String VERSION_FIELD = "_v";
+    static final String COMMENT_FIELD_PREFIX = "c:";
+
+    // Moves the version in KEYS[2] into v
+    private static final String BUMP_VERSION =
+            "redis.replicate_commands() " +
+            "local v " +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then " +
+            "  v = redis.call('INCR', KEYS[2]) " +
+            "else " +
+            "  local t = redis.call('TIME') " +
+            "  v = t[1] * 1000 + math.floor(t[2] / 1000) " +
+            "  redis.call('SET', KEYS[2], string.format('%d', v)) " +
+            "end ";
+
+    // KEYS: hash, version. ARGV: hash ttl seconds, field, payload
+    private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>(
+            BUMP_VERSION +
+            "redis.call('EXPIRE', KEYS[2], 2 * tonumber(ARGV[1])) " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  redis.call('HSET', KEYS[1], ARGV[2], ARGV[3], '" + VERSION_FIELD + "', string.format('%d', v)) " +
+            "end " +
+            "return v", Long.class);
+
+    // KEYS: hash, version. ARGV: hash ttl seconds, fields to remove...
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            BUMP_VERSION +
+            "redis.call('EXPIRE', KEYS[2], 2 * tonumber(ARGV[1])) " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  for i = 2, #ARGV do redis.call('HDEL', KEYS[1], ARGV[i]) end " +
+            "  redis.call('HSET', KEYS[1], '" + VERSION_FIELD + "', string.format('%d', v)) " +
+            "end " +
+            "return v", Long.class);
+
+    // KEYS: hash, version. ARGV: hash ttl seconds
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>(
+            BUMP_VERSION +
+            "redis.call('EXPIRE', KEYS[2], 2 * tonumber(ARGV[1])) " +
+            "redis.call('DEL', KEYS[1]) " +
+            "return v", Long.class);
+
+    // KEYS: hash, version. ARGV: hash ttl seconds. Starts a missing version like a write would
+    private static final RedisScript<String> VERSION_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[2]) " +
+            "if current then return current end " +
+            BUMP_VERSION +
+            "redis.call('EXPIRE', KEYS[2], 2 * tonumber(ARGV[1])) " +
+            "return string.format('%d', v)", String.class);
+
+    // KEYS: hash, version. ARGV: hash ttl seconds, version seen before the load, field, payload, ...
+    private static final RedisScript<Long> STORE_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[2]) or '0' " +
+            "if current ~= ARGV[2] then return 0 end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('HSET', KEYS[1], '" + VERSION_FIELD + "', current) " +
+            "for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "if current ~= '0' then redis.call('EXPIRE', KEYS[2], 2 * tonumber(ARGV[1])) end " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Cache<Long, VersionedTree> local;
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public CommentTreeCache(StringRedisTemplate redisTemplate, Duration ttl, Duration localTtl, long localMaxWeightBytes) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        CacheValueWeigher weigher = new CacheValueWeigher();
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(localMaxWeightBytes)
+                .<Long, VersionedTree>weigher((postId, entry) -> weigher.weigh(postId, entry.tree))
+                .expireAfterWrite(localTtl)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Returns the comment tree of a post. The returned nodes may be shared with other callers
+     * and must not be modified.
+     *
+     * @param loader    reads the flat comment list of the post from the database
+     * @param assembler links a flat list into root comments with nested replies
+     */
+    public List<CommentResponse> getTree(Long postId,
+                                         Supplier<List<CommentResponse>> loader,
+                                         UnaryOperator<List<CommentResponse>> assembler) {
+        List<CommentResponse> cached = readCached(postId, assembler);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return singleFlight.execute(String.valueOf(postId), () -> load(postId, loader, assembler));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load comments of post " + postId, e);
+        }
+    }
+
+    /**
+     * The version of a post's comment thread, which changes with every write to the thread,
+     * or {@code null} when Redis cannot be reached.
+     */
+    public String getVersion(Long postId) {
+        try {
+            return redisTemplate.execute(VERSION_SCRIPT, keys(postId), String.valueOf(ttl.getSeconds()));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read comment cache version of post {}: {}", postId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds or replaces one comment once the current transaction commits.
+     */
+    public void put(Long postId, CommentResponse comment) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(flatCopy(comment));
+        } catch (JsonProcessingException e) {
+            invalidate(postId);
+            return;
+        }
+        afterCommit(postId, () -> redisTemplate.execute(PUT_SCRIPT, keys(postId),
+                String.valueOf(ttl.getSeconds()), field(comment.getId()), payload));
+    }
+
+    /**
+     * Removes the given comments, typically a deleted comment and its replies, once the
+     * current transaction commits.
+     */
+    public void remove(Long postId, Collection<Long> commentIds) {
+        if (commentIds.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(commentIds.size() + 1);
+        args.add(String.valueOf(ttl.getSeconds()));
+        commentIds.forEach(id -> args.add(field(id)));
+        afterCommit(postId, () -> redisTemplate.execute(REMOVE_SCRIPT, keys(postId), args.toArray()));
+    }
+
+    /**
+     * Drops the cached comments of a post once the current transaction commits.
+     */
+    public void invalidate(Long postId) {
+        afterCommit(postId, () -> redisTemplate.execute(INVALIDATE_SCRIPT, keys(postId),
+                String.valueOf(ttl.getSeconds())));
+    }
+
+    private List<CommentResponse> readCached(Long postId, UnaryOperator<List<CommentResponse>> assembler) {
+        try {
+            Object version = redisTemplate.opsForHash().get(hashKey(postId), VERSION_FIELD);
+            if (version == null) {
+                return null;
+            }
+            VersionedTree entry = local.getIfPresent(postId);
+            if (entry != null && entry.version.equals(version)) {
+                return entry.tree;
+            }
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(hashKey(postId));
+            Object snapshotVersion = fields.remove(VERSION_FIELD);
+            if (snapshotVersion == null) {
+                return null;
+            }
+            List<CommentResponse> flat = new ArrayList<>(fields.size());
+            for (Object payload : fields.values()) {
+                CommentResponse comment = objectMapper.readValue((String) payload, CommentResponse.class);
+                comment.setReplies(new ArrayList<>());
+                flat.add(comment);
+            }
+            VersionedTree assembled = new VersionedTree(snapshotVersion, assembler.apply(flat));
+            local.put(postId, assembled);
+            return assembled.tree;
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Failed to read cached comments of post {}: {}", postId, e.getMessage());
+            return null;
+        }
+    }
+
+    private List<CommentResponse> load(Long postId,
+                                       Supplier<List<CommentResponse>> loader,
+                                       UnaryOperator<List<CommentResponse>> assembler) {
+        // Another caller may have stored the snapshot while we waited to become the loader
+        List<CommentResponse> cached = readCached(postId, assembler);
+        if (cached != null) {
+            return cached;
+        }
+        String versionBefore = readVersion(postId);
+        List<CommentResponse> flat = loader.get();
+        if (versionBefore != null) {
+            // Serialize before assembling, which fills in the reply lists
+            store(postId, versionBefore, flat);
+        }
+        return Collections.unmodifiableList(assembler.apply(flat));
+    }
+
+    private String readVersion(Long postId) {
+        try {
+            String version = redisTemplate.opsForValue().get(versionKey(postId));
+            return version == null ? "0" : version;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read comment cache version of post {}: {}", postId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(Long postId, String versionBefore, List<CommentResponse> flat) {
+        try {
+            List<String> args = new ArrayList<>(2 + 2 * flat.size());
+            args.add(String.valueOf(ttl.getSeconds()));
+            args.add(versionBefore);
+            for (CommentResponse comment : flat) {
+                args.add(field(comment.getId()));
+                args.add(objectMapper.writeValueAsString(flatCopy(comment)));
+            }
+            redisTemplate.execute(STORE_SCRIPT, keys(postId), args.toArray());
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Failed to cache comments of post {}: {}", postId, e.getMessage());
+        }
+    }
+
+    private void afterCommit(Long postId, Runnable patch) {
+        Runnable guarded = () -> {
+            local.invalidate(postId);
+            try {
+                patch.run();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to update cached comments of post {}: {}", postId, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    private static CommentResponse flatCopy(CommentResponse comment) {
+        return new CommentResponse(
+                comment.getId(),
+                comment.getPostId(),
+                comment.getUserId(),
+                comment.getUsername(),
+                comment.getContent(),
+                comment.getCreatedAt(),
+                comment.getUpdatedAt(),
+                comment.getParentId(),
+                null
+        );
+    }
+
+    private static List<String> keys(Long postId) {
+        return Arrays.asList(hashKey(postId), versionKey(postId));
+    }
+
+    private static String hashKey(Long postId) {
+        return KEY_PREFIX + postId;
+    }
+
+    private static String versionKey(Long postId) {
+        return KEY_PREFIX + postId + VERSION_SUFFIX;
+    }
+
+    private static String field(Long commentId) {
+        return COMMENT_FIELD_PREFIX + commentId;
+    }
+
+    private static final class VersionedTree {
+        private final Object version;
+        private final List<CommentResponse> tree;
+
+        private VersionedTree(Object version, List<CommentResponse> tree) {
+            this.version = version;
+            this.tree = Collections.unmodifiableList(tree);
+        }
+    }
+}
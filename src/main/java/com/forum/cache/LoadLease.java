@@ -0,0 +1,15 @@
+package com.forum.cache;
+
+/**
+ * Short-lived cross-node lock that lets one node rebuild a missing cache entry while the
+ * others wait for it to appear.
+ */
+public interface LoadLease {
+
+    /**
+     * @return a token identifying this holder, or {@code null} if another node holds the lease
+     */
+    String tryAcquire(String key);
+
+    void release(String key, String token);
+}
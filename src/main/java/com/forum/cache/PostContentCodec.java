@@ -0,0 +1,55 @@
+package com.forum.cache;
+
+import com.forum.model.PostContent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.forum.cache.CodecStreams.*;
+
+/**
+ * Binary layout of the {@code postContent} cache entries.
+ * <p>
+ * Version 1: id, title, content, authorId, authorUsername, createdAt, updatedAt, published.
+ */
+public class PostContentCodec implements CacheValueCodec<PostContent> {
+
+    private static final int VERSION = 1;
+
+    @Override
+    public Class<PostContent> getType() {
+        return PostContent.class;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void encode(PostContent value, DataOutput out) throws IOException {
+        writeLong(out, value.getId());
+        writeString(out, value.getTitle());
+        writeString(out, value.getContent());
+        writeLong(out, value.getAuthorId());
+        writeString(out, value.getAuthorUsername());
+        writeDateTime(out, value.getCreatedAt());
+        writeDateTime(out, value.getUpdatedAt());
+        out.writeBoolean(value.isPublished());
+    }
+
+    @Override
+    public PostContent decode(DataInput in, int version) throws IOException {
+        PostContent value = new PostContent();
+        value.setId(readLong(in));
+        value.setTitle(readString(in));
+        value.setContent(readString(in));
+        value.setAuthorId(readLong(in));
+        value.setAuthorUsername(readString(in));
+        value.setCreatedAt(readDateTime(in));
+        value.setUpdatedAt(readDateTime(in));
+        value.setPublished(in.readBoolean());
+        return value;
+    }
+}
@@ -0,0 +1,203 @@
+package com.forum.cache;
+
+import com.forum.model.PostCounters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * View and comment counts of a post kept in a Redis hash next to, but apart from, the cached
+ * post content, so that a new view or comment never invalidates the content.
+ * <p>
+ * A hash is seeded from MySQL on the first read and from then on moved by the view deltas
+ * that are written to MySQL. Increments only apply to hashes that exist, so a partially
+ * populated hash is never read as a full count. An increment that lands while a seed is in
+ * flight is missed until the hash expires, which bounds how far the counts can drift.
+ * Comment changes arrive from the outbox, which may deliver them twice, so they drop the
+ * hash to be reseeded rather than add to it.
+ */
+public class PostCounterCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCounterCache.class);
+
+    static final String KEY_PREFIX = "post:counters:";
+    static final String VIEWS_FIELD = "views";
+    static final String COMMENTS_FIELD = "comments";
+
+    // KEYS: hash. ARGV: ttl seconds, views, comments
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+            "redis.call('HSET', KEYS[1], '" + VIEWS_FIELD + "', ARGV[2], '" + COMMENTS_FIELD + "', ARGV[3]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1", Long.class);
+
+    // KEYS: hashes. ARGV: field, delta
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "local updated = 0 " +
+            "for i = 1, #KEYS do " +
+            "  if redis.call('EXISTS', KEYS[i]) == 1 then " +
+            "    if redis.call('HINCRBY', KEYS[i], ARGV[1], ARGV[2]) < 0 then " +
+            "      redis.call('HSET', KEYS[i], ARGV[1], 0) " +
+            "    end " +
+            "    updated = updated + 1 " +
+            "  end " +
+            "end " +
+            "return updated", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public PostCounterCache(StringRedisTemplate redisTemplate, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the counters of a post, seeding them from {@code loader} when not cached.
+     */
+    public PostCounters get(Long postId, Supplier<PostCounters> loader) {
+        try {
+            List<Object> values = redisTemplate.opsForHash().multiGet(key(postId),
+                    Arrays.asList(VIEWS_FIELD, COMMENTS_FIELD));
+            if (values != null && values.size() == 2 && values.get(0) != null && values.get(1) != null) {
+                return new PostCounters(Integer.parseInt((String) values.get(0)), Long.parseLong((String) values.get(1)));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read cached counters of post {}: {}", postId, e.getMessage());
+            return loader.get();
+        }
+        PostCounters counters = loader.get();
+        try {
+            redisTemplate.execute(SEED_SCRIPT, Collections.singletonList(key(postId)),
+                    String.valueOf(ttl.getSeconds()),
+                    String.valueOf(counters.getViewCount()),
+                    String.valueOf(counters.getCommentCount()));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to cache counters of post {}: {}", postId, e.getMessage());
+        }
+        return counters;
+    }
+
+    /**
+     * Returns the counters of many posts with one pipelined read, seeding the missing ones
+     * from a single {@code loader} call in a second pipeline. Posts the loader does not
+     * return are absent from the result.
+     */
+    public Map<Long, PostCounters> getAll(Collection<Long> postIds,
+                                          Function<Collection<Long>, Map<Long, PostCounters>> loader) {
+        List<Long> ids = new ArrayList<>(postIds);
+        Map<Long, PostCounters> found = new HashMap<>();
+        if (ids.isEmpty()) {
+            return found;
+        }
+        try {
+            List<Object> rows = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                ids.forEach(id -> stringConnection.hMGet(key(id), VIEWS_FIELD, COMMENTS_FIELD));
+                return null;
+            });
+            for (int i = 0; i < ids.size() && i < rows.size(); i++) {
+                List<?> values = (List<?>) rows.get(i);
+                if (values != null && values.size() == 2 && values.get(0) != null && values.get(1) != null) {
+                    found.put(ids.get(i), new PostCounters(Integer.parseInt((String) values.get(0)),
+                            Long.parseLong((String) values.get(1))));
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read cached counters of {} posts: {}", ids.size(), e.getMessage());
+            found.putAll(loader.apply(ids));
+            return found;
+        }
+
+        List<Long> misses = new ArrayList<>(ids);
+        misses.removeAll(found.keySet());
+        if (misses.isEmpty()) {
+            return found;
+        }
+        Map<Long, PostCounters> loaded = loader.apply(misses);
+        found.putAll(loaded);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                loaded.forEach((id, counters) -> stringConnection.eval(SEED_SCRIPT.getScriptAsString(),
+                        ReturnType.INTEGER, 1, key(id),
+                        String.valueOf(ttl.getSeconds()),
+                        String.valueOf(counters.getViewCount()),
+                        String.valueOf(counters.getCommentCount())));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Failed to cache counters of {} posts: {}", loaded.size(), e.getMessage());
+        }
+        return found;
+    }
+
+    /**
+     * Adds views that have just been written to MySQL.
+     */
+    public void addViews(Collection<Long> postIds, long delta) {
+        if (postIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = postIds.stream().map(PostCounterCache::key).collect(Collectors.toList());
+        add(keys, VIEWS_FIELD, delta, postIds.size() + " posts");
+    }
+
+    /**
+     * Drops the counters of a post once the current transaction commits, so the next read
+     * reseeds them from MySQL. Unlike adding a delta, this is safe to repeat.
+     */
+    public void evict(Long postId) {
+        afterCommit(() -> {
+            try {
+                redisTemplate.delete(key(postId));
+            } catch (RuntimeException e) {
+                logger.warn("Failed to evict cached counters of post {}: {}", postId, e.getMessage());
+            }
+        });
+    }
+
+    private void add(List<String> keys, String field, long delta, String what) {
+        try {
+            redisTemplate.execute(ADD_SCRIPT, keys, field, String.valueOf(delta));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update cached {} of {}: {}", field, what, e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String key(Long postId) {
+        return KEY_PREFIX + postId;
+    }
+}
@@ -0,0 +1,91 @@
+package com.forum.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-key reads and writes against the entries of a {@link RedisCache}: one MGET, and one
+ * pipeline of SETs with the cache's TTL. Keys and values go through the cache's own
+ * configuration, so entries are interchangeable with those written one at a time.
+ * <p>
+ * Redis failures degrade to misses and skipped writes, like the single-key path.
+ */
+class RedisCacheBatch {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCacheBatch.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    RedisCacheBatch(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    Map<Object, Object> getAll(RedisCache cache, Collection<?> keys) {
+        List<Object> keyList = new ArrayList<>(keys);
+        byte[][] rawKeys = keyList.stream().map(key -> rawKey(cache, key)).toArray(byte[][]::new);
+        List<byte[]> rawValues;
+        try {
+            rawValues = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(rawKeys));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read {} entries of cache {}: {}", keyList.size(), cache.getName(), e.getMessage());
+            return new HashMap<>();
+        }
+        Map<Object, Object> found = new HashMap<>();
+        if (rawValues == null) {
+            return found;
+        }
+        for (int i = 0; i < keyList.size() && i < rawValues.size(); i++) {
+            byte[] rawValue = rawValues.get(i);
+            Object value = rawValue == null ? null
+                    : cache.getCacheConfiguration().getValueSerializationPair().read(ByteBuffer.wrap(rawValue));
+            if (value != null) {
+                found.put(keyList.get(i), value);
+            }
+        }
+        return found;
+    }
+
+    void putAll(RedisCache cache, Map<?, ?> values) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        Duration ttl = config.getTtl();
+        Expiration expiration = ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                values.forEach((key, value) -> set(connection, rawKey(cache, key),
+                        ByteUtils.getBytes(config.getValueSerializationPair().write(value)), expiration));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Failed to write {} entries of cache {}: {}", values.size(), cache.getName(), e.getMessage());
+        }
+    }
+
+    private static void set(RedisConnection connection, byte[] key, byte[] value, Expiration expiration) {
+        connection.stringCommands().set(key, value, expiration, RedisStringCommands.SetOption.upsert());
+    }
+
+    // Same key RedisCache builds: the configured prefix, then the key in its string form
+    private static byte[] rawKey(RedisCache cache, Object key) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        String stringKey = config.getConversionService().convert(key, String.class);
+        return ByteUtils.getBytes(config.getKeySerializationPair()
+                .write(config.getKeyPrefixFor(cache.getName()) + stringKey));
+    }
+}
@@ -0,0 +1,55 @@
+package com.forum.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * {@link LoadLease} backed by {@code SET NX PX}; the lease expires on its own if the holder dies.
+ */
+public class RedisLoadLease implements LoadLease {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisLoadLease.class);
+    private static final String KEY_PREFIX = "cache:lease:";
+
+    // Only the holder may release, so a slow loader cannot drop a lease that has since been re-acquired
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration leaseTtl;
+
+    public RedisLoadLease(StringRedisTemplate redisTemplate, Duration leaseTtl) {
+        this.redisTemplate = redisTemplate;
+        this.leaseTtl = leaseTtl;
+    }
+
+    @Override
+    public String tryAcquire(String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, token, leaseTtl);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (RuntimeException e) {
+            // Without Redis there is nothing to coordinate on, so behave as the holder
+            logger.warn("Failed to acquire cache load lease for {}: {}", key, e.getMessage());
+            return token;
+        }
+    }
+
+    @Override
+    public void release(String key, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(KEY_PREFIX + key), token);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to release cache load lease for {}: {}", key, e.getMessage());
+        }
+    }
+}
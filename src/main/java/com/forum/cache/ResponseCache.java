@@ -0,0 +1,253 @@
+package com.forum.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serialized responses of public GET endpoints, kept in process and tagged with surrogate keys
+ * (a post, a post's comments, the feeds) so that writes can purge every response they affect.
+ * <p>
+ * Purges are recorded per tag as a tick of a local clock rather than by walking the entries:
+ * an entry is served only while none of its tags was purged after the request that rendered
+ * it started. A response rendered from data read before a concurrent write therefore never
+ * outlives that write. Purges are broadcast so that other nodes record them too.
+ */
+@ManagedResource(objectName = "com.forum:type=ResponseCache", description = "Serialized responses of public GET endpoints")
+public class ResponseCache implements MessageListener {
+
+    public static final String PURGE_CHANNEL = "cache:response-purge";
+    public static final String FEED_TAG = "feed";
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+    private static final String SEPARATOR = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Cache<String, Entry> entries;
+    // Tick of the latest purge of each tag; kept past the entry TTL so that no purged entry outlives it
+    private final Cache<String, Long> purges;
+    private final AtomicLong clock = new AtomicLong();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResponseCache(StringRedisTemplate redisTemplate, Duration ttl, long maxWeightBytes) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, Entry entry) -> key.length() + entry.weight())
+                .expireAfterWrite(ttl)
+                .executor(Runnable::run)
+                .build();
+        this.purges = Caffeine.newBuilder()
+                .expireAfterWrite(ttl.multipliedBy(2))
+                .executor(Runnable::run)
+                .build();
+    }
+
+    public static String postTag(Long postId) {
+        return "post:" + postId;
+    }
+
+    public static String commentsTag(Long postId) {
+        return "comments:" + postId;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * The current tick, to be taken before a response starts rendering and handed to
+     * {@link #put}.
+     */
+    public long tick() {
+        return clock.get();
+    }
+
+    public Entry get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && isFresh(entry)) {
+            hits.increment();
+            return entry;
+        }
+        if (entry != null) {
+            entries.invalidate(key);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores a response unless one of its tags was purged after its request started.
+     */
+    public void put(String key, Entry entry) {
+        if (isFresh(entry)) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Purges every response carrying one of the tags, on all nodes, once the current
+     * transaction commits.
+     */
+    public void purge(String... tags) {
+        Runnable purge = () -> {
+            purgeLocal(Arrays.asList(tags));
+            publish(tags);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    purge.run();
+                }
+            });
+        } else {
+            purge.run();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        purgeLocal(Arrays.asList(parts).subList(1, parts.length));
+    }
+
+    @ManagedAttribute(description = "Responses served from the cache since startup")
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @ManagedAttribute(description = "Cacheable requests that had to be rendered since startup")
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute(description = "Responses currently cached")
+    public long getEntryCount() {
+        return entries.estimatedSize();
+    }
+
+    @ManagedOperation(description = "Drops every cached response on this node")
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    private boolean isFresh(Entry entry) {
+        for (String tag : entry.getTags()) {
+            Long purgedAt = purges.getIfPresent(tag);
+            if (purgedAt != null && purgedAt > entry.getStartedAt()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void purgeLocal(List<String> tags) {
+        long now = clock.incrementAndGet();
+        for (String tag : tags) {
+            purges.asMap().merge(tag, now, Math::max);
+        }
+    }
+
+    private void publish(String[] tags) {
+        try {
+            redisTemplate.convertAndSend(PURGE_CHANNEL, nodeId + SEPARATOR + String.join(SEPARATOR, tags));
+        } catch (RuntimeException e) {
+            // Other nodes fall back to the entry TTL; the local purge has already happened
+            logger.warn("Failed to broadcast purge of {}: {}", Arrays.toString(tags), e.getMessage());
+        }
+    }
+
+    /**
+     * A serialized response. The gzip body is present only for responses large enough to
+     * be worth compressing; {@code onHit} runs for every request answered from the entry.
+     */
+    public static final class Entry {
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String contentType;
+        private final String cacheControl;
+        private final String etag;
+        private final long lastModified;
+        private final List<String> tags;
+        private final long startedAt;
+        private final Runnable onHit;
+
+        public Entry(byte[] body, byte[] gzipBody, String contentType, String cacheControl, String etag,
+                     long lastModified, List<String> tags, long startedAt, Runnable onHit) {
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.contentType = contentType;
+            this.cacheControl = cacheControl;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.tags = tags;
+            this.startedAt = startedAt;
+            this.onHit = onHit;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public byte[] getGzipBody() {
+            return gzipBody;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getCacheControl() {
+            return cacheControl;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public Runnable getOnHit() {
+            return onHit;
+        }
+
+        int weight() {
+            return body.length + (gzipBody == null ? 0 : gzipBody.length);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.forum.cache;
+
+import com.forum.config.SingleFlightProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * A cache that answers from a bounded in-process map (L1) before falling back to Redis (L2).
+ * <p>
+ * Values found in L1 are the same instances handed to every caller, so they must be treated
+ * as read-only. Evictions are applied locally and broadcast so that other nodes drop their
+ * L1 copy; puts are not broadcast because an L1 entry can only be filled from L2 or the
+ * database after the previous value was evicted everywhere.
+ * <p>
+ * Misses resolved through {@link #get(Object, Callable)} are coalesced so that a burst of
+ * requests for a cold key runs the loader once per node, or once per cluster when a
+ * {@link LoadLease} is configured.
+ * <p>
+ * Batch reads check L1 first and fetch what is left from Redis in one MGET when the remote
+ * cache is a {@link RedisCache}; other remotes are read key by key.
+ */
+public class TwoLevelCache implements Cache, BatchCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final LoadLease loadLease;
+    private final SingleFlightProperties singleFlightProperties;
+    private final RedisCacheBatch remoteBatch;
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                         Cache remote,
+                         CacheInvalidationPublisher invalidationPublisher,
+                         LoadLease loadLease,
+                         SingleFlightProperties singleFlightProperties) {
+        this(name, local, remote, invalidationPublisher, loadLease, singleFlightProperties, null);
+    }
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                         Cache remote,
+                         CacheInvalidationPublisher invalidationPublisher,
+                         LoadLease loadLease,
+                         SingleFlightProperties singleFlightProperties,
+                         RedisCacheBatch remoteBatch) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.loadLease = loadLease;
+        this.singleFlightProperties = singleFlightProperties;
+        this.remoteBatch = remoteBatch;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = local.getIfPresent(localKey(key));
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(localKey(key), wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        try {
+            return singleFlight.execute(localKey(key), () -> load(key, valueLoader));
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            local.put(localKey(key), value);
+        }
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> found = new HashMap<>();
+        List<Object> remoteKeys = new ArrayList<>();
+        for (Object key : keys) {
+            Object value = local.getIfPresent(localKey(key));
+            if (value != null) {
+                found.put(key, value);
+            } else {
+                remoteKeys.add(key);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return found;
+        }
+        if (remoteBatch != null && remote instanceof RedisCache) {
+            remoteBatch.getAll((RedisCache) remote, remoteKeys).forEach((key, value) -> {
+                local.put(localKey(key), value);
+                found.put(key, value);
+            });
+        } else {
+            for (Object key : remoteKeys) {
+                ValueWrapper wrapper = get(key);
+                if (wrapper != null && wrapper.get() != null) {
+                    found.put(key, wrapper.get());
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void putAll(Map<?, ?> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        if (remoteBatch != null && remote instanceof RedisCache) {
+            remoteBatch.putAll((RedisCache) remote, values);
+        } else {
+            values.forEach(remote::put);
+        }
+        values.forEach((key, value) -> {
+            if (value != null) {
+                local.put(localKey(key), value);
+            }
+        });
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T load(Object key, Callable<T> valueLoader) throws Exception {
+        // The previous leader may have filled the entry between our miss and taking the lead
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        if (loadLease == null) {
+            return loadAndPut(key, valueLoader);
+        }
+        String leaseKey = name + "::" + localKey(key);
+        String token = loadLease.tryAcquire(leaseKey);
+        if (token != null) {
+            try {
+                return loadAndPut(key, valueLoader);
+            } finally {
+                loadLease.release(leaseKey, token);
+            }
+        }
+        wrapper = awaitRemote(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        // The holder is slow or gone; load ourselves rather than fail the request
+        return loadAndPut(key, valueLoader);
+    }
+
+    private <T> T loadAndPut(Object key, Callable<T> valueLoader) throws Exception {
+        T value = valueLoader.call();
+        put(key, value);
+        return value;
+    }
+
+    private ValueWrapper awaitRemote(Object key) throws InterruptedException {
+        long pollMillis = Math.max(1, singleFlightProperties.getPollInterval().toMillis());
+        long deadline = System.nanoTime() + singleFlightProperties.getLeaseWait().toNanos();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(pollMillis);
+            ValueWrapper wrapper = get(key);
+            if (wrapper != null) {
+                return wrapper;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops an entry from L1 only, in response to an eviction on another node.
+     */
+    void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    // Same string form RedisCache uses for its keys, so remote evictions can be matched
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
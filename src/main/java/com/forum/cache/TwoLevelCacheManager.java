@@ -0,0 +1,126 @@
+package com.forum.cache;
+
+import com.forum.config.LocalCacheProperties;
+import com.forum.config.SingleFlightProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts a per-cache in-process L1 in front of the Redis cache manager and keeps the L1
+ * caches of all nodes coherent through a Redis pub/sub channel.
+ */
+public class TwoLevelCacheManager implements CacheManager, CacheInvalidationPublisher, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidation";
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+    private static final String EVICT = "evict";
+    private static final String CLEAR = "clear";
+    private static final String SEPARATOR = "\n";
+
+    private final CacheManager remoteCacheManager;
+    private final LocalCacheProperties localCacheProperties;
+    private final StringRedisTemplate redisTemplate;
+    private final SingleFlightProperties singleFlightProperties;
+    private final LoadLease loadLease;
+    private final RedisCacheBatch remoteBatch;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheValueWeigher weigher = new CacheValueWeigher();
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                LocalCacheProperties localCacheProperties,
+                                StringRedisTemplate redisTemplate,
+                                SingleFlightProperties singleFlightProperties) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.localCacheProperties = localCacheProperties;
+        this.redisTemplate = redisTemplate;
+        this.singleFlightProperties = singleFlightProperties;
+        this.loadLease = singleFlightProperties.isDistributed()
+                ? new RedisLoadLease(redisTemplate, singleFlightProperties.getLeaseTtl())
+                : null;
+        this.remoteBatch = new RedisCacheBatch(redisTemplate);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> decorate(n, remote));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    @Override
+    public void publishEvict(String cacheName, String key) {
+        publish(EVICT, cacheName, key);
+    }
+
+    @Override
+    public void publishClear(String cacheName) {
+        publish(CLEAR, cacheName, "");
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+        if (parts.length != 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        Cache cache = caches.get(parts[2]);
+        if (!(cache instanceof TwoLevelCache)) {
+            return;
+        }
+        if (EVICT.equals(parts[1])) {
+            ((TwoLevelCache) cache).evictLocal(parts[3]);
+        } else if (CLEAR.equals(parts[1])) {
+            ((TwoLevelCache) cache).clearLocal();
+        }
+    }
+
+    private Cache decorate(String name, Cache remote) {
+        LocalCacheProperties.Spec spec = localCacheProperties.getCaches().get(name);
+        if (spec == null) {
+            return remote;
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumWeight(spec.getMaxWeightBytes())
+                .weigher(weigher)
+                .expireAfterWrite(spec.getTtl())
+                // Evict on the calling thread rather than the shared ForkJoinPool
+                .executor(Runnable::run)
+                .build();
+        return new TwoLevelCache(name, local, remote, this, loadLease, singleFlightProperties, remoteBatch);
+    }
+
+    private void publish(String operation, String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                    String.join(SEPARATOR, nodeId, operation, cacheName, key));
+        } catch (RuntimeException e) {
+            // Other nodes fall back to their L1 TTL; the local eviction has already happened
+            logger.warn("Failed to broadcast {} of cache {}: {}", operation, cacheName, e.getMessage());
+        }
+    }
+}
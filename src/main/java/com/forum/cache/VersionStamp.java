@@ -0,0 +1,87 @@
+package com.forum.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+
+/**
+ * A counter in Redis that moves whenever any of the rows behind a set of responses changes,
+ * used as the aggregate ETag of responses that are built from many rows.
+ * <p>
+ * A missing counter, whether never set or evicted, starts from the current time in
+ * milliseconds rather than from 1, so a value handed out before the key was lost is not
+ * handed out again for different data.
+ */
+public class VersionStamp {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersionStamp.class);
+
+    // KEYS: counter. Returns the current value, starting a missing counter
+    static final RedisScript<String> CURRENT_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) " +
+            "if v then return v end " +
+            "redis.replicate_commands() " +
+            "local t = redis.call('TIME') " +
+            "v = string.format('%d', t[1] * 1000 + math.floor(t[2] / 1000)) " +
+            "redis.call('SET', KEYS[1], v) " +
+            "return v", String.class);
+
+    // KEYS: counter
+    static final RedisScript<Long> BUMP_SCRIPT = new DefaultRedisScript<>(
+            "redis.replicate_commands() " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCR', KEYS[1]) end " +
+            "local t = redis.call('TIME') " +
+            "local v = t[1] * 1000 + math.floor(t[2] / 1000) " +
+            "redis.call('SET', KEYS[1], string.format('%d', v)) " +
+            "return v", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String key;
+
+    public VersionStamp(StringRedisTemplate redisTemplate, String key) {
+        this.redisTemplate = redisTemplate;
+        this.key = key;
+    }
+
+    /**
+     * The current version, or {@code null} when Redis cannot be reached and no validator
+     * should be sent.
+     */
+    public String current() {
+        try {
+            return redisTemplate.execute(CURRENT_SCRIPT, Collections.singletonList(key));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read version {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Moves the version once the current transaction commits.
+     */
+    public void bump() {
+        Runnable bump = () -> {
+            try {
+                redisTemplate.execute(BUMP_SCRIPT, Collections.singletonList(key));
+            } catch (RuntimeException e) {
+                logger.warn("Failed to bump version {}: {}", key, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+}
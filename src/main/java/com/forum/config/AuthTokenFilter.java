@@ -1,7 +1,10 @@
 package com.forum.config;
 
+import com.forum.model.UserPrincipal;
+import com.forum.service.TokenRevocationService;
 import com.forum.service.UserDetailsServiceImpl;
 import com.forum.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,17 +29,30 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         String jwt = parseJwt(request);
-        if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
+        if (jwt != null) {
+            // Parses and checks the signature once; repeat tokens are answered from the verified cache
+            Claims claims = jwtUtils.verifyJwtToken(jwt);
             logger.info("JWT token is valid...");
-            String username = jwtUtils.getUserNameFromJwtToken(jwt);
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // The signed claims are trusted as is; only tokens from before the uid claim need the database
+            UserDetails userDetails = jwtUtils.getPrincipalFromClaims(claims);
+            if (userDetails == null) {
+                userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            }
+            if (!userDetails.isEnabled() || isRevoked(userDetails, claims)) {
+                logger.info("JWT token of {} has been revoked", claims.getSubject());
+                filterChain.doFilter(request, response);
+                return;
+            }
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                     userDetails, null, userDetails.getAuthorities());
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -47,6 +63,11 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private boolean isRevoked(UserDetails userDetails, Claims claims) {
+        return userDetails instanceof UserPrincipal
+                && tokenRevocationService.isRevoked(((UserPrincipal) userDetails).getId(), claims.getIssuedAt());
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -0,0 +1,179 @@
+package com.forum.config;
+
+import com.forum.exception.ServiceBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs a CPU-heavy password encoder on a fixed pool with a bounded queue. Callers still wait
+ * for the result, but at most {@code threads} hashes run at once, and requests arriving when
+ * the queue is full, or left queued past {@code maxWait}, fail fast with a
+ * {@link ServiceBusyException} instead of tying up more request threads.
+ * <p>
+ * Queue depth, queue wait and hash time are exported over JMX.
+ */
+@ManagedResource(objectName = "com.forum:type=PasswordHashing", description = "Password hashing worker pool")
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final long retryAfterSeconds;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalHashNanos = new LongAdder();
+    private final AtomicLong maxWaitSeenNanos = new AtomicLong();
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingProperties properties) {
+        this.delegate = delegate;
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.retryAfterSeconds = Math.max(1, properties.getRetryAfter().getSeconds());
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Supplier<T> hash) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                long waited = startedAt - enqueuedAt;
+                if (waited > maxWaitNanos) {
+                    // Fail rather than make a caller that has queued this long also wait for the hash
+                    throw new TimeoutException("Waited " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms for a hashing worker");
+                }
+                recordWait(waited);
+                try {
+                    return hash.get();
+                } finally {
+                    totalHashNanos.add(System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw busy("hashing queue is full");
+        }
+        try {
+            // Unbounded here because the worker drops tasks that queued past maxWait
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw busy("interrupted while waiting for a hashing worker");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw busy(cause.getMessage());
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private ServiceBusyException busy(String reason) {
+        rejected.increment();
+        logger.warn("Rejected password hashing request: {}", reason);
+        return new ServiceBusyException("Too many authentication requests, please retry later", retryAfterSeconds);
+    }
+
+    private void recordWait(long waitedNanos) {
+        totalWaitNanos.add(waitedNanos);
+        maxWaitSeenNanos.accumulateAndGet(waitedNanos, Math::max);
+    }
+
+    @ManagedAttribute(description = "Hashes waiting for a worker")
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "Hashes currently running")
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @ManagedAttribute(description = "Hashes completed since startup")
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    @ManagedAttribute(description = "Requests rejected because the pool was saturated")
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @ManagedAttribute(description = "Mean time a hash waited for a worker, in milliseconds")
+    public double getMeanWaitMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalWaitNanos.sum() / 1e6 / count;
+    }
+
+    @ManagedAttribute(description = "Longest time a hash waited for a worker, in milliseconds")
+    public double getMaxWaitMillis() {
+        return maxWaitSeenNanos.get() / 1e6;
+    }
+
+    @ManagedAttribute(description = "Mean time spent hashing, in milliseconds")
+    public double getMeanHashMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalHashNanos.sum() / 1e6 / count;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
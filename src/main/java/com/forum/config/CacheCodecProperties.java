@@ -0,0 +1,27 @@
+package com.forum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How each Redis cache stores its values, keyed by cache name. Caches without an entry use
+ * JSON with embedded type information.
+ */
+@Data
+@ConfigurationProperties(prefix = "forum.cache.codec")
+public class CacheCodecProperties {
+
+    private Map<String, Format> caches = new HashMap<>();
+
+    public enum Format {
+        JSON,
+        /**
+         * The cache's {@link com.forum.cache.CacheValueCodec}. Kept under its own key prefix,
+         * so nodes still on JSON never read a binary entry during the switch.
+         */
+        BINARY
+    }
+}
@@ -0,0 +1,25 @@
+package com.forum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Redis caches kept under a generation-stamped key prefix, so that clearing one moves it to
+ * a new namespace instead of deleting its keys. See {@link com.forum.cache.CacheGenerations}.
+ */
+@Data
+@ConfigurationProperties(prefix = "forum.cache.generations")
+public class CacheGenerationProperties {
+
+    private Set<String> caches = new HashSet<>();
+
+    /**
+     * How often a node re-reads a generation, bounding how long it keeps using an old one
+     * when the broadcast of a bump is lost.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(5);
+}
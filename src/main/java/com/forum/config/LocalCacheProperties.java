@@ -0,0 +1,25 @@
+package com.forum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process (L1) cache settings, keyed by cache name. Caches without an entry are served
+ * straight from Redis.
+ */
+@Data
+@ConfigurationProperties(prefix = "forum.cache.local")
+public class LocalCacheProperties {
+
+    private Map<String, Spec> caches = new HashMap<>();
+
+    @Data
+    public static class Spec {
+        private Duration ttl = Duration.ofSeconds(30);
+        private long maxWeightBytes = 16 * 1024 * 1024;
+    }
+}
@@ -0,0 +1,21 @@
+package com.forum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Sliding-window limits on login attempts, counted per username and per client IP across
+ * all nodes.
+ */
+@Data
+@ConfigurationProperties(prefix = "forum.auth.login-rate-limit")
+public class LoginRateLimitProperties {
+
+    private boolean enabled = true;
+    private Duration window = Duration.ofMinutes(15);
+    private int maxAttemptsPerUsername = 10;
+    // Higher than the per-username limit so that users behind one NAT are not locked out together
+    private int maxAttemptsPerIp = 100;
+}
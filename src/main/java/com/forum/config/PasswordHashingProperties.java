@@ -0,0 +1,22 @@
+package com.forum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits on the worker pool that runs BCrypt, so a burst of logins cannot occupy every
+ * request thread with hashing.
+ */
+@Data
+@ConfigurationProperties(prefix = "forum.auth.password-hashing")
+public class PasswordHashingProperties {
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // Hashes allowed to wait for a worker; anything beyond is rejected immediately
+    private int queueCapacity = 64;
+    // A hash still queued after this long is abandoned and the caller told to retry
+    private Duration maxWait = Duration.ofSeconds(2);
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -4,13 +4,29 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.forum.cache.BinaryRedisSerializer;
+import com.forum.cache.CacheGenerations;
+import com.forum.cache.CacheValueCodec;
+import com.forum.cache.CommentTreeCache;
+import com.forum.cache.GenerationalCacheWriter;
+import com.forum.cache.PostContentCodec;
+import com.forum.cache.PostCounterCache;
+import com.forum.cache.ResponseCache;
+import com.forum.cache.TwoLevelCacheManager;
+import com.forum.cache.VersionStamp;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -21,12 +37,24 @@ import java.util.Map;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties({LocalCacheProperties.class, SingleFlightProperties.class, CacheCodecProperties.class,
+        CacheGenerationProperties.class})
 public class RedisConfig {
-    @Value("${jwt.expiration}")
-    private int jwtExpirationMs;
+
+    // Binary layouts available to caches that select CacheCodecProperties.Format.BINARY
+    private static final Map<String, CacheValueCodec<?>> BINARY_CODECS = Map.of("postContent", new PostContentCodec());
+
+    @Bean
+    public CacheGenerations cacheGenerations(StringRedisTemplate stringRedisTemplate,
+                                             CacheGenerationProperties cacheGenerationProperties) {
+        return new CacheGenerations(stringRedisTemplate, cacheGenerationProperties.getCaches(),
+                cacheGenerationProperties.getRefreshInterval());
+    }
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                               CacheCodecProperties cacheCodecProperties,
+                                               CacheGenerations cacheGenerations) {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.activateDefaultTyping(
@@ -39,6 +67,7 @@ public class RedisConfig {
 
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))
+                .computePrefixWith(cacheGenerations.keyPrefix())
                 .serializeKeysWith(RedisSerializationContext.SerializationPair
                         .fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair
@@ -46,13 +75,74 @@ public class RedisConfig {
                 .disableCachingNullValues();
 
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
-        cacheConfigurations.put("hotPosts", defaultConfig.entryTtl(Duration.ofHours(1)));
-        cacheConfigurations.put("userTokens", defaultConfig.entryTtl(Duration.ofMillis(jwtExpirationMs)));
-        cacheConfigurations.put("comment:post", defaultConfig.entryTtl(Duration.ofMinutes(15)));
+        cacheConfigurations.put("postContent", defaultConfig.entryTtl(Duration.ofHours(1)));
+        // Only the author's writes evict it; the TTL bounds how old its view and comment counts get
+        cacheConfigurations.put("authorPosts", defaultConfig.entryTtl(Duration.ofMinutes(2)));
+        cacheCodecProperties.getCaches().forEach((name, format) -> {
+            if (format == CacheCodecProperties.Format.BINARY) {
+                cacheConfigurations.put(name, withBinaryCodec(name,
+                        cacheConfigurations.getOrDefault(name, defaultConfig)));
+            }
+        });
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheWriter cacheWriter = new GenerationalCacheWriter(
+                RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory), cacheGenerations);
+        return RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
     }
+
+    private static RedisCacheConfiguration withBinaryCodec(String cacheName, RedisCacheConfiguration config) {
+        CacheValueCodec<?> codec = BINARY_CODECS.get(cacheName);
+        if (codec == null) {
+            throw new IllegalStateException("No binary codec for cache " + cacheName);
+        }
+        return config
+                .prefixCacheNameWith("bin:")
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new BinaryRedisSerializer<>(codec)));
+    }
+
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                             LocalCacheProperties localCacheProperties,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             SingleFlightProperties singleFlightProperties) {
+        return new TwoLevelCacheManager(redisCacheManager, localCacheProperties, stringRedisTemplate,
+                singleFlightProperties);
+    }
+
+    @Bean
+    public CommentTreeCache commentTreeCache(StringRedisTemplate stringRedisTemplate,
+                                             @Value("${forum.comment-cache.ttl:15m}") Duration ttl,
+                                             @Value("${forum.comment-cache.local-ttl:30s}") Duration localTtl,
+                                             @Value("${forum.comment-cache.local-max-weight-bytes:67108864}") long localMaxWeightBytes) {
+        return new CommentTreeCache(stringRedisTemplate, ttl, localTtl, localMaxWeightBytes);
+    }
+
+    @Bean
+    public PostCounterCache postCounterCache(StringRedisTemplate stringRedisTemplate,
+                                             @Value("${forum.post-counters.ttl:10m}") Duration ttl) {
+        return new PostCounterCache(stringRedisTemplate, ttl);
+    }
+
+    @Bean
+    public VersionStamp feedVersion(StringRedisTemplate stringRedisTemplate) {
+        return new VersionStamp(stringRedisTemplate, "feed:version");
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TwoLevelCacheManager cacheManager,
+                                                                       ResponseCache responseCache,
+                                                                       CacheGenerations cacheGenerations) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        container.addMessageListener(responseCache, new ChannelTopic(ResponseCache.PURGE_CHANNEL));
+        container.addMessageListener(cacheGenerations, new ChannelTopic(CacheGenerations.CHANNEL));
+        return container;
+    }
 }
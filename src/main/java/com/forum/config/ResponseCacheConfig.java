@@ -0,0 +1,36 @@
+package com.forum.config;
+
+import com.forum.cache.ResponseCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCache responseCache(StringRedisTemplate stringRedisTemplate,
+                                       @Value("${forum.response-cache.ttl:10s}") Duration ttl,
+                                       @Value("${forum.response-cache.max-weight-bytes:33554432}") long maxWeightBytes) {
+        return new ResponseCache(stringRedisTemplate, ttl, maxWeightBytes);
+    }
+
+    // Directly behind the security filters, so hits skip the dispatcher but keep CORS handling
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(
+            ResponseCache responseCache,
+            @Value("${forum.response-cache.enabled:true}") boolean enabled,
+            @Value("${forum.response-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        FilterRegistrationBean<ResponseCacheFilter> registration =
+                new FilterRegistrationBean<>(new ResponseCacheFilter(responseCache, "/api/posts", gzipMinBytes));
+        registration.addUrlPatterns("/api/posts/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -0,0 +1,166 @@
+package com.forum.config;
+
+import com.forum.cache.ResponseCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Answers anonymous GET requests from {@link ResponseCache} before they reach the dispatcher,
+ * and stores the serialized responses of handlers that opted in through {@link #cacheable}.
+ * <p>
+ * Requests carrying an Authorization header always go to the handler. Runs after the security
+ * filters so that cached responses still get CORS and security headers.
+ */
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String DIRECTIVE_ATTRIBUTE = ResponseCacheFilter.class.getName() + ".directive";
+
+    private final ResponseCache responseCache;
+    private final String pathPrefix;
+    private final int gzipMinBytes;
+
+    public ResponseCacheFilter(ResponseCache responseCache, String pathPrefix, int gzipMinBytes) {
+        this.responseCache = responseCache;
+        this.pathPrefix = pathPrefix;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    /**
+     * Marks the response being rendered as cacheable for anonymous requests, tagged with the
+     * surrogate keys that purge it.
+     */
+    public static void cacheable(WebRequest request, String... tags) {
+        cacheable(request, null, tags);
+    }
+
+    /**
+     * Same as {@link #cacheable(WebRequest, String...)}, with an action that runs for every
+     * request later answered from the cache, such as counting a view.
+     */
+    public static void cacheable(WebRequest request, Runnable onHit, String... tags) {
+        request.setAttribute(DIRECTIVE_ATTRIBUTE, new Directive(Arrays.asList(tags), onHit),
+                RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod())
+                || request.getHeader(HttpHeaders.AUTHORIZATION) != null
+                || !request.getRequestURI().startsWith(pathPrefix);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = cacheKey(request);
+        ResponseCache.Entry hit = responseCache.get(key);
+        if (hit != null) {
+            write(hit, request, response);
+            return;
+        }
+
+        long startedAt = responseCache.tick();
+        long startNanos = System.nanoTime();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            Object directive = request.getAttribute(DIRECTIVE_ATTRIBUTE);
+            // A response slower than the TTL may have missed a purge record that has since expired
+            if (directive instanceof Directive
+                    && wrapper.getStatus() == HttpStatus.OK.value()
+                    && System.nanoTime() - startNanos < responseCache.getTtl().toNanos()) {
+                responseCache.put(key, toEntry(wrapper, (Directive) directive, startedAt));
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private ResponseCache.Entry toEntry(ContentCachingResponseWrapper wrapper, Directive directive, long startedAt)
+            throws IOException {
+        byte[] body = wrapper.getContentAsByteArray();
+        HttpHeaders validators = new HttpHeaders();
+        if (wrapper.getHeader(HttpHeaders.LAST_MODIFIED) != null) {
+            validators.set(HttpHeaders.LAST_MODIFIED, wrapper.getHeader(HttpHeaders.LAST_MODIFIED));
+        }
+        return new ResponseCache.Entry(
+                body,
+                body.length >= gzipMinBytes ? gzip(body) : null,
+                wrapper.getContentType(),
+                wrapper.getHeader(HttpHeaders.CACHE_CONTROL),
+                wrapper.getHeader(HttpHeaders.ETAG),
+                validators.getLastModified(),
+                directive.tags,
+                startedAt,
+                directive.onHit);
+    }
+
+    private void write(ResponseCache.Entry hit, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (hit.getOnHit() != null) {
+            hit.getOnHit().run();
+        }
+        // Sets the validators, and answers 304 when the client already holds this version
+        if (new ServletWebRequest(request, response).checkNotModified(hit.getEtag(), hit.getLastModified())) {
+            return;
+        }
+        if (hit.getCacheControl() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, hit.getCacheControl());
+        }
+        response.setContentType(hit.getContentType());
+        byte[] body = hit.getBody();
+        if (hit.getGzipBody() != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(request)) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                body = hit.getGzipBody();
+            }
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static String cacheKey(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Directive {
+        private final List<String> tags;
+        private final Runnable onHit;
+
+        private Directive(List<String> tags, Runnable onHit) {
+            this.tags = Collections.unmodifiableList(tags);
+            this.onHit = onHit;
+        }
+    }
+}
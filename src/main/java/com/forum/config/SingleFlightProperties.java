@@ -0,0 +1,22 @@
+package com.forum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Miss coalescing for caches with an L1. Loads of the same key are always coalesced within a
+ * node; {@code distributed} additionally elects one loader per key across nodes via a Redis lease.
+ */
+@Data
+@ConfigurationProperties(prefix = "forum.cache.single-flight")
+public class SingleFlightProperties {
+
+    private boolean distributed = false;
+    // Upper bound on how long a crashed loader can keep other nodes waiting
+    private Duration leaseTtl = Duration.ofSeconds(5);
+    // How long a node without the lease polls Redis before loading the value itself
+    private Duration leaseWait = Duration.ofSeconds(2);
+    private Duration pollInterval = Duration.ofMillis(50);
+}
@@ -1,13 +1,18 @@
 package com.forum.controller;
 
 import com.forum.dto.request.LoginRequest;
+import com.forum.dto.request.RefreshTokenRequest;
 import com.forum.dto.request.RegisterRequest;
 import com.forum.dto.response.JwtResponse;
+import com.forum.model.UserPrincipal;
 import com.forum.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 @RestController
@@ -18,12 +23,33 @@ public class AuthController {
     private AuthService authService;
 
     @PostMapping("/login")
-    public ResponseEntity<JwtResponse> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        return ResponseEntity.ok(authService.login(loginRequest));
+    public ResponseEntity<JwtResponse> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+                                                        HttpServletRequest request) {
+        // Behind a proxy, server.forward-headers-strategy makes this the real client address
+        return ResponseEntity.ok(authService.login(loginRequest, request.getRemoteAddr(),
+                request.getHeader(HttpHeaders.USER_AGENT)));
     }
 
     @PostMapping("/register")
-    public ResponseEntity<JwtResponse> registerUser(@Valid @RequestBody RegisterRequest registerRequest) {
-        return ResponseEntity.ok(authService.register(registerRequest));
+    public ResponseEntity<JwtResponse> registerUser(@Valid @RequestBody RegisterRequest registerRequest,
+                                                    HttpServletRequest request) {
+        return ResponseEntity.ok(authService.register(registerRequest, request.getHeader(HttpHeaders.USER_AGENT)));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<JwtResponse> refreshToken(@Valid @RequestBody RefreshTokenRequest refreshRequest) {
+        return ResponseEntity.ok(authService.refresh(refreshRequest.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest refreshRequest) {
+        authService.logout(refreshRequest.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutEverywhere(@AuthenticationPrincipal UserPrincipal principal) {
+        authService.logoutEverywhere(principal.getId());
+        return ResponseEntity.noContent().build();
     }
 }
@@ -1,13 +1,18 @@
 package com.forum.controller;
 
+import com.forum.cache.ResponseCache;
+import com.forum.config.ResponseCacheFilter;
 import com.forum.dto.request.CommentRequest;
 import com.forum.dto.response.CommentResponse;
-import com.forum.repository.UserRepository;
+import com.forum.dto.response.CursorPageResponse;
+import com.forum.model.UserPrincipal;
 import com.forum.service.CommentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -19,39 +24,65 @@ public class CommentController {
     @Autowired
     private CommentService commentService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @PostMapping
     public ResponseEntity<CommentResponse> createComment(
             @PathVariable Long postId,
-            @Valid @RequestBody CommentRequest commentRequest) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Long userId = userRepository.findByUsername(username).orElseThrow().getId();
+            @Valid @RequestBody CommentRequest commentRequest,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        Long userId = principal.getId();
         return ResponseEntity.ok(commentService.createComment(postId, commentRequest, userId));
     }
 
     @GetMapping
-    public ResponseEntity<List<CommentResponse>> getCommentsByPostId(@PathVariable Long postId) {
-        return ResponseEntity.ok(commentService.getCommentsByPostId(postId));
+    public ResponseEntity<List<CommentResponse>> getCommentsByPostId(@PathVariable Long postId, WebRequest request) {
+        if (request.checkNotModified(commentService.getCommentTreeETag(postId))) {
+            return null;
+        }
+        ResponseCacheFilter.cacheable(request, ResponseCache.commentsTag(postId));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(commentService.getCommentsByPostId(postId));
+    }
+
+    @GetMapping("/thread")
+    public ResponseEntity<CursorPageResponse<CommentResponse>> getCommentThread(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "3") int replies,
+            WebRequest request) {
+        ResponseCacheFilter.cacheable(request, ResponseCache.commentsTag(postId));
+        return ResponseEntity.ok(commentService.getCommentThread(postId, cursor, size, replies));
+    }
+
+    @GetMapping("/{commentId}/replies")
+    public ResponseEntity<CursorPageResponse<CommentResponse>> getReplies(
+            @PathVariable Long postId,
+            @PathVariable Long commentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "3") int replies,
+            WebRequest request) {
+        ResponseCacheFilter.cacheable(request, ResponseCache.commentsTag(postId));
+        return ResponseEntity.ok(commentService.getReplies(postId, commentId, cursor, size, replies));
     }
 
     @PutMapping("/{commentId}")
     public ResponseEntity<CommentResponse> updateComment(
             @PathVariable Long postId,
             @PathVariable Long commentId,
-            @Valid @RequestBody CommentRequest commentRequest) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Long userId = userRepository.findByUsername(username).orElseThrow().getId();
+            @Valid @RequestBody CommentRequest commentRequest,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        Long userId = principal.getId();
         return ResponseEntity.ok(commentService.updateComment(postId, commentId, commentRequest, userId));
     }
 
     @DeleteMapping("/{commentId}")
     public ResponseEntity<Void> deleteComment(
             @PathVariable Long postId,
-            @PathVariable Long commentId) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Long userId = userRepository.findByUsername(username).orElseThrow().getId();
+            @PathVariable Long commentId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        Long userId = principal.getId();
         commentService.deleteComment(postId, commentId, userId);
         return ResponseEntity.noContent().build();
     }
@@ -1,19 +1,27 @@
 package com.forum.controller;
 
+import com.forum.cache.ResponseCache;
+import com.forum.config.ResponseCacheFilter;
 import com.forum.dto.request.PostRequest;
+import com.forum.dto.response.CursorPageResponse;
 import com.forum.dto.response.PostResponse;
-import com.forum.repository.UserRepository;
+import com.forum.dto.response.PostSummaryResponse;
+import com.forum.model.ResourceVersion;
+import com.forum.model.UserPrincipal;
 import com.forum.service.PostService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -22,42 +30,84 @@ public class PostController {
     @Autowired
     private PostService postService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private RedisConnectionFactory redisConnectionFactory;
 
     @PostMapping
-    public ResponseEntity<PostResponse> createPost(@Valid @RequestBody PostRequest postRequest) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Long userId = userRepository.findByUsername(username).orElseThrow().getId();
+    public ResponseEntity<PostResponse> createPost(
+            @Valid @RequestBody PostRequest postRequest,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        Long userId = principal.getId();
         return ResponseEntity.ok(postService.createPost(postRequest, userId));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PostResponse> getPostById(@PathVariable Long id) {
-        return ResponseEntity.ok(postService.getPostById(id));
+    public ResponseEntity<PostResponse> getPostById(@PathVariable Long id, WebRequest request) {
+        // A revalidated post is answered from its cached version before the response is built
+        ResourceVersion version = postService.getPostVersion(id);
+        if (request.checkNotModified(version.getEtag(), version.getLastModified())) {
+            postService.recordView(id);
+            return null;
+        }
+        ResponseCacheFilter.cacheable(request, () -> postService.recordView(id), ResponseCache.postTag(id));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(postService.getPostById(id));
     }
 
     @GetMapping
-    public ResponseEntity<Page<PostResponse>> getAllPublishedPosts(@PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(postService.getAllPublishedPosts(pageable));
+    public ResponseEntity<Page<PostSummaryResponse>> getAllPublishedPosts(
+            @PageableDefault(size = 20) Pageable pageable, WebRequest request) {
+        if (request.checkNotModified(postService.getFeedETag())) {
+            return null;
+        }
+        ResponseCacheFilter.cacheable(request, ResponseCache.FEED_TAG);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(postService.getAllPublishedPosts(pageable));
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPageResponse<PostSummaryResponse>> getPublishedPostFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        if (request.checkNotModified(postService.getFeedETag())) {
+            return null;
+        }
+        ResponseCacheFilter.cacheable(request, ResponseCache.FEED_TAG);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(postService.getPublishedPostFeed(cursor, size));
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<List<PostResponse>> getPostsByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(postService.getPostsByIds(ids));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<PostResponse>> getTrendingPosts(@RequestParam(defaultValue = "20") int limit,
+                                                               WebRequest request) {
+        // Ranking moves with views and is not purged by them; the cache TTL bounds how stale it gets
+        ResponseCacheFilter.cacheable(request, ResponseCache.FEED_TAG);
+        return ResponseEntity.ok(postService.getTrendingPosts(limit));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<PostResponse> updatePost(
             @PathVariable Long id, 
-            @Valid @RequestBody PostRequest postRequest) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Long userId = userRepository.findByUsername(username).orElseThrow().getId();
+            @Valid @RequestBody PostRequest postRequest,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        Long userId = principal.getId();
         return ResponseEntity.ok(postService.updatePost(id, postRequest, userId));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deletePost(@PathVariable Long id) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Long userId = userRepository.findByUsername(username).orElseThrow().getId();
+    public ResponseEntity<Void> deletePost(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        Long userId = principal.getId();
         postService.deletePost(id, userId);
         return ResponseEntity.noContent().build();
     }
@@ -0,0 +1,27 @@
+package com.forum.controller;
+
+import com.forum.dto.response.SearchResponse;
+import com.forum.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<SearchResponse> search(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = SearchService.TYPE_POSTS) String type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(searchService.search(query, type, page, size));
+    }
+}
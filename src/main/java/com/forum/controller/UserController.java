@@ -0,0 +1,24 @@
+package com.forum.controller;
+
+import com.forum.dto.response.CursorPageResponse;
+import com.forum.dto.response.PostSummaryResponse;
+import com.forum.service.PostService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+
+    @Autowired
+    private PostService postService;
+
+    @GetMapping("/{id}/posts")
+    public ResponseEntity<CursorPageResponse<PostSummaryResponse>> getPostsByAuthor(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(postService.getPostsByAuthor(id, cursor, size));
+    }
+}
@@ -0,0 +1,10 @@
+package com.forum.dto.request;
+
+import lombok.Data;
+import javax.validation.constraints.NotBlank;
+
+@Data
+public class RefreshTokenRequest {
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
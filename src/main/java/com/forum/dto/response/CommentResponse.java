@@ -21,4 +21,14 @@ public class CommentResponse implements Serializable {
     private LocalDateTime updatedAt;
     private Long parentId;
     private List<CommentResponse> replies;
+    // Number of direct replies; thread views include only the first few of them in replies
+    private long replyCount;
+    // Position after the last included reply; null means start from the first reply
+    private String repliesCursor;
+
+    public CommentResponse(Long id, Long postId, Long userId, String username, String content,
+                           LocalDateTime createdAt, LocalDateTime updatedAt, Long parentId,
+                           List<CommentResponse> replies) {
+        this(id, postId, userId, username, content, createdAt, updatedAt, parentId, replies, 0, null);
+    }
 }
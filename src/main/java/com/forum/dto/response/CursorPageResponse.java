@@ -0,0 +1,17 @@
+package com.forum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResponse<T> implements Serializable {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
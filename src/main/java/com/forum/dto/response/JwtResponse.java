@@ -15,4 +15,7 @@ public class JwtResponse implements Serializable {
     private Long id;
     private String username;
     private String email;
+    private String refreshToken;
+    // Lifetime of the access token in seconds
+    private long expiresIn;
 }
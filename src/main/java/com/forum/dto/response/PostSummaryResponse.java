@@ -0,0 +1,27 @@
+package com.forum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A post as listed in feeds: an excerpt in place of the full content. Built directly by the
+ * feed queries, so the field order matches their constructor expressions.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostSummaryResponse implements Serializable {
+    private Long id;
+    private String title;
+    private String excerpt;
+    private Long authorId;
+    private String authorUsername;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private int viewCount;
+    private long commentCount;
+}
@@ -0,0 +1,22 @@
+package com.forum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchHit {
+    private String type;
+    private Long id;
+    private Long postId;
+    private String title;
+    private String authorUsername;
+    private LocalDateTime createdAt;
+    private double score;
+    // HTML-escaped excerpt with matched terms wrapped in <em>
+    private String highlight;
+}
@@ -0,0 +1,16 @@
+package com.forum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchResponse {
+    private List<SearchHit> hits;
+    private int page;
+    private boolean hasNext;
+}
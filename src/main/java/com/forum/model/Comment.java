@@ -9,7 +9,11 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comment_post_root", columnList = "post_id, parent_id, created_at, id"),
+        @Index(name = "idx_comment_parent_created", columnList = "parent_id, created_at, id"),
+        @Index(name = "idx_comment_post_path", columnList = "post_id, path")
+})
 public class Comment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,4 +38,12 @@ public class Comment {
     
     @Column(name = "parent_id")
     private Long parentId;
+
+    // 0 for root comments
+    @Column(nullable = false)
+    private int depth;
+
+    // See CommentPath; null only for rows written before the column existed and not yet backfilled
+    @Column(length = 255)
+    private String path;
 }
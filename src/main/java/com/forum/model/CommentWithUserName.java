@@ -0,0 +1,13 @@
+package com.forum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentWithUserName {
+    private Comment comment;
+    private String username;
+}
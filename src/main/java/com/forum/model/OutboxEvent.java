@@ -0,0 +1,36 @@
+package com.forum.model;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A {@link PostEvent} waiting to be delivered, written in the same transaction as the change
+ * it describes and deleted once every subscriber has handled it.
+ */
+@Data
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private PostEvent.Type type;
+
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    // The PostEvent as JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    // Millisecond precision, for the delivery lag
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP(3)")
+    private LocalDateTime createdAt;
+}
@@ -1,15 +1,23 @@
 package com.forum.model;
 
+import com.forum.util.PostExcerpt;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_published_created", columnList = "is_published, created_at, id"),
+        @Index(name = "idx_author_published_created", columnList = "author_id, is_published, created_at, id"),
+        @Index(name = "idx_posts_deleted", columnList = "deleted_at")
+})
+// Deleted posts stay in the table until CommentPurgeService has removed their comments
+@Where(clause = "deleted_at IS NULL")
 public class Post {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +28,10 @@ public class Post {
     
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
+
+    // Set with the content so that feeds never read the TEXT column; see PostExcerpt
+    @Column(name = "excerpt", length = PostExcerpt.MAX_LENGTH)
+    private String excerpt;
     
     @Column(name = "author_id", nullable = false)
     private Long authorId;
@@ -37,4 +49,11 @@ public class Post {
     
     @Column(name = "is_published")
     private boolean isPublished = true;
+
+    // Maintained by CommentService and repaired by CommentCountReconciliationService
+    @Column(name = "comment_count", nullable = false)
+    private long commentCount = 0;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 }
@@ -0,0 +1,26 @@
+package com.forum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * The parts of a post that only change when the author edits it; this is what the
+ * {@code postContent} cache holds. Counters are kept apart in {@link PostCounters}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostContent implements Serializable {
+    private Long id;
+    private String title;
+    private String content;
+    private Long authorId;
+    private String authorUsername;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private boolean isPublished;
+}
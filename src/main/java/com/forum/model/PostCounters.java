@@ -0,0 +1,13 @@
+package com.forum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostCounters {
+    private int viewCount;
+    private long commentCount;
+}
@@ -0,0 +1,83 @@
+package com.forum.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.forum.dto.response.CommentResponse;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A committed change to a post or its comments, recorded in the outbox by the write and
+ * delivered to {@link com.forum.service.OutboxSubscriber}s afterwards. Every event belongs to
+ * one post, which is the unit events are ordered by.
+ */
+@Data
+@NoArgsConstructor
+// Rows recorded by an older version may carry fields that have since been dropped
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PostEvent {
+
+    public enum Type {
+        POST_CREATED,
+        POST_UPDATED,
+        POST_DELETED,
+        COMMENT_CREATED,
+        COMMENT_UPDATED,
+        COMMENT_DELETED
+    }
+
+    private Type type;
+    private Long postId;
+    // Post events: the author, whose own listing changes with the post
+    private Long authorId;
+    // COMMENT_CREATED and COMMENT_UPDATED: the comment as returned to the writer
+    private CommentResponse comment;
+    // COMMENT_DELETED: the removed comment and its replies, or null when the replies are unknown
+    private List<Long> commentIds;
+
+    private PostEvent(Type type, Long postId) {
+        this.type = type;
+        this.postId = postId;
+    }
+
+    public static PostEvent postCreated(Long postId, Long authorId) {
+        return post(Type.POST_CREATED, postId, authorId);
+    }
+
+    public static PostEvent postUpdated(Long postId, Long authorId) {
+        return post(Type.POST_UPDATED, postId, authorId);
+    }
+
+    public static PostEvent postDeleted(Long postId, Long authorId) {
+        return post(Type.POST_DELETED, postId, authorId);
+    }
+
+    public static PostEvent commentCreated(CommentResponse comment) {
+        PostEvent event = new PostEvent(Type.COMMENT_CREATED, comment.getPostId());
+        event.comment = comment;
+        return event;
+    }
+
+    public static PostEvent commentUpdated(CommentResponse comment) {
+        PostEvent event = new PostEvent(Type.COMMENT_UPDATED, comment.getPostId());
+        event.comment = comment;
+        return event;
+    }
+
+    /**
+     * @param commentIds the removed comments, or {@code null} when replies removed along with
+     *                   the comment are not known
+     */
+    public static PostEvent commentsDeleted(Long postId, List<Long> commentIds) {
+        PostEvent event = new PostEvent(Type.COMMENT_DELETED, postId);
+        event.commentIds = commentIds;
+        return event;
+    }
+
+    private static PostEvent post(Type type, Long postId, Long authorId) {
+        PostEvent event = new PostEvent(type, postId);
+        event.authorId = authorId;
+        return event;
+    }
+}
@@ -0,0 +1,15 @@
+package com.forum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * HTTP validators of a resource: an entity tag and, when known, the last modification time
+ * in epoch milliseconds ({@code -1} otherwise).
+ */
+@Data
+@AllArgsConstructor
+public class ResourceVersion {
+    private String etag;
+    private long lastModified;
+}
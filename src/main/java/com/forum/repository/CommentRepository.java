@@ -1,21 +1,109 @@
 package com.forum.repository;
 
 import com.forum.model.Comment;
+import com.forum.model.CommentWithUserName;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostIdOrderByCreatedAtAsc(Long postId);
     List<Comment> findByParentId(Long parentId);
-    void deleteByPostId(Long postId);
     
-    @Query("SELECT c, u.username FROM Comment c JOIN User u ON c.userId = u.id WHERE c.postId = :postId ORDER BY c.createdAt ASC")
+    @Query("SELECT c, u.username FROM Comment c JOIN User u ON c.userId = u.id WHERE c.postId = :postId ORDER BY c.createdAt ASC, c.id ASC")
     List<Object[]> findCommentsWithUsernamesByPostId(@Param("postId") Long postId);
     
     long countByPostId(Long postId);
+
+    @Query("SELECT new com.forum.model.CommentWithUserName(c, u.username) FROM Comment c JOIN User u ON c.userId = u.id " +
+            "WHERE c.postId = :postId AND c.parentId IS NULL ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentWithUserName> findRootComments(@Param("postId") Long postId, Pageable pageable);
+
+    @Query("SELECT new com.forum.model.CommentWithUserName(c, u.username) FROM Comment c JOIN User u ON c.userId = u.id " +
+            "WHERE c.postId = :postId AND c.parentId IS NULL " +
+            "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentWithUserName> findRootCommentsAfter(@Param("postId") Long postId,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id,
+                                                    Pageable pageable);
+
+    @Query("SELECT new com.forum.model.CommentWithUserName(c, u.username) FROM Comment c JOIN User u ON c.userId = u.id " +
+            "WHERE c.parentId = :parentId ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentWithUserName> findReplies(@Param("parentId") Long parentId, Pageable pageable);
+
+    @Query("SELECT new com.forum.model.CommentWithUserName(c, u.username) FROM Comment c JOIN User u ON c.userId = u.id " +
+            "WHERE c.parentId = :parentId " +
+            "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentWithUserName> findRepliesAfter(@Param("parentId") Long parentId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+
+    // First :limit direct replies of each parent, in thread order, for the reply previews of a page
+    @Query(value = "SELECT ranked.id FROM (" +
+            "SELECT c.id, ROW_NUMBER() OVER (PARTITION BY c.parent_id ORDER BY c.created_at, c.id) AS rn " +
+            "FROM comments c WHERE c.parent_id IN (:parentIds)) ranked " +
+            "WHERE ranked.rn <= :limit", nativeQuery = true)
+    List<Number> findFirstReplyIds(@Param("parentIds") Collection<Long> parentIds, @Param("limit") int limit);
+
+    @Query("SELECT new com.forum.model.CommentWithUserName(c, u.username) FROM Comment c JOIN User u ON c.userId = u.id " +
+            "WHERE c.id IN :ids ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentWithUserName> findWithUsernamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.parentId, COUNT(c) FROM Comment c WHERE c.parentId IN :parentIds GROUP BY c.parentId")
+    List<Object[]> countRepliesByParentIds(@Param("parentIds") Collection<Long> parentIds);
+
+    @Query("SELECT c.id FROM Comment c WHERE c.postId = :postId AND c.path LIKE CONCAT(:path, '%')")
+    List<Long> findSubtreeIds(@Param("postId") Long postId, @Param("path") String path);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.postId = :postId AND c.path LIKE CONCAT(:path, '%')")
+    int deleteSubtree(@Param("postId") Long postId, @Param("path") String path);
+
+    @Query(value = "SELECT COALESCE(MAX(id), 0) FROM comments", nativeQuery = true)
+    long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE comments SET depth = 0, path = CONCAT(LPAD(LOWER(CONV(id, 10, 36)), 8, '0'), '/') " +
+            "WHERE id > :afterId AND id <= :upToId AND path IS NULL AND parent_id IS NULL", nativeQuery = true)
+    int backfillRootPaths(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
+    // Fills one more level of replies in the range under parents that already have a path
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE comments c JOIN comments p ON c.parent_id = p.id " +
+            "SET c.depth = p.depth + 1, c.path = CONCAT(p.path, LPAD(LOWER(CONV(c.id, 10, 36)), 8, '0'), '/') " +
+            "WHERE c.id > :afterId AND c.id <= :upToId AND c.path IS NULL " +
+            "AND p.path IS NOT NULL AND p.depth < :maxDepth", nativeQuery = true)
+    int backfillChildPaths(@Param("afterId") long afterId, @Param("upToId") long upToId,
+                           @Param("maxDepth") int maxDepth);
+
+    // Newest first, so replies go before the comments they answer and the parent_id foreign key holds
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM comments WHERE post_id = :postId ORDER BY id DESC LIMIT :limit", nativeQuery = true)
+    int deleteBatchByPostId(@Param("postId") Long postId, @Param("limit") int limit);
+
+    // Rows of (id, relevance) for comments on visible posts; needs the ft_comments_content FULLTEXT index
+    @Query(value = "SELECT c.id, MATCH(c.content) AGAINST (:query IN NATURAL LANGUAGE MODE) AS score " +
+            "FROM comments c JOIN posts p ON p.id = c.post_id " +
+            "WHERE MATCH(c.content) AGAINST (:query IN NATURAL LANGUAGE MODE) " +
+            "AND p.is_published = true AND p.deleted_at IS NULL " +
+            "ORDER BY score DESC, c.id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> searchCommentIds(@Param("query") String query,
+                                    @Param("limit") int limit,
+                                    @Param("offset") int offset);
 }
@@ -1,6 +1,8 @@
 package com.forum.repository;
 
+import com.forum.dto.response.PostSummaryResponse;
 import com.forum.model.Post;
+import com.forum.model.PostCounters;
 import com.forum.model.PostWithUserName;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,7 +11,11 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,14 +24,99 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @Query("SELECT new com.forum.model.PostWithUserName(p, u.username) FROM Post p LEFT JOIN User u ON p.authorId = u.id WHERE p.id = :postId")
     Optional<PostWithUserName> findPostWithUsernameById(@Param("postId") Long postId);
 
-    @Query("SELECT new com.forum.model.PostWithUserName(p, u.username) FROM Post p JOIN User u ON p.authorId = u.id WHERE p.isPublished = true ORDER BY p.createdAt DESC")
-    Page<PostWithUserName> findAllPublishedPostsWithAuthors(Pageable pageable);
+    @Query("SELECT new com.forum.model.PostWithUserName(p, u.username) FROM Post p LEFT JOIN User u ON p.authorId = u.id WHERE p.id IN :postIds")
+    List<PostWithUserName> findPostsWithUsernameByIdIn(@Param("postIds") Collection<Long> postIds);
+
+    // Feed queries select the summary columns only and never load the content TEXT column
+    String POST_SUMMARY = "SELECT new com.forum.dto.response.PostSummaryResponse(p.id, p.title, p.excerpt, " +
+            "p.authorId, u.username, p.createdAt, p.updatedAt, p.viewCount, p.commentCount) " +
+            "FROM Post p JOIN User u ON p.authorId = u.id ";
+
+    @Query(value = POST_SUMMARY + "WHERE p.isPublished = true ORDER BY p.createdAt DESC",
+            countQuery = "SELECT COUNT(p) FROM Post p WHERE p.isPublished = true")
+    Page<PostSummaryResponse> findPublishedPostSummaries(Pageable pageable);
+
+    @Query(POST_SUMMARY + "WHERE p.isPublished = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryResponse> findPublishedPostFeed(Pageable pageable);
+
+    @Query(POST_SUMMARY + "WHERE p.isPublished = true AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryResponse> findPublishedPostFeedAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                         @Param("id") Long id,
+                                                         Pageable pageable);
+
+    // Seek on idx_author_published_created, which returns rows already in page order
+    @Query(POST_SUMMARY + "WHERE p.authorId = :authorId AND p.isPublished = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryResponse> findPublishedPostsByAuthor(@Param("authorId") Long authorId, Pageable pageable);
+
+    @Query(POST_SUMMARY + "WHERE p.authorId = :authorId AND p.isPublished = true " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryResponse> findPublishedPostsByAuthorAfter(@Param("authorId") Long authorId,
+                                                              @Param("createdAt") LocalDateTime createdAt,
+                                                              @Param("id") Long id,
+                                                              Pageable pageable);
+
+    @Query("SELECT new com.forum.model.PostWithUserName(p, u.username) FROM Post p JOIN User u ON p.authorId = u.id " +
+            "WHERE p.id IN :postIds AND p.isPublished = true")
+    List<PostWithUserName> findPublishedPostsWithAuthorsByIdIn(@Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT new com.forum.model.PostCounters(p.viewCount, p.commentCount) FROM Post p WHERE p.id = :postId")
+    Optional<PostCounters> findCountersById(@Param("postId") Long postId);
+
+    // Rows of (id, viewCount, commentCount)
+    @Query("SELECT p.id, p.viewCount, p.commentCount FROM Post p WHERE p.id IN :postIds")
+    List<Object[]> findCountersByIdIn(@Param("postIds") Collection<Long> postIds);
+
+    // Rows of (id, relevance); needs the ft_posts_title_content FULLTEXT index
+    @Query(value = "SELECT p.id, MATCH(p.title, p.content) AGAINST (:query IN NATURAL LANGUAGE MODE) AS score " +
+            "FROM posts p WHERE MATCH(p.title, p.content) AGAINST (:query IN NATURAL LANGUAGE MODE) " +
+            "AND p.is_published = true AND p.deleted_at IS NULL " +
+            "ORDER BY score DESC, p.id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> searchPublishedPostIds(@Param("query") String query,
+                                          @Param("limit") int limit,
+                                          @Param("offset") int offset);
 
     @Query("SELECT u.username FROM User u WHERE u.id = (SELECT p.authorId FROM Post p WHERE p.id = :postId)")
     Optional<String> findUsernameByPostId(@Param("postId") Long postId);
 
+    @Transactional
     @Modifying
-    @Query("UPDATE Post p SET p.viewCount = p.viewCount + 1 WHERE p.id = :postId")
-    int incrementViewCount(@Param("postId") Long postId);
+    @Query("UPDATE Post p SET p.viewCount = p.viewCount + :delta WHERE p.id IN :postIds")
+    int incrementViewCounts(@Param("postIds") Collection<Long> postIds, @Param("delta") int delta);
 
+    @Modifying
+    @Query("UPDATE Post p SET p.commentCount = CASE WHEN p.commentCount + :delta < 0 THEN 0 " +
+            "ELSE p.commentCount + :delta END WHERE p.id = :postId")
+    int adjustCommentCount(@Param("postId") Long postId, @Param("delta") long delta);
+
+    @Query(value = "SELECT COALESCE(MAX(id), 0) FROM posts", nativeQuery = true)
+    long findMaxId();
+
+    // Only rows that drifted are written, so a clean range costs reads only
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE posts p SET p.comment_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id) " +
+            "WHERE p.id > :afterId AND p.id <= :upToId " +
+            "AND p.comment_count <> (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id)", nativeQuery = true)
+    int reconcileCommentCounts(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
+    // Native so that the soft-delete filter on Post does not hide them
+    @Query(value = "SELECT id FROM posts WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT :limit", nativeQuery = true)
+    List<Number> findSoftDeletedPostIds(@Param("limit") int limit);
+
+    // Left for a later run if a comment slipped in after the purge started
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM posts WHERE id = :postId AND deleted_at IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM comments c WHERE c.post_id = :postId)", nativeQuery = true)
+    int deleteSoftDeletedPost(@Param("postId") Long postId);
+
+
+    // Posts in the range written before the excerpt column existed; mirrors PostExcerpt.of
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE posts SET excerpt = LEFT(TRIM(REGEXP_REPLACE(content, '[[:space:]]+', ' ')), :length) " +
+            "WHERE id > :afterId AND id <= :upToId AND excerpt IS NULL", nativeQuery = true)
+    int backfillExcerpts(@Param("afterId") long afterId, @Param("upToId") long upToId, @Param("length") int length);
 }
@@ -4,13 +4,19 @@ import com.forum.dto.request.LoginRequest;
 import com.forum.dto.request.RegisterRequest;
 import com.forum.dto.response.JwtResponse;
 import com.forum.exception.BadRequestException;
+import com.forum.exception.InvalidTokenException;
 import com.forum.exception.UserNotFoundException;
 import com.forum.model.User;
+import com.forum.model.UserPrincipal;
 import com.forum.repository.UserRepository;
+import com.forum.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class AuthService{
@@ -22,18 +28,79 @@ public class AuthService{
     PasswordEncoder passwordEncoder;
 
     @Autowired
-    TokenCacheService tokenCacheService;
+    AuthenticationManager authenticationManager;
 
-    public JwtResponse login(LoginRequest loginRequest) {
+    @Autowired
+    JwtUtil jwtUtil;
+
+    @Autowired
+    SessionService sessionService;
+
+    @Autowired
+    LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    public JwtResponse login(LoginRequest loginRequest, String clientIp, String device) {
         String username = loginRequest.getUsername();
+        // Throttled attempts stop here, before the user lookup and password check
+        loginRateLimiter.checkAttempt(username, clientIp);
         User user = userRepository.findByUsername(loginRequest.getUsername()).orElseThrow(() -> new UserNotFoundException("User does not exist: " + username));
 
-        String jwt = tokenCacheService.getOrGenerateToken(username, loginRequest.getPassword());
-        return new JwtResponse(jwt, "Bearer", user.getId(), user.getUsername(), user.getEmail());
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(username, loginRequest.getPassword())
+        );
+        loginRateLimiter.recordSuccess(username);
+        return issueTokens((UserPrincipal) authentication.getPrincipal(), user, device);
+    }
+
+    public JwtResponse register(RegisterRequest registerRequest, String device) {
+        // Hashed before anything touches the database: a hash waiting for the hashing pool
+        // would otherwise hold a pooled connection while it waits
+        String passwordHash = passwordEncoder.encode(registerRequest.getPassword());
+        User savedUser = transactionTemplate.execute(status -> createUser(registerRequest, passwordHash));
+
+        // The password was just hashed above, so there is no need to check it again
+        return issueTokens(UserPrincipal.fromUser(savedUser), savedUser, device);
+    }
+
+    /**
+     * Issues a new access token and rotates the refresh token, without a password check.
+     */
+    public JwtResponse refresh(String refreshToken) {
+        SessionService.RefreshedSession session = sessionService.refresh(refreshToken);
+        User user = userRepository.findById(session.getUserId())
+                .filter(User::isActive)
+                .orElse(null);
+        if (user == null) {
+            // Access tokens carry no account state, so a deactivation only shows up here
+            logoutEverywhere(session.getUserId());
+            throw new InvalidTokenException("Session is no longer valid");
+        }
+        String jwt = jwtUtil.generateJwtToken(UserPrincipal.fromUser(user));
+        return new JwtResponse(jwt, "Bearer", user.getId(), user.getUsername(), user.getEmail(),
+                session.getRefreshToken(), jwtUtil.getExpirationSeconds());
     }
 
-    @Transactional
-    public JwtResponse register(RegisterRequest registerRequest) {
+    public void logout(String refreshToken) {
+        sessionService.endSession(refreshToken);
+    }
+
+    /**
+     * Ends every session of the user and rejects the access tokens already issued to them.
+     * A password change or account deactivation has to go through here, because access
+     * tokens are trusted without a database lookup until they expire.
+     */
+    public void logoutEverywhere(Long userId) {
+        sessionService.endAllSessions(userId);
+        tokenRevocationService.revokeAllTokens(userId);
+    }
+
+    private User createUser(RegisterRequest registerRequest, String passwordHash) {
         if (userRepository.existsByUsername(registerRequest.getUsername())) {
             throw new BadRequestException("Username is already exist!");
         }
@@ -46,15 +113,18 @@ public class AuthService{
         User user = new User();
         user.setUsername(registerRequest.getUsername());
         user.setEmail(registerRequest.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(registerRequest.getPassword()));
+        user.setPasswordHash(passwordHash);
         user.setFullName(registerRequest.getFullName());
         user.setActive(true);
 
-        User savedUser = userRepository.save(user);
-
-        String jwt = tokenCacheService.getOrGenerateToken(registerRequest.getUsername(), registerRequest.getPassword());
+        return userRepository.save(user);
+    }
 
-        return new JwtResponse(jwt, "Bearer", savedUser.getId(), savedUser.getUsername(), savedUser.getEmail());
+    private JwtResponse issueTokens(UserPrincipal principal, User user, String device) {
+        String jwt = jwtUtil.generateJwtToken(principal);
+        String refreshToken = sessionService.createSession(user.getId(), device);
+        return new JwtResponse(jwt, "Bearer", user.getId(), user.getUsername(), user.getEmail(),
+                refreshToken, jwtUtil.getExpirationSeconds());
     }
 
 }
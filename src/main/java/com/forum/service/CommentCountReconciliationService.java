@@ -0,0 +1,52 @@
+package com.forum.service;
+
+import com.forum.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Recounts {@code posts.comment_count} from the comments table to repair drift, such as
+ * replies removed by the foreign key cascade that {@link CommentService} could not count.
+ * <p>
+ * Posts are walked in id ranges, one short transaction per range, so the job never locks
+ * more than a chunk of posts at a time.
+ */
+@Service
+@RequiredArgsConstructor
+public class CommentCountReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentCountReconciliationService.class);
+
+    private final PostRepository postRepository;
+
+    @Value("${forum.comment-count.reconcile-chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Scheduled(cron = "${forum.comment-count.reconcile-cron:0 30 3 * * *}")
+    public synchronized void reconcile() {
+        long startedAt = System.currentTimeMillis();
+        long maxId;
+        try {
+            maxId = postRepository.findMaxId();
+        } catch (RuntimeException e) {
+            logger.error("Failed to start comment count reconciliation: {}", e.getMessage());
+            return;
+        }
+        long repaired = 0;
+        for (long afterId = 0; afterId < maxId; afterId += chunkSize) {
+            try {
+                repaired += postRepository.reconcileCommentCounts(afterId, afterId + chunkSize);
+            } catch (RuntimeException e) {
+                // Skip the range; the next run covers it again
+                logger.warn("Failed to reconcile comment counts of posts ({}, {}]: {}",
+                        afterId, afterId + chunkSize, e.getMessage());
+            }
+        }
+        logger.info("Reconciled comment counts of posts up to id {} in {} ms, {} repaired",
+                maxId, System.currentTimeMillis() - startedAt, repaired);
+    }
+}
@@ -0,0 +1,111 @@
+package com.forum.service;
+
+import com.forum.cache.LoadLease;
+import com.forum.cache.RedisLoadLease;
+import com.forum.repository.CommentRepository;
+import com.forum.util.CommentPath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Assigns depth and path to comments written before those columns existed.
+ * <p>
+ * Comments are walked in id ranges, one short transaction per tree level of a range, so the
+ * job never locks more than a chunk of comments at a time. A reply always has a higher id
+ * than its parent, so by the time a range is reached every parent outside it has its path.
+ * One node runs the job, under a Redis lease, and a marker left once it finishes keeps
+ * later starts from scanning again. Comments nested deeper than
+ * {@code forum.comment-tree.max-depth}, the depth replies are accepted to, never get a path.
+ */
+@Service
+public class CommentPathBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentPathBackfillService.class);
+    private static final String LEASE_KEY = "backfill:comment-path";
+    static final String DONE_KEY = "backfill:comment-path:done";
+
+    private final CommentRepository commentRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final LoadLease lease;
+    private final int chunkSize;
+    private final int maxDepth;
+
+    @Autowired
+    public CommentPathBackfillService(CommentRepository commentRepository,
+                                      StringRedisTemplate redisTemplate,
+                                      @Value("${forum.comment-path.backfill-chunk-size:1000}") int chunkSize,
+                                      @Value("${forum.comment-path.backfill-lease-ttl:10m}") Duration leaseTtl,
+                                      @Value("${forum.comment-tree.max-depth:" + CommentPath.DEFAULT_MAX_DEPTH + "}") int maxDepth) {
+        this(commentRepository, redisTemplate, new RedisLoadLease(redisTemplate, leaseTtl), chunkSize, maxDepth);
+    }
+
+    CommentPathBackfillService(CommentRepository commentRepository,
+                               StringRedisTemplate redisTemplate,
+                               LoadLease lease,
+                               int chunkSize,
+                               int maxDepth) {
+        this.commentRepository = commentRepository;
+        this.redisTemplate = redisTemplate;
+        this.lease = lease;
+        this.chunkSize = chunkSize;
+        this.maxDepth = maxDepth;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(DONE_KEY))) {
+                return;
+            }
+            String token = lease.tryAcquire(LEASE_KEY);
+            if (token == null) {
+                // Another node is on it
+                return;
+            }
+            try {
+                int updated = backfill();
+                redisTemplate.opsForValue().set(DONE_KEY, "1");
+                logger.info("Backfilled path for {} comments", updated);
+            } finally {
+                lease.release(LEASE_KEY, token);
+            }
+        } catch (RuntimeException e) {
+            // Thread views work without paths; only subtree deletes fall back to row deletes.
+            // The next start tries again.
+            logger.warn("Comment path backfill failed: {}", e.getMessage());
+        }
+    }
+
+    public int backfill() {
+        int updated = 0;
+        long afterId = 0;
+        // Replies posted meanwhile to a comment without a path get none either, so the ids
+        // added during the walk are walked as well
+        for (long maxId = commentRepository.findMaxId(); afterId < maxId; maxId = commentRepository.findMaxId()) {
+            for (; afterId < maxId; afterId += chunkSize) {
+                updated += backfillRange(afterId, afterId + chunkSize);
+            }
+        }
+        return updated;
+    }
+
+    private int backfillRange(long afterId, long upToId) {
+        int updated = commentRepository.backfillRootPaths(afterId, upToId);
+        for (int depth = 0; depth < maxDepth; depth++) {
+            int level = commentRepository.backfillChildPaths(afterId, upToId, maxDepth);
+            if (level == 0) {
+                break;
+            }
+            updated += level;
+        }
+        return updated;
+    }
+}
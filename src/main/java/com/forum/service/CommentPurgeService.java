@@ -0,0 +1,179 @@
+package com.forum.service;
+
+import com.forum.cache.LoadLease;
+import com.forum.cache.RedisLoadLease;
+import com.forum.repository.CommentRepository;
+import com.forum.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes the comments of soft-deleted posts in the background, then the posts themselves.
+ * <p>
+ * Comments go in bounded DELETE ... LIMIT batches, each in its own short transaction, with a
+ * pause between batches so that replicas can keep up. A run stops after a fixed number of
+ * batches and the next run resumes where it left off, since the remaining work is simply the
+ * comments still present. One node purges at a time, under a Redis lease, so the pause
+ * paces all deletes and nodes do not contend for the same rows; a run also stops after half
+ * the lease TTL. Progress is logged per post and totals are exported over JMX.
+ */
+@Service
+@ManagedResource(objectName = "com.forum:type=CommentPurge", description = "Background purge of deleted posts")
+public class CommentPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentPurgeService.class);
+    private static final String LEASE_KEY = "comment-purge";
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final LoadLease lease;
+    private final Duration maxRunTime;
+
+    @Value("${forum.comment-purge.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${forum.comment-purge.batch-pause-ms:100}")
+    private long batchPauseMs = 100;
+
+    @Value("${forum.comment-purge.max-batches-per-run:100}")
+    private int maxBatchesPerRun = 100;
+
+    @Value("${forum.comment-purge.max-posts-per-run:100}")
+    private int maxPostsPerRun = 100;
+
+    private final AtomicLong commentsPurged = new AtomicLong();
+    private final AtomicLong postsPurged = new AtomicLong();
+    private final AtomicLong batchesExecuted = new AtomicLong();
+    private volatile int pendingPosts;
+    private volatile long lastRunMillis;
+
+    @Autowired
+    public CommentPurgeService(PostRepository postRepository,
+                               CommentRepository commentRepository,
+                               StringRedisTemplate redisTemplate,
+                               @Value("${forum.comment-purge.lease-ttl:5m}") Duration leaseTtl) {
+        this(postRepository, commentRepository, new RedisLoadLease(redisTemplate, leaseTtl), leaseTtl.dividedBy(2));
+    }
+
+    CommentPurgeService(PostRepository postRepository,
+                        CommentRepository commentRepository,
+                        LoadLease lease,
+                        Duration maxRunTime) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.lease = lease;
+        this.maxRunTime = maxRunTime;
+    }
+
+    @Scheduled(fixedDelayString = "${forum.comment-purge.interval-ms:30000}",
+            initialDelayString = "${forum.comment-purge.interval-ms:30000}")
+    public synchronized void purgeDeletedPosts() {
+        String token = lease.tryAcquire(LEASE_KEY);
+        if (token == null) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        long deadline = System.nanoTime() + maxRunTime.toNanos();
+        int batchBudget = maxBatchesPerRun;
+        try {
+            List<Number> postIds = postRepository.findSoftDeletedPostIds(maxPostsPerRun);
+            pendingPosts = postIds.size();
+            for (Number id : postIds) {
+                if (batchBudget <= 0) {
+                    break;
+                }
+                batchBudget = purgePost(id.longValue(), batchBudget, deadline);
+            }
+        } catch (RuntimeException e) {
+            // Nothing is lost; the next run picks up whatever is left
+            logger.error("Failed to purge deleted posts: {}", e.getMessage());
+        } finally {
+            lastRunMillis = System.currentTimeMillis() - startedAt;
+            lease.release(LEASE_KEY, token);
+        }
+    }
+
+    /**
+     * Purges one post as far as the batch budget and the run time allow and returns the
+     * budget left.
+     */
+    private int purgePost(long postId, int batchBudget, long deadline) {
+        long purged = 0;
+        boolean done = false;
+        while (batchBudget > 0 && !done) {
+            if (System.nanoTime() - deadline >= 0) {
+                // Leave the rest to the next run, which takes a fresh lease
+                batchBudget = 0;
+                break;
+            }
+            int deleted = commentRepository.deleteBatchByPostId(postId, batchSize);
+            batchBudget--;
+            batchesExecuted.incrementAndGet();
+            commentsPurged.addAndGet(deleted);
+            purged += deleted;
+            done = deleted < batchSize;
+            if (!pause()) {
+                return 0;
+            }
+        }
+        if (!done) {
+            logger.info("Removed {} comments of deleted post {}, more to go", purged, postId);
+        } else if (postRepository.deleteSoftDeletedPost(postId) > 0) {
+            postsPurged.incrementAndGet();
+            logger.info("Purged deleted post {} after removing {} comments", postId, purged);
+        } else {
+            logger.info("Removed {} comments of deleted post {}, but a comment was added meanwhile; "
+                    + "the post is deleted on a later run", purged, postId);
+        }
+        return batchBudget;
+    }
+
+    private boolean pause() {
+        if (batchPauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @ManagedAttribute(description = "Comments removed since startup")
+    public long getCommentsPurged() {
+        return commentsPurged.get();
+    }
+
+    @ManagedAttribute(description = "Deleted posts fully removed since startup")
+    public long getPostsPurged() {
+        return postsPurged.get();
+    }
+
+    @ManagedAttribute(description = "DELETE batches executed since startup")
+    public long getBatchesExecuted() {
+        return batchesExecuted.get();
+    }
+
+    @ManagedAttribute(description = "Deleted posts still waiting for their comments to be removed, as of the last run")
+    public int getPendingPosts() {
+        return pendingPosts;
+    }
+
+    @ManagedAttribute(description = "Duration of the last purge run in milliseconds")
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+}
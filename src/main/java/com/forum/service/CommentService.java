@@ -1,17 +1,23 @@
 package com.forum.service;
 
+import com.forum.cache.CommentTreeCache;
 import com.forum.dto.request.CommentRequest;
 import com.forum.dto.response.CommentResponse;
+import com.forum.dto.response.CursorPageResponse;
 import com.forum.exception.BadRequestException;
 import com.forum.exception.ResourceNotFoundException;
 import com.forum.model.Comment;
+import com.forum.model.CommentWithUserName;
+import com.forum.model.PostEvent;
 import com.forum.model.User;
 import com.forum.repository.CommentRepository;
 import com.forum.repository.PostRepository;
 import com.forum.repository.UserRepository;
+import com.forum.util.CommentPath;
+import com.forum.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +27,9 @@ import java.util.stream.Collectors;
 @Service
 public class CommentService{
 
+    public static final int MAX_THREAD_PAGE_SIZE = 100;
+    public static final int MAX_REPLY_PREVIEW = 10;
+
     @Autowired
     private CommentRepository commentRepository;
 
@@ -30,8 +39,16 @@ public class CommentService{
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CommentTreeCache commentTreeCache;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private CommentTreeAssembler commentTreeAssembler;
+
     @Transactional
-    @CacheEvict(value = "comment:post", key = "#postId")
     public CommentResponse createComment(Long postId, CommentRequest commentRequest, Long userId) {
         // Verify post exists
         if (!postRepository.existsById(postId)) {
@@ -43,21 +60,44 @@ public class CommentService{
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
         // Check if parent comment exists if provided
+        Comment parent = null;
         if (commentRequest.getParentId() != null) {
-            commentRepository.findById(commentRequest.getParentId())
+            parent = commentRepository.findById(commentRequest.getParentId())
                     .orElseThrow(() -> new ResourceNotFoundException("Parent comment not found"));
+            if (!parent.getPostId().equals(postId)) {
+                throw new BadRequestException("Parent comment does not belong to post with id: " + postId);
+            }
+            int maxDepth = commentTreeAssembler.getMaxDepth();
+            if (parent.getDepth() >= maxDepth) {
+                throw new BadRequestException("Replies cannot be nested more than " + maxDepth + " levels deep");
+            }
         }
         
+        // Takes the exclusive lock on the post row before the insert's foreign key check takes
+        // a shared one; two comments on a post that each held the shared lock would deadlock
+        // waiting to upgrade it
+        postRepository.adjustCommentCount(postId, 1);
+
         // Create new comment
         Comment comment = new Comment();
         comment.setPostId(postId);
         comment.setUserId(userId);
         comment.setContent(commentRequest.getContent());
         comment.setParentId(commentRequest.getParentId());
+        comment.setDepth(parent == null ? 0 : parent.getDepth() + 1);
         
         Comment savedComment = commentRepository.save(comment);
+
+        // The path ends with the comment's own id, so it can only be set once the insert has
+        // assigned one; the managed entity is flushed again on commit. Replies to a legacy
+        // comment without a path are left for the backfill.
+        if (parent == null) {
+            savedComment.setPath(CommentPath.root(savedComment.getId()));
+        } else if (parent.getPath() != null) {
+            savedComment.setPath(CommentPath.child(parent.getPath(), savedComment.getId()));
+        }
         
-        return new CommentResponse(
+        CommentResponse response = new CommentResponse(
             savedComment.getId(),
             savedComment.getPostId(),
             savedComment.getUserId(),
@@ -68,47 +108,74 @@ public class CommentService{
             savedComment.getParentId(),
             Collections.emptyList()
         );
+        outboxService.record(PostEvent.commentCreated(response));
+        return response;
     }
 
-    @Transactional(readOnly = true)
-    @Cacheable(
-            value = "comment:post",
-            key = "#postId",
-            unless = "#result.isEmpty()"
-    )
+    /**
+     * Strong ETag of a post's full comment tree, moved by every write to the thread, or
+     * {@code null} when it cannot be read.
+     */
+    public String getCommentTreeETag(Long postId) {
+        String version = commentTreeCache.getVersion(postId);
+        return version == null ? null : "\"c" + postId + "-" + version + "\"";
+    }
+
+    /**
+     * The full comment tree of a post, served from {@link CommentTreeCache} and read from the
+     * database only when the post's comments are not cached.
+     */
     public List<CommentResponse> getCommentsByPostId(Long postId) {
-        // Verify post exists
+        return commentTreeCache.getTree(postId, () -> loadComments(postId), commentTreeAssembler::assemble);
+    }
+
+    /**
+     * One page of root comments in posting order, each with up to {@code replyPreview} of its
+     * direct replies. A node whose {@code replyCount} exceeds the replies it carries is
+     * expanded through {@link #getReplies} starting at its {@code repliesCursor}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<CommentResponse> getCommentThread(Long postId, String cursor, int size, int replyPreview) {
         if (!postRepository.existsById(postId)) {
             throw new ResourceNotFoundException("Post not found with id: " + postId);
         }
-        
-        // Get all comments with usernames for the post
-        List<Object[]> results = commentRepository.findCommentsWithUsernamesByPostId(postId);
-        
-        // Map results to CommentResponse objects
-        List<CommentResponse> allComments = results.stream().map(result -> {
-            Comment comment = (Comment) result[0];
-            String username = (String) result[1];
-            
-            return new CommentResponse(
-                comment.getId(),
-                comment.getPostId(),
-                comment.getUserId(),
-                username,
-                comment.getContent(),
-                comment.getCreatedAt(),
-                comment.getUpdatedAt(),
-                comment.getParentId(),
-                new ArrayList<>() // Temporary empty list for replies
-            );
-        }).collect(Collectors.toList());
-        
-        // Organize comments into a hierarchical structure
-        return buildCommentHierarchy(allComments);
+        int pageSize = Math.max(1, Math.min(size, MAX_THREAD_PAGE_SIZE));
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<CommentWithUserName> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = commentRepository.findRootComments(postId, limit);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            rows = commentRepository.findRootCommentsAfter(postId, position.getCreatedAt(), position.getId(), limit);
+        }
+        return toThreadPage(rows, pageSize, replyPreview);
+    }
+
+    /**
+     * One page of the direct replies to a comment, shaped like {@link #getCommentThread}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<CommentResponse> getReplies(Long postId, Long commentId, String cursor, int size, int replyPreview) {
+        Comment parent = commentRepository.findById(commentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Comment not found with id: " + commentId));
+        if (!parent.getPostId().equals(postId)) {
+            throw new BadRequestException("Comment does not belong to post with id: " + postId);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_THREAD_PAGE_SIZE));
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<CommentWithUserName> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = commentRepository.findReplies(commentId, limit);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            rows = commentRepository.findRepliesAfter(commentId, position.getCreatedAt(), position.getId(), limit);
+        }
+        return toThreadPage(rows, pageSize, replyPreview);
     }
 
     @Transactional
-    @CacheEvict(value = "comment:post", key = "#postId")
     public CommentResponse updateComment(Long postId, Long commentId, CommentRequest commentRequest, Long userId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment not found with id: " + commentId));
@@ -124,14 +191,17 @@ public class CommentService{
         
         // Update comment content
         comment.setContent(commentRequest.getContent());
-        Comment updatedComment = commentRepository.save(comment);
+        // Flushing takes the row lock before the event gets its id; otherwise two concurrent
+        // edits could commit in the opposite order to their events and leave the older text
+        // in the cached tree
+        Comment updatedComment = commentRepository.saveAndFlush(comment);
         
         // Get username for response
         String username = userRepository.findById(userId)
                 .map(User::getUsername)
                 .orElse("unknown");
         
-        return new CommentResponse(
+        CommentResponse response = new CommentResponse(
             updatedComment.getId(),
             updatedComment.getPostId(),
             updatedComment.getUserId(),
@@ -142,10 +212,11 @@ public class CommentService{
             updatedComment.getParentId(),
             Collections.emptyList()
         );
+        outboxService.record(PostEvent.commentUpdated(response));
+        return response;
     }
 
     @Transactional
-    @CacheEvict(value = "comment:post", key = "#postId")
     public void deleteComment(Long postId, Long commentId, Long userId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment not found with id: " + commentId));
@@ -158,38 +229,103 @@ public class CommentService{
             throw new BadRequestException("You are not authorized to delete this comment");
         }
         
-        commentRepository.delete(comment);
+        if (comment.getPath() != null) {
+            List<Long> subtreeIds = commentRepository.findSubtreeIds(postId, comment.getPath());
+            int deleted = commentRepository.deleteSubtree(postId, comment.getPath());
+            postRepository.adjustCommentCount(postId, -deleted);
+            outboxService.record(PostEvent.commentsDeleted(postId, subtreeIds));
+        } else {
+            // Without a path the replies removed by the FK cascade are unknown here
+            // and left out of the count until the reconciliation job recounts the post
+            commentRepository.delete(comment);
+            postRepository.adjustCommentCount(postId, -1);
+            outboxService.record(PostEvent.commentsDeleted(postId, null));
+        }
+    }
+
+    private List<CommentResponse> loadComments(Long postId) {
+        // Verify post exists
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found with id: " + postId);
+        }
+
+        // Get all comments with usernames for the post
+        List<Object[]> results = commentRepository.findCommentsWithUsernamesByPostId(postId);
+        return results.stream()
+                .map(result -> mapToCommentResponse((Comment) result[0], (String) result[1]))
+                .collect(Collectors.toList());
     }
 
-    // Helper method to build comment hierarchy with replies
-    private List<CommentResponse> buildCommentHierarchy(List<CommentResponse> allComments) {
-        Map<Long, CommentResponse> uniqueComments = allComments.stream()
-                .collect(Collectors.toMap(
-                        CommentResponse::getId,
-                        comment -> comment,
-                        (existing, replacement) -> existing
-                ));
-
-        List<CommentResponse> distinctComments = new ArrayList<>(uniqueComments.values());
-
-        Map<Long, CommentResponse> commentMap = new HashMap<>();
-        for (CommentResponse comment : distinctComments) {
-            commentMap.put(comment.getId(), comment);
-        }
-
-        List<CommentResponse> rootComments = new ArrayList<>();
-        for (CommentResponse comment : distinctComments) {
-            Long parentId = comment.getParentId();
-            if (parentId == null) {
-                rootComments.add(comment);
-            } else {
-                CommentResponse parent = commentMap.get(parentId);
-                if (parent != null) {
-                    parent.getReplies().add(comment);
-                }
+    private CursorPageResponse<CommentResponse> toThreadPage(List<CommentWithUserName> rows, int pageSize, int replyPreview) {
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+        List<CommentResponse> content = rows.stream()
+                .map(row -> mapToCommentResponse(row.getComment(), row.getUsername()))
+                .collect(Collectors.toList());
+        attachReplies(content, Math.max(0, Math.min(replyPreview, MAX_REPLY_PREVIEW)));
+
+        String nextCursor = null;
+        if (hasNext) {
+            Comment last = rows.get(rows.size() - 1).getComment();
+            nextCursor = PageCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPageResponse<>(content, nextCursor, hasNext);
+    }
+
+    // Fills replies, replyCount and repliesCursor of a page of nodes with three queries in total
+    private void attachReplies(List<CommentResponse> nodes, int previewSize) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        List<Long> nodeIds = nodes.stream().map(CommentResponse::getId).collect(Collectors.toList());
+
+        List<CommentResponse> previews = new ArrayList<>();
+        if (previewSize > 0) {
+            List<Long> previewIds = commentRepository.findFirstReplyIds(nodeIds, previewSize).stream()
+                    .map(Number::longValue)
+                    .collect(Collectors.toList());
+            if (!previewIds.isEmpty()) {
+                commentRepository.findWithUsernamesByIdIn(previewIds).forEach(row ->
+                        previews.add(mapToCommentResponse(row.getComment(), row.getUsername())));
             }
         }
 
-        return rootComments;
+        List<Long> countedIds = new ArrayList<>(nodeIds);
+        previews.forEach(preview -> countedIds.add(preview.getId()));
+        Map<Long, Long> replyCounts = new HashMap<>();
+        for (Object[] row : commentRepository.countRepliesByParentIds(countedIds)) {
+            replyCounts.put((Long) row[0], (Long) row[1]);
+        }
+
+        Map<Long, List<CommentResponse>> previewsByParent = new HashMap<>();
+        for (CommentResponse preview : previews) {
+            preview.setReplyCount(replyCounts.getOrDefault(preview.getId(), 0L));
+            previewsByParent.computeIfAbsent(preview.getParentId(), id -> new ArrayList<>()).add(preview);
+        }
+        for (CommentResponse node : nodes) {
+            List<CommentResponse> replies = previewsByParent.getOrDefault(node.getId(), new ArrayList<>());
+            node.setReplies(replies);
+            node.setReplyCount(replyCounts.getOrDefault(node.getId(), 0L));
+            if (!replies.isEmpty() && node.getReplyCount() > replies.size()) {
+                CommentResponse last = replies.get(replies.size() - 1);
+                node.setRepliesCursor(PageCursor.of(last.getCreatedAt(), last.getId()).encode());
+            }
+        }
+    }
+
+    private CommentResponse mapToCommentResponse(Comment comment, String username) {
+        return new CommentResponse(
+            comment.getId(),
+            comment.getPostId(),
+            comment.getUserId(),
+            username,
+            comment.getContent(),
+            comment.getCreatedAt(),
+            comment.getUpdatedAt(),
+            comment.getParentId(),
+            new ArrayList<>()
+        );
     }
 }
@@ -0,0 +1,221 @@
+package com.forum.service;
+
+import com.forum.dto.response.CommentResponse;
+import com.forum.util.CommentPath;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Links a flat list of comments into root comments with nested replies.
+ * <p>
+ * Roots and every reply list come out in thread order, oldest first with the id breaking
+ * ties. Input already in that order, as loaded from MySQL, is linked in one pass; input in
+ * any other order, as read back from the cache, is sorted first. Ids are indexed in an
+ * open-addressing table of primitive longs, so linking does not box them.
+ * <p>
+ * The maximum depth is the one replies are accepted to, so only replies written under a
+ * higher setting are nested deeper; they are flattened onto the deepest comment shown on
+ * their branch. Comments whose parent is not in the list, because it was removed while
+ * its replies were being read, are dropped or shown as roots according to the policy.
+ * Duplicate ids keep their first occurrence. The replies lists of the given comments are
+ * filled in place.
+ */
+@Component
+public class CommentTreeAssembler {
+
+    public enum OrphanPolicy {
+        DROP,
+        PROMOTE_TO_ROOT
+    }
+
+    static final Comparator<CommentResponse> THREAD_ORDER = Comparator
+            .comparing(CommentResponse::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(CommentResponse::getId);
+
+    private static final int NOT_FOUND = -1;
+
+    private final int maxDepth;
+    private final OrphanPolicy orphanPolicy;
+
+    public CommentTreeAssembler(@Value("${forum.comment-tree.max-depth:" + CommentPath.DEFAULT_MAX_DEPTH + "}") int maxDepth,
+                                @Value("${forum.comment-tree.orphans:DROP}") OrphanPolicy orphanPolicy) {
+        if (maxDepth < 1 || maxDepth > CommentPath.DEPTH_LIMIT) {
+            throw new IllegalArgumentException("Max depth must be between 1 and " + CommentPath.DEPTH_LIMIT + ": " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        this.orphanPolicy = orphanPolicy;
+    }
+
+    /**
+     * Deepest reply level accepted and shown; root comments are at depth 0.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public List<CommentResponse> assemble(List<CommentResponse> comments) {
+        List<CommentResponse> ordered = comments;
+        if (!isInThreadOrder(comments)) {
+            ordered = new ArrayList<>(comments);
+            ordered.sort(THREAD_ORDER);
+        }
+
+        int size = ordered.size();
+        LongIntIndex positions = new LongIntIndex(size);
+        // Per position: depth shown (-1 until linked), and the comment its replies attach to
+        int[] depths = new int[size];
+        int[] anchors = new int[size];
+        Arrays.fill(depths, NOT_FOUND);
+        List<CommentResponse> roots = new ArrayList<>();
+        List<CommentResponse> deferred = null;
+
+        for (int i = 0; i < size; i++) {
+            CommentResponse comment = ordered.get(i);
+            if (!positions.putIfAbsent(comment.getId(), i)) {
+                continue;
+            }
+            comment.setReplies(new ArrayList<>());
+            Long parentId = comment.getParentId();
+            if (parentId == null) {
+                attachAsRoot(comment, i, depths, anchors, roots);
+                continue;
+            }
+            int parent = positions.get(parentId);
+            if (parent != NOT_FOUND && depths[parent] != NOT_FOUND) {
+                attach(comment, i, parent, ordered, depths, anchors);
+            } else {
+                if (deferred == null) {
+                    deferred = new ArrayList<>();
+                }
+                deferred.add(comment);
+            }
+        }
+
+        if (deferred != null) {
+            linkDeferred(deferred, roots, ordered, positions, depths, anchors);
+        }
+        return roots;
+    }
+
+    /**
+     * Links replies that came before their parent, as when a parent is stamped later than its
+     * reply, then applies the orphan policy to those whose parent is missing. Whatever is
+     * still unlinked after that only hangs off dropped comments and is dropped with them.
+     */
+    private void linkDeferred(List<CommentResponse> deferred, List<CommentResponse> roots,
+                              List<CommentResponse> ordered, LongIntIndex positions, int[] depths, int[] anchors) {
+        List<CommentResponse> touched = new ArrayList<>();
+        linkWhileParentsAppear(deferred, ordered, positions, depths, anchors, touched);
+        if (orphanPolicy == OrphanPolicy.PROMOTE_TO_ROOT && !deferred.isEmpty()) {
+            for (Iterator<CommentResponse> it = deferred.iterator(); it.hasNext(); ) {
+                CommentResponse orphan = it.next();
+                if (positions.get(orphan.getParentId()) == NOT_FOUND) {
+                    attachAsRoot(orphan, positions.get(orphan.getId()), depths, anchors, roots);
+                    it.remove();
+                }
+            }
+            roots.sort(THREAD_ORDER);
+            linkWhileParentsAppear(deferred, ordered, positions, depths, anchors, touched);
+        }
+        for (CommentResponse parent : touched) {
+            parent.getReplies().sort(THREAD_ORDER);
+        }
+    }
+
+    private void linkWhileParentsAppear(List<CommentResponse> deferred, List<CommentResponse> ordered,
+                                        LongIntIndex positions, int[] depths, int[] anchors,
+                                        List<CommentResponse> touched) {
+        boolean linked = true;
+        while (linked) {
+            linked = false;
+            for (Iterator<CommentResponse> it = deferred.iterator(); it.hasNext(); ) {
+                CommentResponse comment = it.next();
+                int parent = positions.get(comment.getParentId());
+                if (parent != NOT_FOUND && depths[parent] != NOT_FOUND) {
+                    touched.add(attach(comment, positions.get(comment.getId()), parent, ordered, depths, anchors));
+                    it.remove();
+                    linked = true;
+                }
+            }
+        }
+    }
+
+    private CommentResponse attach(CommentResponse comment, int position, int parent, List<CommentResponse> ordered,
+                                   int[] depths, int[] anchors) {
+        CommentResponse target = ordered.get(anchors[parent]);
+        target.getReplies().add(comment);
+        depths[position] = depths[anchors[parent]] + 1;
+        anchors[position] = depths[position] < maxDepth ? position : anchors[parent];
+        return target;
+    }
+
+    private static void attachAsRoot(CommentResponse comment, int position, int[] depths, int[] anchors,
+                                     List<CommentResponse> roots) {
+        roots.add(comment);
+        depths[position] = 0;
+        anchors[position] = position;
+    }
+
+    private static boolean isInThreadOrder(List<CommentResponse> comments) {
+        for (int i = 1; i < comments.size(); i++) {
+            if (THREAD_ORDER.compare(comments.get(i - 1), comments.get(i)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Open-addressing map from comment id to list position, sized once for the list.
+     */
+    private static final class LongIntIndex {
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        private LongIntIndex(int expectedSize) {
+            // Power of two at least twice the size keeps probe sequences short
+            int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+            Arrays.fill(values, NOT_FOUND);
+        }
+
+        int get(long key) {
+            for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+                if (values[slot] == NOT_FOUND) {
+                    return NOT_FOUND;
+                }
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+        }
+
+        boolean putIfAbsent(long key, int value) {
+            for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+                if (values[slot] == NOT_FOUND) {
+                    keys[slot] = key;
+                    values[slot] = value;
+                    return true;
+                }
+                if (keys[slot] == key) {
+                    return false;
+                }
+            }
+        }
+
+        private int slot(long key) {
+            // Ids are sequential; spread them so neighbours do not cluster
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.forum.service;
+
+import com.forum.config.LoginRateLimitProperties;
+import com.forum.exception.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Throttles login attempts with sliding windows kept in Redis sorted sets, one per username
+ * and one per client IP, so that the limit holds across nodes.
+ * <p>
+ * Both windows are checked and, only if both have room, recorded in a single script, so
+ * concurrent attempts cannot overshoot a limit. Timestamps come from the Redis clock to keep
+ * nodes with skewed clocks consistent. If Redis cannot be reached attempts are let through,
+ * since locking every user out is worse than briefly losing the throttle.
+ */
+@Service
+public class LoginRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginRateLimiter.class);
+    static final String USERNAME_KEY_PREFIX = "auth:login:user:";
+    static final String IP_KEY_PREFIX = "auth:login:ip:";
+
+    // KEYS: windows to check. ARGV: window ms, limit per key..., attempt id.
+    // Returns 0 if the attempt was recorded, otherwise milliseconds until the fullest window has room.
+    private static final RedisScript<Long> ATTEMPT_SCRIPT = new DefaultRedisScript<>(
+            "redis.replicate_commands() " +
+            "local t = redis.call('TIME') " +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) " +
+            "local window = tonumber(ARGV[1]) " +
+            "local retry = 0 " +
+            "for i, key in ipairs(KEYS) do " +
+            "  redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window) " +
+            "  if redis.call('ZCARD', key) >= tonumber(ARGV[i + 1]) then " +
+            "    local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES') " +
+            "    retry = math.max(retry, tonumber(oldest[2]) + window - now) " +
+            "  end " +
+            "end " +
+            "if retry > 0 then return retry end " +
+            "for i, key in ipairs(KEYS) do " +
+            "  redis.call('ZADD', key, now, ARGV[#KEYS + 2]) " +
+            "  redis.call('PEXPIRE', key, window) " +
+            "end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final LoginRateLimitProperties properties;
+
+    public LoginRateLimiter(StringRedisTemplate redisTemplate, LoginRateLimitProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Records a login attempt, or rejects it without recording when the username or client
+     * IP has used up its window.
+     *
+     * @throws TooManyRequestsException if either limit has been reached
+     */
+    public void checkAttempt(String username, String clientIp) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Long retryAfterMs;
+        try {
+            retryAfterMs = redisTemplate.execute(ATTEMPT_SCRIPT,
+                    Arrays.asList(usernameKey(username), IP_KEY_PREFIX + clientIp),
+                    String.valueOf(properties.getWindow().toMillis()),
+                    String.valueOf(properties.getMaxAttemptsPerUsername()),
+                    String.valueOf(properties.getMaxAttemptsPerIp()),
+                    UUID.randomUUID().toString());
+        } catch (RuntimeException e) {
+            logger.warn("Login rate limit check failed, allowing attempt: {}", e.getMessage());
+            return;
+        }
+        if (retryAfterMs != null && retryAfterMs > 0) {
+            logger.info("Login attempt for {} from {} throttled", username, clientIp);
+            throw new TooManyRequestsException("Too many login attempts, please try again later",
+                    Math.max(1, (retryAfterMs + 999) / 1000));
+        }
+    }
+
+    /**
+     * Clears the username window after a successful login so that earlier typos do not count
+     * against the user. The IP window is left alone.
+     */
+    public void recordSuccess(String username) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(usernameKey(username));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to reset login attempts of {}: {}", username, e.getMessage());
+        }
+    }
+
+    // Usernames compare case-insensitively in MySQL, so "Alice" and "alice" share a window
+    private static String usernameKey(String username) {
+        return USERNAME_KEY_PREFIX + username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,231 @@
+package com.forum.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forum.cache.LoadLease;
+import com.forum.cache.RedisLoadLease;
+import com.forum.model.OutboxEvent;
+import com.forum.model.PostEvent;
+import com.forum.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers outbox events to every {@link OutboxSubscriber}, oldest first and in batches.
+ * <p>
+ * One node dispatches at a time, under a Redis lease, so events of a post are never handled
+ * out of order by two nodes at once. A run stops after half the lease TTL, so the lease
+ * cannot expire under a slow run and let another node start on the same events. A batch is
+ * deleted only after every subscriber handled it; if one throws, the batch stays and the
+ * run stops, to be retried from the same event.
+ * Runs are started right after a write commits on this node, and by a poll that picks up
+ * events recorded on nodes not holding the lease or left behind by a crash. Progress and
+ * lag are exported over JMX.
+ */
+@Service
+@ManagedResource(objectName = "com.forum:type=Outbox", description = "Delivery of post write events")
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final String LEASE_KEY = "outbox:dispatcher";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxSubscriber> subscribers;
+    private final ObjectMapper objectMapper;
+    private final LoadLease lease;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration maxRunTime;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean runQueued = new AtomicBoolean();
+
+    private final AtomicLong eventsDelivered = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong discardedEvents = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile long oldestPendingAgeMillis;
+
+    @Autowired
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            List<OutboxSubscriber> subscribers,
+                            ObjectMapper objectMapper,
+                            StringRedisTemplate redisTemplate,
+                            @Value("${forum.outbox.batch-size:100}") int batchSize,
+                            @Value("${forum.outbox.max-batches-per-run:50}") int maxBatchesPerRun,
+                            @Value("${forum.outbox.lease-ttl:30s}") Duration leaseTtl) {
+        this(outboxEventRepository, subscribers, objectMapper, new RedisLoadLease(redisTemplate, leaseTtl),
+                batchSize, maxBatchesPerRun, leaseTtl.dividedBy(2));
+    }
+
+    OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                     List<OutboxSubscriber> subscribers,
+                     ObjectMapper objectMapper,
+                     LoadLease lease,
+                     int batchSize,
+                     int maxBatchesPerRun,
+                     Duration maxRunTime) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.subscribers = subscribers;
+        this.objectMapper = objectMapper;
+        this.lease = lease;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxRunTime = maxRunTime;
+    }
+
+    /**
+     * Starts a run on the dispatcher thread unless one is already waiting to start, so a
+     * burst of writes costs one run.
+     */
+    public void dispatchSoon() {
+        if (!runQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                runQueued.set(false);
+                dispatch();
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the poll of another node delivers the events
+            runQueued.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${forum.outbox.poll-interval-ms:500}")
+    public void poll() {
+        dispatch();
+    }
+
+    /**
+     * Delivers pending events until none are left, a subscriber fails or the run has used up
+     * its batches or its time. Returns the number of events delivered.
+     */
+    public synchronized int dispatch() {
+        String token = lease.tryAcquire(LEASE_KEY);
+        if (token == null) {
+            return 0;
+        }
+        int delivered = 0;
+        long deadline = System.nanoTime() + maxRunTime.toNanos();
+        try {
+            for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+                if (batches > 0 && System.nanoTime() - deadline >= 0) {
+                    // Leave the rest to the next run, which takes a fresh lease
+                    break;
+                }
+                List<OutboxEvent> rows = outboxEventRepository.findOldest(PageRequest.of(0, batchSize));
+                if (rows.isEmpty()) {
+                    oldestPendingAgeMillis = 0;
+                    break;
+                }
+                oldestPendingAgeMillis = ageMillis(rows.get(0));
+                if (!deliver(rows)) {
+                    break;
+                }
+                delivered += rows.size();
+                if (rows.size() < batchSize) {
+                    oldestPendingAgeMillis = 0;
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Nothing is lost; undeleted events are delivered again by the next run
+            logger.error("Failed to dispatch outbox events: {}", e.getMessage());
+        } finally {
+            lease.release(LEASE_KEY, token);
+        }
+        return delivered;
+    }
+
+    private boolean deliver(List<OutboxEvent> rows) {
+        List<PostEvent> events = new ArrayList<>(rows.size());
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (OutboxEvent row : rows) {
+            ids.add(row.getId());
+            try {
+                events.add(objectMapper.readValue(row.getPayload(), PostEvent.class));
+            } catch (IOException e) {
+                // Retrying cannot help and would hold back every later event
+                discardedEvents.incrementAndGet();
+                logger.error("Discarding unreadable outbox event {} of post {}: {}",
+                        row.getId(), row.getPostId(), e.getMessage());
+            }
+        }
+        for (OutboxSubscriber subscriber : subscribers) {
+            try {
+                subscriber.handle(events);
+            } catch (RuntimeException e) {
+                failedBatches.incrementAndGet();
+                logger.warn("{} failed on outbox events {}..{}, will retry: {}", subscriber.getClass().getSimpleName(),
+                        ids.get(0), ids.get(ids.size() - 1), e.getMessage());
+                return false;
+            }
+        }
+        outboxEventRepository.deleteAllByIdInBatch(ids);
+        eventsDelivered.addAndGet(rows.size());
+        lastLagMillis = ageMillis(rows.get(rows.size() - 1));
+        return true;
+    }
+
+    private static long ageMillis(OutboxEvent row) {
+        if (row.getCreatedAt() == null) {
+            return 0;
+        }
+        return Math.max(0, Duration.between(row.getCreatedAt(), LocalDateTime.now()).toMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @ManagedAttribute(description = "Events delivered to every subscriber since startup")
+    public long getEventsDelivered() {
+        return eventsDelivered.get();
+    }
+
+    @ManagedAttribute(description = "Batches left for retry because a subscriber failed, since startup")
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    @ManagedAttribute(description = "Events dropped because their payload could not be read, since startup")
+    public long getDiscardedEvents() {
+        return discardedEvents.get();
+    }
+
+    @ManagedAttribute(description = "Milliseconds between recording and delivering the last delivered event")
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    @ManagedAttribute(description = "Age in milliseconds of the oldest undelivered event, as of the last run on this node")
+    public long getOldestPendingAgeMillis() {
+        return oldestPendingAgeMillis;
+    }
+}
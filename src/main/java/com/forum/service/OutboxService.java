@@ -0,0 +1,56 @@
+package com.forum.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forum.model.OutboxEvent;
+import com.forum.model.PostEvent;
+import com.forum.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Records the side effects of a write as {@link PostEvent}s in the outbox table, in the
+ * write's own transaction: they are delivered if and only if the write commits, and the
+ * write itself never waits on Redis.
+ * <p>
+ * The event's id is assigned as soon as it is recorded. A caller whose event must stay in
+ * order with concurrent writes to the same row flushes that write first, so the row lock is
+ * held before the id is taken.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDispatcher outboxDispatcher;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(PostEvent event) {
+        OutboxEvent row = new OutboxEvent();
+        row.setType(event.getType());
+        row.setPostId(event.getPostId());
+        try {
+            row.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            // Rolls the write back rather than commit it without its side effects
+            throw new IllegalStateException("Failed to serialize " + event.getType() + " event of post "
+                    + event.getPostId(), e);
+        }
+        outboxEventRepository.save(row);
+
+        // Deliver right after commit instead of waiting for the next poll
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxDispatcher.dispatchSoon();
+                }
+            });
+        }
+    }
+}
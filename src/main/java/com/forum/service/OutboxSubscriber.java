@@ -0,0 +1,20 @@
+package com.forum.service;
+
+import com.forum.model.PostEvent;
+
+import java.util.List;
+
+/**
+ * Receives committed {@link PostEvent}s from the {@link OutboxDispatcher}.
+ * <p>
+ * Delivery is at least once: when any subscriber throws, or the batch cannot be deleted
+ * after all of them handled it, the whole batch is delivered again to every subscriber on a
+ * later run, so handling an event twice must be harmless.
+ */
+public interface OutboxSubscriber {
+
+    /**
+     * Handles a batch of events in the order they were recorded. Runs outside any transaction.
+     */
+    void handle(List<PostEvent> events);
+}
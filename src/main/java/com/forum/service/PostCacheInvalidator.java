@@ -0,0 +1,117 @@
+package com.forum.service;
+
+import com.forum.cache.CommentTreeCache;
+import com.forum.cache.ResponseCache;
+import com.forum.cache.VersionStamp;
+import com.forum.model.PostEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maps each post event to the cache entries it affects, and updates exactly those. A new
+ * post, for example, changes its author's first page and the feeds, but no cached post.
+ * <p>
+ * Events reach it from the outbox once their write has committed, so a concurrent read
+ * cannot put the pre-write state back into the cache. Feed and response purges are
+ * coalesced per batch. The caches are called directly: they defer their own writes to the
+ * commit of any surrounding transaction, and a call made from an {@code afterCommit}
+ * callback would register a synchronization that never runs.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostCacheInvalidator implements OutboxSubscriber {
+
+    static final String POST_CONTENT = "postContent";
+    static final String AUTHOR_POSTS = "authorPosts";
+
+    private final CacheManager cacheManager;
+    private final CommentTreeCache commentTreeCache;
+    private final VersionStamp feedVersion;
+    private final ResponseCache responseCache;
+
+    @Override
+    public void handle(List<PostEvent> events) {
+        Set<String> purgedTags = new LinkedHashSet<>();
+        boolean feedChanged = false;
+        for (PostEvent event : events) {
+            Long postId = event.getPostId();
+            switch (event.getType()) {
+                case POST_CREATED:
+                    evict(AUTHOR_POSTS, event.getAuthorId());
+                    feedChanged = true;
+                    break;
+                case POST_UPDATED:
+                    evict(POST_CONTENT, postId);
+                    evict(AUTHOR_POSTS, event.getAuthorId());
+                    purgedTags.add(ResponseCache.postTag(postId));
+                    feedChanged = true;
+                    break;
+                case POST_DELETED:
+                    evict(POST_CONTENT, postId);
+                    evict(AUTHOR_POSTS, event.getAuthorId());
+                    commentTreeCache.invalidate(postId);
+                    purgedTags.add(ResponseCache.postTag(postId));
+                    purgedTags.add(ResponseCache.commentsTag(postId));
+                    feedChanged = true;
+                    break;
+                case COMMENT_CREATED:
+                    commentTreeCache.put(postId, event.getComment());
+                    purgedTags.add(ResponseCache.commentsTag(postId));
+                    // The post and the feeds carry the comment count
+                    purgedTags.add(ResponseCache.postTag(postId));
+                    feedChanged = true;
+                    break;
+                case COMMENT_UPDATED:
+                    commentTreeCache.put(postId, event.getComment());
+                    purgedTags.add(ResponseCache.commentsTag(postId));
+                    break;
+                case COMMENT_DELETED:
+                    if (event.getCommentIds() != null) {
+                        commentTreeCache.remove(postId, event.getCommentIds());
+                    } else {
+                        commentTreeCache.invalidate(postId);
+                    }
+                    purgedTags.add(ResponseCache.commentsTag(postId));
+                    purgedTags.add(ResponseCache.postTag(postId));
+                    feedChanged = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (feedChanged) {
+            feedVersion.bump();
+            purgedTags.add(ResponseCache.FEED_TAG);
+        }
+        if (!purgedTags.isEmpty()) {
+            responseCache.purge(purgedTags.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * For changes that touch the listing of every author at once, such as an excerpt backfill.
+     * The author pages are generational, so this moves them to a new namespace rather than
+     * deleting their keys.
+     */
+    public void allAuthorPagesChanged() {
+        Cache cache = cacheManager.getCache(AUTHOR_POSTS);
+        if (cache != null) {
+            cache.clear();
+        }
+        feedVersion.bump();
+        responseCache.purge(ResponseCache.FEED_TAG);
+    }
+
+    private void evict(String cacheName, Long key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
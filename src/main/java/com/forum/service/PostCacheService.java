@@ -1,44 +1,116 @@
 package com.forum.service;
 
-import com.forum.dto.response.PostResponse;
+import com.forum.dto.response.PostSummaryResponse;
 import com.forum.exception.ResourceNotFoundException;
 import com.forum.model.Post;
+import com.forum.model.PostContent;
 import com.forum.model.PostWithUserName;
 import com.forum.repository.PostRepository;
+import com.forum.cache.BatchCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class PostCacheService {
 
+    public static final int AUTHOR_FIRST_PAGE_SIZE = 20;
+
     private final PostRepository postRepository;
+    private final CacheManager cacheManager;
 
+    /**
+     * The content of a post, cached until the author edits or deletes it. Views and comments
+     * do not touch this entry; their counts live in {@link com.forum.cache.PostCounterCache}.
+     */
     @Cacheable(
-            value = "hotPosts",
+            value = "postContent",
             key = "#postId",
-            unless = "#result == null or #result.viewCount <= 10"
+            sync = true
     )
     @Transactional(readOnly = true)
-    public PostResponse getPostByIdFromCacheOrDB(Long postId) {
+    public PostContent getPostContent(Long postId) {
         PostWithUserName postWithUserName = postRepository.findPostWithUsernameById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
-        return mapToPostResponse(postWithUserName.getPost(), postWithUserName.getUsername());
+        return mapToPostContent(postWithUserName.getPost(), postWithUserName.getUsername());
+    }
+
+    /**
+     * The newest posts of an author: one row more than {@link #AUTHOR_FIRST_PAGE_SIZE}, so
+     * callers can tell whether a second page exists. Evicted by the author's own post writes;
+     * the counts it carries age until the entry expires.
+     */
+    @Cacheable(
+            value = "authorPosts",
+            key = "#authorId",
+            sync = true
+    )
+    @Transactional(readOnly = true)
+    public List<PostSummaryResponse> getAuthorFirstPage(Long authorId) {
+        return new ArrayList<>(postRepository.findPublishedPostsByAuthor(authorId,
+                PageRequest.of(0, AUTHOR_FIRST_PAGE_SIZE + 1)));
+    }
+
+    /**
+     * The contents of many posts from one multi-key cache read, loading the misses with a
+     * single IN query and writing them back in one batch. Posts that do not exist are absent.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, PostContent> getPostContents(Collection<Long> postIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(postIds));
+        Map<Long, PostContent> contents = new HashMap<>();
+        Cache cache = cacheManager.getCache("postContent");
+        if (cache instanceof BatchCache) {
+            ((BatchCache) cache).getAll(ids).forEach((id, content) -> contents.put((Long) id, (PostContent) content));
+        } else if (cache != null) {
+            for (Long id : ids) {
+                PostContent content = cache.get(id, PostContent.class);
+                if (content != null) {
+                    contents.put(id, content);
+                }
+            }
+        }
+
+        List<Long> misses = ids.stream().filter(id -> !contents.containsKey(id)).collect(Collectors.toList());
+        if (misses.isEmpty()) {
+            return contents;
+        }
+        Map<Long, PostContent> loaded = postRepository.findPostsWithUsernameByIdIn(misses).stream()
+                .map(p -> mapToPostContent(p.getPost(), p.getUsername()))
+                .collect(Collectors.toMap(PostContent::getId, Function.identity()));
+        if (cache instanceof BatchCache) {
+            ((BatchCache) cache).putAll(loaded);
+        } else if (cache != null) {
+            loaded.forEach(cache::put);
+        }
+        contents.putAll(loaded);
+        return contents;
     }
 
-    private PostResponse mapToPostResponse(Post post, String username) {
-        PostResponse response = new PostResponse();
-        response.setId(post.getId());
-        response.setTitle(post.getTitle());
-        response.setContent(post.getContent());
-        response.setAuthorId(post.getAuthorId());
-        response.setAuthorUsername(username);
-        response.setCreatedAt(post.getCreatedAt());
-        response.setUpdatedAt(post.getUpdatedAt());
-        response.setViewCount(post.getViewCount());
-        response.setPublished(post.isPublished());
-        return response;
+    private PostContent mapToPostContent(Post post, String username) {
+        return new PostContent(
+                post.getId(),
+                post.getTitle(),
+                post.getContent(),
+                post.getAuthorId(),
+                username,
+                post.getCreatedAt(),
+                post.getUpdatedAt(),
+                post.isPublished()
+        );
     }
-}
\ No newline at end of file
+}
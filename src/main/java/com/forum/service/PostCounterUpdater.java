@@ -0,0 +1,47 @@
+package com.forum.service;
+
+import com.forum.cache.PostCounterCache;
+import com.forum.model.PostEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies post events to the cached comment counts and the trending ranking, in a way that
+ * is safe to repeat: counts of posts whose comments changed are dropped and reseeded from
+ * {@code posts.comment_count}, once per post and batch, and each new comment is ranked once
+ * by its id.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostCounterUpdater implements OutboxSubscriber {
+
+    private final PostCounterCache postCounterCache;
+    private final TrendingService trendingService;
+
+    @Override
+    public void handle(List<PostEvent> events) {
+        Set<Long> changedCounts = new LinkedHashSet<>();
+        for (PostEvent event : events) {
+            Long postId = event.getPostId();
+            switch (event.getType()) {
+                case COMMENT_CREATED:
+                    changedCounts.add(postId);
+                    trendingService.recordComment(postId, event.getComment().getId());
+                    break;
+                case COMMENT_DELETED:
+                    changedCounts.add(postId);
+                    break;
+                case POST_DELETED:
+                    trendingService.remove(postId);
+                    break;
+                default:
+                    break;
+            }
+        }
+        changedCounts.forEach(postCounterCache::evict);
+    }
+}
@@ -0,0 +1,97 @@
+package com.forum.service;
+
+import com.forum.cache.LoadLease;
+import com.forum.cache.RedisLoadLease;
+import com.forum.repository.PostRepository;
+import com.forum.util.PostExcerpt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Fills in the excerpt of posts written before the column existed.
+ * <p>
+ * Posts are walked in id ranges, one short transaction per range, so the job never locks
+ * more than a chunk of posts at a time. One node runs it, under a Redis lease, and a marker
+ * left once it finishes keeps later starts from scanning again. New posts get their excerpt
+ * when written, so the walk stops at the highest id seen when it starts.
+ */
+@Service
+public class PostExcerptBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostExcerptBackfillService.class);
+    private static final String LEASE_KEY = "backfill:post-excerpt";
+    static final String DONE_KEY = "backfill:post-excerpt:done";
+
+    private final PostRepository postRepository;
+    private final PostCacheInvalidator postCacheInvalidator;
+    private final StringRedisTemplate redisTemplate;
+    private final LoadLease lease;
+    private final int chunkSize;
+
+    @Autowired
+    public PostExcerptBackfillService(PostRepository postRepository,
+                                      PostCacheInvalidator postCacheInvalidator,
+                                      StringRedisTemplate redisTemplate,
+                                      @Value("${forum.post-excerpt.backfill-chunk-size:1000}") int chunkSize,
+                                      @Value("${forum.post-excerpt.backfill-lease-ttl:10m}") Duration leaseTtl) {
+        this(postRepository, postCacheInvalidator, redisTemplate, new RedisLoadLease(redisTemplate, leaseTtl),
+                chunkSize);
+    }
+
+    PostExcerptBackfillService(PostRepository postRepository,
+                               PostCacheInvalidator postCacheInvalidator,
+                               StringRedisTemplate redisTemplate,
+                               LoadLease lease,
+                               int chunkSize) {
+        this.postRepository = postRepository;
+        this.postCacheInvalidator = postCacheInvalidator;
+        this.redisTemplate = redisTemplate;
+        this.lease = lease;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(DONE_KEY))) {
+                return;
+            }
+            String token = lease.tryAcquire(LEASE_KEY);
+            if (token == null) {
+                // Another node is on it
+                return;
+            }
+            try {
+                int updated = backfill();
+                if (updated > 0) {
+                    logger.info("Backfilled excerpt for {} posts", updated);
+                    // Cached author pages were built with the empty excerpts
+                    postCacheInvalidator.allAuthorPagesChanged();
+                }
+                redisTemplate.opsForValue().set(DONE_KEY, "1");
+            } finally {
+                lease.release(LEASE_KEY, token);
+            }
+        } catch (RuntimeException e) {
+            // Affected posts list with an empty excerpt until a later start finishes the job
+            logger.warn("Post excerpt backfill failed: {}", e.getMessage());
+        }
+    }
+
+    public int backfill() {
+        long maxId = postRepository.findMaxId();
+        int updated = 0;
+        for (long afterId = 0; afterId < maxId; afterId += chunkSize) {
+            updated += postRepository.backfillExcerpts(afterId, afterId + chunkSize, PostExcerpt.MAX_LENGTH);
+        }
+        return updated;
+    }
+}
@@ -1,36 +1,65 @@
 package com.forum.service;
 
+import com.forum.cache.PostCounterCache;
+import com.forum.cache.VersionStamp;
 import com.forum.dto.request.PostRequest;
+import com.forum.dto.response.CursorPageResponse;
 import com.forum.dto.response.PostResponse;
+import com.forum.dto.response.PostSummaryResponse;
+import com.forum.exception.BadRequestException;
 import com.forum.exception.ResourceNotFoundException;
 import com.forum.model.Post;
+import com.forum.model.PostContent;
+import com.forum.model.PostCounters;
+import com.forum.model.PostEvent;
 import com.forum.model.PostWithUserName;
+import com.forum.model.ResourceVersion;
 import com.forum.model.User;
-import com.forum.repository.CommentRepository;
 import com.forum.repository.PostRepository;
 import com.forum.repository.UserRepository;
+import com.forum.util.PageCursor;
+import com.forum.util.PostExcerpt;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class PostService{
 
     private static final Logger logger = LoggerFactory.getLogger(PostService.class);
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    private static final int MAX_TRENDING_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 100;
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
-    private final CommentRepository commentRepository;
     private final PostCacheService postCacheService;
+    private final ViewCountService viewCountService;
+    private final PostCounterCache postCounterCache;
+    private final TrendingService trendingService;
+    private final VersionStamp feedVersion;
+    private final OutboxService outboxService;
 
     @Transactional
-    @CacheEvict(value = {"hotPosts"}, allEntries = true)
     public PostResponse createPost(PostRequest postRequest, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
@@ -38,38 +67,169 @@ public class PostService{
         Post post = new Post();
         post.setTitle(postRequest.getTitle());
         post.setContent(postRequest.getContent());
+        post.setExcerpt(PostExcerpt.of(postRequest.getContent()));
         post.setAuthorId(userId);
         post.setPublished(true);
         post.setViewCount(0);
 
         Post savedPost = postRepository.save(post);
+        outboxService.record(PostEvent.postCreated(savedPost.getId(), userId));
 
         return mapToPostResponse(savedPost, user.getUsername());
     }
 
-    @Transactional
     public PostResponse getPostById(Long postId) {
-        incrementViewCount(postId);
-        return postCacheService.getPostByIdFromCacheOrDB(postId);
+        PostContent content = postCacheService.getPostContent(postId);
+        PostCounters counters = getCounters(postId);
+        viewCountService.increment(postId);
+        // Views are written behind, so add the ones not yet flushed to MySQL
+        return mapToPostResponse(content,
+                counters.getViewCount() + (int) viewCountService.getPendingDelta(postId),
+                counters.getCommentCount());
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void incrementViewCount(Long postId) {
-        int updated = postRepository.incrementViewCount(postId);
-        if (updated == 0) {
-            throw new ResourceNotFoundException("Post not found with id: " + postId);
+    /**
+     * Many posts in one call, in the order asked for and without counting views. Contents and
+     * counters are each read from Redis in one round trip, and whatever is missing is loaded
+     * with one IN query per kind. Posts that do not exist are skipped.
+     */
+    public List<PostResponse> getPostsByIds(List<Long> postIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(postIds));
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_BATCH_SIZE + " posts can be fetched at once");
         }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, PostContent> contents = postCacheService.getPostContents(ids);
+        Map<Long, PostCounters> counters = postCounterCache.getAll(contents.keySet(), this::loadCounters);
+        return ids.stream()
+                .filter(contents::containsKey)
+                .map(id -> {
+                    PostCounters postCounters = counters.getOrDefault(id, new PostCounters());
+                    return mapToPostResponse(contents.get(id),
+                            postCounters.getViewCount() + (int) viewCountService.getPendingDelta(id),
+                            postCounters.getCommentCount());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Validators of a single post, taken from the cached content and counters so that a
+     * revalidation costs two cache lookups. The comment count is covered; the view count is
+     * not, hence the weak ETag. No Last-Modified is sent, since a new comment changes the post
+     * without moving its modification time.
+     */
+    public ResourceVersion getPostVersion(Long postId) {
+        PostContent content = postCacheService.getPostContent(postId);
+        long updatedAt = content.getUpdatedAt() == null ? -1
+                : content.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long commentCount = getCounters(postId).getCommentCount();
+        return new ResourceVersion("W/\"p" + postId + "-" + updatedAt + "-" + commentCount + "\"", -1);
+    }
+
+    /**
+     * Counts a view of a post that the client already holds and revalidated.
+     */
+    public void recordView(Long postId) {
+        viewCountService.increment(postId);
+    }
+
+    /**
+     * Weak ETag shared by every feed page, moved by any post being created, edited or deleted
+     * and by any comment being added or removed, or {@code null} when it cannot be read. View
+     * counts shown in the feed are not covered.
+     */
+    public String getFeedETag() {
+        String version = feedVersion.current();
+        return version == null ? null : "W/\"f" + version + "\"";
     }
 
     @Transactional(readOnly = true)
-    public Page<PostResponse> getAllPublishedPosts(Pageable pageable) {
-        Page<PostWithUserName> postWithUserNames = postRepository.findAllPublishedPostsWithAuthors(pageable);
-        return postWithUserNames.map(p ->
-                mapToPostResponse(p.getPost(), p.getUsername()));
+    public Page<PostSummaryResponse> getAllPublishedPosts(Pageable pageable) {
+        return postRepository.findPublishedPostSummaries(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponse<PostSummaryResponse> getPublishedPostFeed(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+        // One extra row tells whether another page exists without a COUNT query
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<PostSummaryResponse> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = postRepository.findPublishedPostFeed(limit);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            rows = postRepository.findPublishedPostFeedAfter(position.getCreatedAt(), position.getId(), limit);
+        }
+        return toCursorPage(rows, pageSize);
+    }
+
+    /**
+     * Published posts of one author, newest first, with the same cursor paging as the feed.
+     * First pages of up to {@link PostCacheService#AUTHOR_FIRST_PAGE_SIZE} posts are served
+     * from the author's cached first page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<PostSummaryResponse> getPostsByAuthor(Long authorId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<PostSummaryResponse> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = pageSize <= PostCacheService.AUTHOR_FIRST_PAGE_SIZE
+                    ? postCacheService.getAuthorFirstPage(authorId)
+                    : postRepository.findPublishedPostsByAuthor(authorId, limit);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            rows = postRepository.findPublishedPostsByAuthorAfter(authorId, position.getCreatedAt(), position.getId(), limit);
+        }
+        if (rows.isEmpty() && !userRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("User not found with id: " + authorId);
+        }
+        return toCursorPage(rows, pageSize);
+    }
+
+    private CursorPageResponse<PostSummaryResponse> toCursorPage(List<PostSummaryResponse> rows, int pageSize) {
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            PostSummaryResponse last = rows.get(rows.size() - 1);
+            nextCursor = PageCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPageResponse<>(rows, nextCursor, hasNext);
+    }
+
+    /**
+     * The posts with the most recent activity, best first. Ranked ids come from Redis and
+     * the posts themselves from one IN query; posts that are no longer published are skipped.
+     * View counts include the views not yet flushed, like every other post read.
+     */
+    @Transactional(readOnly = true)
+    public List<PostResponse> getTrendingPosts(int limit) {
+        List<Long> rankedIds = trendingService.getTopPostIds(Math.max(1, Math.min(limit, MAX_TRENDING_SIZE)));
+        if (rankedIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, PostWithUserName> postsById = postRepository.findPublishedPostsWithAuthorsByIdIn(rankedIds).stream()
+                .collect(Collectors.toMap(p -> p.getPost().getId(), Function.identity()));
+        return rankedIds.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .map(p -> {
+                    PostResponse response = mapToPostResponse(p.getPost(), p.getUsername());
+                    response.setViewCount(response.getViewCount() + (int) viewCountService.getPendingDelta(response.getId()));
+                    return response;
+                })
+                .collect(Collectors.toList());
     }
 
     @Transactional
-    @CacheEvict(value = {"hotPosts"}, key = "#postId")
     public PostResponse updatePost(Long postId, PostRequest postRequest, Long userId) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
@@ -80,7 +240,11 @@ public class PostService{
 
         post.setTitle(postRequest.getTitle());
         post.setContent(postRequest.getContent());
-        Post updatedPost = postRepository.save(post);
+        post.setExcerpt(PostExcerpt.of(postRequest.getContent()));
+        // Flushing takes the row lock before the event gets its id, so concurrent writes to
+        // the post are recorded in the order they commit
+        Post updatedPost = postRepository.saveAndFlush(post);
+        outboxService.record(PostEvent.postUpdated(postId, userId));
 
         String username = userRepository.findById(userId)
                 .map(User::getUsername)
@@ -90,7 +254,6 @@ public class PostService{
     }
 
     @Transactional
-    @CacheEvict(value = {"hotPosts", "comment:post"}, key = "#postId")
     public void deletePost(Long postId, Long userId) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
@@ -99,8 +262,39 @@ public class PostService{
             throw new SecurityException("You don't have permission to delete this post");
         }
 
-        commentRepository.deleteByPostId(postId);
-        postRepository.delete(post);
+        // Hidden from now on; CommentPurgeService removes the comments and the row in the background
+        post.setDeletedAt(LocalDateTime.now());
+        postRepository.saveAndFlush(post);
+        outboxService.record(PostEvent.postDeleted(postId, userId));
+    }
+
+    private PostCounters getCounters(Long postId) {
+        return postCounterCache.get(postId, () -> postRepository.findCountersById(postId)
+                .orElseGet(PostCounters::new));
+    }
+
+    private Map<Long, PostCounters> loadCounters(Collection<Long> postIds) {
+        Map<Long, PostCounters> counters = new HashMap<>();
+        for (Object[] row : postRepository.findCountersByIdIn(postIds)) {
+            counters.put(((Number) row[0]).longValue(),
+                    new PostCounters(((Number) row[1]).intValue(), ((Number) row[2]).longValue()));
+        }
+        return counters;
+    }
+
+    private PostResponse mapToPostResponse(PostContent content, int viewCount, long commentCount) {
+        return new PostResponse(
+                content.getId(),
+                content.getTitle(),
+                content.getContent(),
+                content.getAuthorId(),
+                content.getAuthorUsername(),
+                content.getCreatedAt(),
+                content.getUpdatedAt(),
+                viewCount,
+                content.isPublished(),
+                commentCount
+        );
     }
 
     private PostResponse mapToPostResponse(Post post, String username) {
@@ -114,6 +308,7 @@ public class PostService{
         response.setUpdatedAt(post.getUpdatedAt());
         response.setViewCount(post.getViewCount());
         response.setPublished(post.isPublished());
+        response.setCommentCount(post.getCommentCount());
         return response;
     }
 
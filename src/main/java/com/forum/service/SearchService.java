@@ -0,0 +1,262 @@
+package com.forum.service;
+
+import com.forum.dto.response.SearchHit;
+import com.forum.dto.response.SearchResponse;
+import com.forum.exception.BadRequestException;
+import com.forum.model.Comment;
+import com.forum.model.CommentWithUserName;
+import com.forum.model.Post;
+import com.forum.model.PostWithUserName;
+import com.forum.repository.CommentRepository;
+import com.forum.repository.PostRepository;
+import com.forum.util.SearchHighlighter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over posts and comments, backed by InnoDB FULLTEXT indexes with the ngram
+ * parser so that CJK text is tokenized as well as space-separated text.
+ * <p>
+ * InnoDB updates the indexes as part of every committed write, so search sees new and edited
+ * content immediately and there is no index lag to track. A search first ranks ids by
+ * relevance, then loads the matching rows through the same JPQL queries the feeds use and
+ * cuts a highlighted snippet from each. Query latency is exported over JMX, together with an
+ * operation that rebuilds the indexes.
+ */
+@Service
+@RequiredArgsConstructor
+@ManagedResource(objectName = "com.forum:type=Search", description = "Full-text search over posts and comments")
+public class SearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+    public static final String TYPE_POSTS = "posts";
+    public static final String TYPE_COMMENTS = "comments";
+    public static final int MAX_PAGE_SIZE = 50;
+    public static final int MAX_QUERY_LENGTH = 200;
+    // Deeper pages would make MySQL rank and skip every earlier match
+    public static final int MAX_RESULTS = 1000;
+    private static final int SNIPPET_LENGTH = 200;
+
+    static final List<FullTextIndex> INDEXES = Arrays.asList(
+            new FullTextIndex("posts", "ft_posts_title_content", "title, content"),
+            new FullTextIndex("comments", "ft_comments_content", "content"));
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${forum.search.create-missing-indexes:false}")
+    private boolean createMissingIndexes;
+
+    private final Object statsLock = new Object();
+    private long searches;
+    private long totalNanos;
+    private long maxNanos;
+    private volatile long lastRebuildMillis;
+
+    @Transactional(readOnly = true)
+    public SearchResponse search(String query, String type, int page, int size) {
+        String normalized = query == null ? "" : query.trim();
+        if (normalized.isEmpty()) {
+            throw new BadRequestException("Search query must not be empty");
+        }
+        if (normalized.length() > MAX_QUERY_LENGTH) {
+            throw new BadRequestException("Search query must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        int pageNumber = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if ((long) pageNumber * pageSize >= MAX_RESULTS) {
+            throw new BadRequestException("Only the first " + MAX_RESULTS + " results can be paged through");
+        }
+        int offset = pageNumber * pageSize;
+
+        long startedAt = System.nanoTime();
+        try {
+            List<SearchHit> hits;
+            if (TYPE_POSTS.equals(type)) {
+                hits = searchPosts(normalized, offset, pageSize);
+            } else if (TYPE_COMMENTS.equals(type)) {
+                hits = searchComments(normalized, offset, pageSize);
+            } else {
+                throw new BadRequestException("Search type must be '" + TYPE_POSTS + "' or '" + TYPE_COMMENTS + "'");
+            }
+            boolean hasNext = hits.size() > pageSize;
+            if (hasNext) {
+                hits = hits.subList(0, pageSize);
+            }
+            hasNext = hasNext && offset + pageSize < MAX_RESULTS;
+            return new SearchResponse(hits, pageNumber, hasNext);
+        } finally {
+            record(System.nanoTime() - startedAt);
+        }
+    }
+
+    private List<SearchHit> searchPosts(String query, int offset, int size) {
+        // One extra row tells whether another page exists without a COUNT query
+        Map<Long, Double> scores = toScores(postRepository.searchPublishedPostIds(query, size + 1, offset));
+        if (scores.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, PostWithUserName> postsById = postRepository.findPublishedPostsWithAuthorsByIdIn(scores.keySet()).stream()
+                .collect(Collectors.toMap(p -> p.getPost().getId(), Function.identity()));
+        List<SearchHit> hits = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> {
+            PostWithUserName row = postsById.get(id);
+            if (row != null) {
+                Post post = row.getPost();
+                String text = post.getTitle() + " " + post.getContent();
+                hits.add(new SearchHit("post", post.getId(), post.getId(), post.getTitle(), row.getUsername(),
+                        post.getCreatedAt(), score, SearchHighlighter.highlight(text, query, SNIPPET_LENGTH)));
+            }
+        });
+        return hits;
+    }
+
+    private List<SearchHit> searchComments(String query, int offset, int size) {
+        Map<Long, Double> scores = toScores(commentRepository.searchCommentIds(query, size + 1, offset));
+        if (scores.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, CommentWithUserName> commentsById = commentRepository.findWithUsernamesByIdIn(scores.keySet()).stream()
+                .collect(Collectors.toMap(c -> c.getComment().getId(), Function.identity()));
+        List<SearchHit> hits = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> {
+            CommentWithUserName row = commentsById.get(id);
+            if (row != null) {
+                Comment comment = row.getComment();
+                hits.add(new SearchHit("comment", comment.getId(), comment.getPostId(), null, row.getUsername(),
+                        comment.getCreatedAt(), score, SearchHighlighter.highlight(comment.getContent(), query, SNIPPET_LENGTH)));
+            }
+        });
+        return hits;
+    }
+
+    // Keeps the relevance order of the rows
+    private static Map<Long, Double> toScores(List<Object[]> rows) {
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            scores.put(((Number) row[0]).longValue(), ((Number) row[1]).doubleValue());
+        }
+        return scores;
+    }
+
+    /**
+     * Reports any missing FULLTEXT index on startup. Databases created from the init script
+     * already have them, and existing ones get them from
+     * {@code mysql-init/migrations/016_search_fulltext_indexes.sql}. Building one blocks writes
+     * to its table, so creating it here is off by default; when enabled, every node starting
+     * at the same time would race on the same ALTER.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        for (FullTextIndex index : INDEXES) {
+            try {
+                if (indexExists(index)) {
+                    continue;
+                }
+                if (!createMissingIndexes) {
+                    logger.warn("FULLTEXT index {} on {} is missing, search will fail until it is built",
+                            index.name, index.table);
+                    continue;
+                }
+                logger.info("Creating FULLTEXT index {} on {}", index.name, index.table);
+                jdbcTemplate.execute("ALTER TABLE " + index.table + " ADD " + index.definition());
+            } catch (RuntimeException e) {
+                logger.error("Failed to check FULLTEXT index {} on {}: {}", index.name, index.table, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drops and recreates every search index, for example after changing the ngram token
+     * size. Writes to each table wait while its index is built.
+     */
+    @ManagedOperation(description = "Rebuild the FULLTEXT indexes used by search")
+    public synchronized void rebuildIndexes() {
+        long startedAt = System.currentTimeMillis();
+        for (FullTextIndex index : INDEXES) {
+            String ddl = indexExists(index)
+                    ? "ALTER TABLE " + index.table + " DROP INDEX " + index.name + ", ADD " + index.definition()
+                    : "ALTER TABLE " + index.table + " ADD " + index.definition();
+            jdbcTemplate.execute(ddl);
+            logger.info("Rebuilt FULLTEXT index {} on {}", index.name, index.table);
+        }
+        lastRebuildMillis = System.currentTimeMillis() - startedAt;
+    }
+
+    private boolean indexExists(FullTextIndex index) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                        "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?",
+                Integer.class, index.table, index.name);
+        return count != null && count > 0;
+    }
+
+    private void record(long nanos) {
+        synchronized (statsLock) {
+            searches++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+    }
+
+    @ManagedAttribute(description = "Searches served since startup")
+    public long getSearches() {
+        synchronized (statsLock) {
+            return searches;
+        }
+    }
+
+    @ManagedAttribute(description = "Mean search latency in milliseconds")
+    public double getAverageLatencyMillis() {
+        synchronized (statsLock) {
+            return searches == 0 ? 0 : totalNanos / 1_000_000.0 / searches;
+        }
+    }
+
+    @ManagedAttribute(description = "Slowest search since startup in milliseconds")
+    public double getMaxLatencyMillis() {
+        synchronized (statsLock) {
+            return maxNanos / 1_000_000.0;
+        }
+    }
+
+    @ManagedAttribute(description = "Duration of the last index rebuild in milliseconds")
+    public long getLastRebuildMillis() {
+        return lastRebuildMillis;
+    }
+
+    static final class FullTextIndex {
+        final String table;
+        final String name;
+        final String columns;
+
+        FullTextIndex(String table, String name, String columns) {
+            this.table = table;
+            this.name = name;
+            this.columns = columns;
+        }
+
+        String definition() {
+            return "FULLTEXT INDEX " + name + " (" + columns + ") WITH PARSER ngram";
+        }
+    }
+}
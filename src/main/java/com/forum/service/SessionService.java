@@ -0,0 +1,203 @@
+package com.forum.service;
+
+import com.forum.exception.InvalidTokenException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+
+/**
+ * Login sessions backed by Redis, one per device, each holding a refresh token that can be
+ * exchanged for a new access token without checking the password again.
+ * <p>
+ * All sessions of a user live in one hash, {@code auth:sessions:{userId}}, keyed by session
+ * id. Each entry holds the SHA-256 of the current refresh secret, its expiry and the device
+ * description. Expiry slides: every refresh pushes it out by {@code refresh-ttl}. Refresh
+ * tokens are single use. Each refresh issues a new secret, and presenting a secret that was
+ * already replaced ends the session, because that means the token was copied.
+ * <p>
+ * Ending a session stops further refreshes. Access tokens already issued stay valid until
+ * they expire, so they are kept short-lived.
+ */
+@Service
+public class SessionService {
+
+    static final String KEY_PREFIX = "auth:sessions:";
+    private static final String SEPARATOR = "|";
+    private static final int SECRET_BYTES = 32;
+    private static final int SESSION_ID_BYTES = 12;
+    private static final int MAX_DEVICE_LENGTH = 200;
+
+    // KEYS: user sessions. ARGV: session id, entry, now ms, ttl ms, max sessions.
+    // Drops expired sessions and, at the limit, the one closest to expiry before adding the new one.
+    private static final RedisScript<Long> CREATE_SCRIPT = new DefaultRedisScript<>(
+            "local fields = redis.call('HGETALL', KEYS[1]) " +
+            "local now = tonumber(ARGV[3]) " +
+            "local live, oldest, oldestExpiry = 0, nil, nil " +
+            "for i = 1, #fields, 2 do " +
+            "  local expiry = tonumber(string.match(fields[i + 1], '^[^|]*|([^|]*)|')) " +
+            "  if expiry == nil or expiry <= now then " +
+            "    redis.call('HDEL', KEYS[1], fields[i]) " +
+            "  else " +
+            "    live = live + 1 " +
+            "    if oldestExpiry == nil or expiry < oldestExpiry then oldest, oldestExpiry = fields[i], expiry end " +
+            "  end " +
+            "end " +
+            "if live >= tonumber(ARGV[5]) and oldest then redis.call('HDEL', KEYS[1], oldest) end " +
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[4]) " +
+            "return 1", Long.class);
+
+    // KEYS: user sessions. ARGV: session id, presented secret hash, new entry without device, now ms, ttl ms.
+    // Returns 1 if rotated, 0 if the session is gone or expired, -1 if the secret was already used.
+    private static final RedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>(
+            "local entry = redis.call('HGET', KEYS[1], ARGV[1]) " +
+            "if not entry then return 0 end " +
+            "local hash, expiry, device = string.match(entry, '^([^|]*)|([^|]*)|(.*)$') " +
+            "if tonumber(expiry) <= tonumber(ARGV[4]) then " +
+            "  redis.call('HDEL', KEYS[1], ARGV[1]) " +
+            "  return 0 " +
+            "end " +
+            "if hash ~= ARGV[2] then " +
+            "  redis.call('HDEL', KEYS[1], ARGV[1]) " +
+            "  return -1 " +
+            "end " +
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[3] .. device) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[5]) " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration refreshTtl;
+    private final int maxSessionsPerUser;
+    private final SecureRandom random = new SecureRandom();
+
+    public SessionService(StringRedisTemplate redisTemplate,
+                          @Value("${forum.auth.session.refresh-ttl:14d}") Duration refreshTtl,
+                          @Value("${forum.auth.session.max-per-user:10}") int maxSessionsPerUser) {
+        this.redisTemplate = redisTemplate;
+        this.refreshTtl = refreshTtl;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+    }
+
+    /**
+     * Opens a session for the user and returns its refresh token.
+     */
+    public String createSession(Long userId, String device) {
+        String sessionId = randomToken(SESSION_ID_BYTES);
+        String secret = randomToken(SECRET_BYTES);
+        long now = System.currentTimeMillis();
+        redisTemplate.execute(CREATE_SCRIPT, Collections.singletonList(KEY_PREFIX + userId),
+                sessionId, entry(secret, now, device), String.valueOf(now),
+                String.valueOf(refreshTtl.toMillis()), String.valueOf(maxSessionsPerUser));
+        return format(userId, sessionId, secret);
+    }
+
+    /**
+     * Exchanges a refresh token for a new one on the same session.
+     *
+     * @throws InvalidTokenException if the token is malformed, expired, revoked or was already used
+     */
+    public RefreshedSession refresh(String refreshToken) {
+        ParsedToken token = parse(refreshToken);
+        String secret = randomToken(SECRET_BYTES);
+        long now = System.currentTimeMillis();
+        // The script appends the device recorded when the session was created
+        Long result = redisTemplate.execute(ROTATE_SCRIPT, Collections.singletonList(KEY_PREFIX + token.userId),
+                token.sessionId, hash(token.secret), entry(secret, now, null), String.valueOf(now),
+                String.valueOf(refreshTtl.toMillis()));
+        if (result == null || result != 1L) {
+            throw new InvalidTokenException(result != null && result == -1L
+                    ? "Refresh token has already been used"
+                    : "Session has expired or been closed");
+        }
+        return new RefreshedSession(token.userId, format(token.userId, token.sessionId, secret));
+    }
+
+    /**
+     * Ends the session the refresh token belongs to. Unknown or malformed tokens are ignored.
+     */
+    public void endSession(String refreshToken) {
+        ParsedToken token;
+        try {
+            token = parse(refreshToken);
+        } catch (InvalidTokenException e) {
+            return;
+        }
+        redisTemplate.opsForHash().delete(KEY_PREFIX + token.userId, token.sessionId);
+    }
+
+    /**
+     * Ends every session of the user.
+     */
+    public void endAllSessions(Long userId) {
+        redisTemplate.delete(KEY_PREFIX + userId);
+    }
+
+    public Duration getRefreshTtl() {
+        return refreshTtl;
+    }
+
+    private String entry(String secret, long now, String device) {
+        String entry = hash(secret) + SEPARATOR + (now + refreshTtl.toMillis()) + SEPARATOR;
+        if (device == null) {
+            return entry;
+        }
+        return entry + (device.length() > MAX_DEVICE_LENGTH ? device.substring(0, MAX_DEVICE_LENGTH) : device);
+    }
+
+    private String randomToken(int bytes) {
+        byte[] buffer = new byte[bytes];
+        random.nextBytes(buffer);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer);
+    }
+
+    private static String format(Long userId, String sessionId, String secret) {
+        return userId + "." + sessionId + "." + secret;
+    }
+
+    private static ParsedToken parse(String refreshToken) {
+        String[] parts = refreshToken == null ? new String[0] : refreshToken.split("\\.");
+        if (parts.length != 3 || parts[1].isEmpty() || parts[2].isEmpty()) {
+            throw new InvalidTokenException("Malformed refresh token");
+        }
+        try {
+            return new ParsedToken(Long.parseLong(parts[0]), parts[1], parts[2]);
+        } catch (NumberFormatException e) {
+            throw new InvalidTokenException("Malformed refresh token");
+        }
+    }
+
+    private static String hash(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RefreshedSession {
+        private final Long userId;
+        private final String refreshToken;
+    }
+
+    @AllArgsConstructor
+    private static class ParsedToken {
+        private final Long userId;
+        private final String sessionId;
+        private final String secret;
+    }
+}
@@ -1,33 +0,0 @@
-package com.forum.service;
-
-import com.forum.util.JwtUtil;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.stereotype.Service;
-
-@Service
-public class TokenCacheService {
-
-    @Autowired
-    JwtUtil jwtUtil;
-
-    @Autowired
-    AuthenticationManager authenticationManager;
-
-    @Cacheable(
-            value = "userTokens",
-            key = "#username",
-            unless = "#result == null"
-    )
-    public String getOrGenerateToken(String username, String password) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(username, password)
-        );
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        return jwtUtil.generateJwtToken(authentication);
-    }
-}
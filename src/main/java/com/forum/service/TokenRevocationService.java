@@ -0,0 +1,74 @@
+package com.forum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Per-user "tokens issued before" cutoff, so that tokens can be invalidated (logout
+ * everywhere, password change, deactivated account) without a database lookup on every
+ * request. The cutoff is set through {@link AuthService#logoutEverywhere}.
+ * <p>
+ * The cutoff lives in Redis for as long as a token can live and is cached in-process for a
+ * few seconds; a revocation therefore takes effect immediately on the node that issued it
+ * and within {@code forum.auth.revocation-check-ttl} everywhere else. If Redis cannot be
+ * reached, tokens are accepted rather than locking every user out.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+    private static final String KEY_PREFIX = "auth:revoked-before:";
+    private static final long NOT_REVOKED = 0L;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration tokenLifetime;
+    private final Cache<Long, Long> cutoffs;
+
+    public TokenRevocationService(StringRedisTemplate redisTemplate,
+                                  @Value("${jwt.expiration}") long jwtExpirationMs,
+                                  @Value("${forum.auth.revocation-check-ttl:30s}") Duration checkTtl) {
+        this.redisTemplate = redisTemplate;
+        this.tokenLifetime = Duration.ofMillis(jwtExpirationMs);
+        this.cutoffs = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(checkTtl)
+                .build();
+    }
+
+    /**
+     * Invalidates every token issued to the user up to now.
+     */
+    public void revokeAllTokens(Long userId) {
+        // JWT iat has second precision, so the cutoff does too
+        long cutoff = Instant.now().getEpochSecond();
+        redisTemplate.opsForValue().set(KEY_PREFIX + userId, String.valueOf(cutoff), tokenLifetime);
+        cutoffs.put(userId, cutoff);
+    }
+
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        long cutoff = cutoffs.get(userId, this::loadCutoff);
+        if (cutoff == NOT_REVOKED) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.getTime() / 1000 < cutoff;
+    }
+
+    private long loadCutoff(Long userId) {
+        try {
+            String value = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+            return value == null ? NOT_REVOKED : Long.parseLong(value);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read token revocation for user {}: {}", userId, e.getMessage());
+            return NOT_REVOKED;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.forum.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ranks posts by recent activity in a Redis sorted set, with scores that halve every
+ * {@code half-life}.
+ * <p>
+ * Rather than decaying every score as time passes, each event is added with a weight that
+ * grows by {@code 2^((now - epoch) / halfLife)}. Relative order is the same as if all older
+ * scores had decayed, so reading the top N is a plain ZREVRANGE. To keep the numbers small a
+ * scheduled job rescales every score to a new epoch and drops posts whose score has fallen
+ * below what a single view would be worth after {@code window}.
+ * <p>
+ * Ranking is best effort: Redis failures are logged and never fail the request that
+ * produced the event.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+    static final String RANKING_KEY = "trending:posts";
+    static final String EPOCH_KEY = "trending:epoch";
+    static final String COMMENT_MARKER_PREFIX = "trending:comment:";
+
+    // KEYS: ranking, epoch. ARGV: now ms, half-life ms, then member/weight pairs
+    private static final RedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[1]) " +
+            "local epoch = tonumber(redis.call('GET', KEYS[2])) " +
+            "if not epoch then " +
+            "  epoch = now " +
+            "  redis.call('SET', KEYS[2], ARGV[1]) " +
+            "end " +
+            "local boost = 2 ^ ((now - epoch) / tonumber(ARGV[2])) " +
+            "for i = 3, #ARGV, 2 do " +
+            "  redis.call('ZINCRBY', KEYS[1], tonumber(ARGV[i + 1]) * boost, ARGV[i]) " +
+            "end " +
+            "return 1", Long.class);
+
+    // KEYS: ranking, epoch, marker. ARGV: now ms, half-life ms, marker ttl seconds, member, weight.
+    // Adds the weight only if the marker was not set yet, so a repeated event counts once.
+    private static final RedisScript<Long> RECORD_ONCE_SCRIPT = new DefaultRedisScript<>(
+            "if not redis.call('SET', KEYS[3], '1', 'NX', 'EX', ARGV[3]) then return 0 end " +
+            "local now = tonumber(ARGV[1]) " +
+            "local epoch = tonumber(redis.call('GET', KEYS[2])) " +
+            "if not epoch then " +
+            "  epoch = now " +
+            "  redis.call('SET', KEYS[2], ARGV[1]) " +
+            "end " +
+            "redis.call('ZINCRBY', KEYS[1], tonumber(ARGV[5]) * 2 ^ ((now - epoch) / tonumber(ARGV[2])), ARGV[4]) " +
+            "return 1", Long.class);
+
+    // KEYS: ranking, epoch. ARGV: now ms, half-life ms, min score, max size.
+    // Moves all scores to the epoch "now", drops faded posts and trims to the max size.
+    private static final RedisScript<Long> RENORMALIZE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[1]) " +
+            "local epoch = tonumber(redis.call('GET', KEYS[2])) " +
+            "if not epoch then return 0 end " +
+            "local factor = 2 ^ (-(now - epoch) / tonumber(ARGV[2])) " +
+            "local minScore = tonumber(ARGV[3]) " +
+            "local entries = redis.call('ZRANGE', KEYS[1], 0, -1, 'WITHSCORES') " +
+            "for i = 1, #entries, 2 do " +
+            "  local score = tonumber(entries[i + 1]) * factor " +
+            "  if score < minScore then " +
+            "    redis.call('ZREM', KEYS[1], entries[i]) " +
+            "  else " +
+            "    redis.call('ZADD', KEYS[1], score, entries[i]) " +
+            "  end " +
+            "end " +
+            "redis.call('SET', KEYS[2], ARGV[1]) " +
+            "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[4]) + 1)) " +
+            "return redis.call('ZCARD', KEYS[1])", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration halfLife;
+    private final Duration window;
+    private final int maxSize;
+    private final double viewWeight;
+    private final double commentWeight;
+
+    public TrendingService(StringRedisTemplate redisTemplate,
+                           @Value("${forum.trending.half-life:6h}") Duration halfLife,
+                           @Value("${forum.trending.window:3d}") Duration window,
+                           @Value("${forum.trending.max-size:10000}") int maxSize,
+                           @Value("${forum.trending.view-weight:1}") double viewWeight,
+                           @Value("${forum.trending.comment-weight:5}") double commentWeight) {
+        this.redisTemplate = redisTemplate;
+        this.halfLife = halfLife;
+        this.window = window;
+        this.maxSize = maxSize;
+        this.viewWeight = viewWeight;
+        this.commentWeight = commentWeight;
+    }
+
+    /**
+     * Adds a batch of view counts, as drained by {@link ViewCountService}.
+     */
+    public void recordViews(Map<Long, Long> viewsByPost) {
+        if (viewsByPost.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(2 + 2 * viewsByPost.size());
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(halfLife.toMillis()));
+        viewsByPost.forEach((postId, views) -> {
+            args.add(String.valueOf(postId));
+            args.add(String.valueOf(views * viewWeight));
+        });
+        record(args, viewsByPost.size() + " posts");
+    }
+
+    /**
+     * Adds a new comment to the ranking of its post. Each comment counts once however often
+     * it is reported; the marker outlives the window, after which its weight has faded.
+     */
+    public void recordComment(Long postId, Long commentId) {
+        try {
+            redisTemplate.execute(RECORD_ONCE_SCRIPT,
+                    Arrays.asList(RANKING_KEY, EPOCH_KEY, COMMENT_MARKER_PREFIX + commentId),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(halfLife.toMillis()),
+                    String.valueOf(window.getSeconds()), String.valueOf(postId), String.valueOf(commentWeight));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update trending score of post {}: {}", postId, e.getMessage());
+        }
+    }
+
+    public void remove(Long postId) {
+        try {
+            redisTemplate.opsForZSet().remove(RANKING_KEY, String.valueOf(postId));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to remove post {} from trending: {}", postId, e.getMessage());
+        }
+    }
+
+    /**
+     * Ids of the highest ranked posts, best first.
+     */
+    public List<Long> getTopPostIds(int limit) {
+        try {
+            Set<String> members = redisTemplate.opsForZSet().reverseRange(RANKING_KEY, 0, limit - 1);
+            if (members == null) {
+                return Collections.emptyList();
+            }
+            return members.stream().map(Long::valueOf).collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read trending posts: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${forum.trending.renormalize-interval-ms:3600000}",
+            initialDelayString = "${forum.trending.renormalize-interval-ms:3600000}")
+    public void renormalize() {
+        // What one view is worth once it is a full window old
+        double minScore = viewWeight * Math.pow(2, -(double) window.toMillis() / halfLife.toMillis());
+        try {
+            Long size = redisTemplate.execute(RENORMALIZE_SCRIPT, Arrays.asList(RANKING_KEY, EPOCH_KEY),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(halfLife.toMillis()),
+                    String.valueOf(minScore), String.valueOf(maxSize));
+            logger.debug("Renormalized trending scores, {} posts ranked", size);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to renormalize trending scores: {}", e.getMessage());
+        }
+    }
+
+    private void record(List<String> args, String what) {
+        try {
+            redisTemplate.execute(RECORD_SCRIPT, Arrays.asList(RANKING_KEY, EPOCH_KEY), args.toArray());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update trending score of {}: {}", what, e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.forum.service;
 
 import com.forum.model.User;
+import com.forum.model.UserPrincipal;
 import com.forum.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,10 +22,6 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
 
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPasswordHash())
-                .roles("USER")
-                .build();
+        return UserPrincipal.fromUser(user);
     }
 }
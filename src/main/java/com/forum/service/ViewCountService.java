@@ -0,0 +1,138 @@
+package com.forum.service;
+
+import com.forum.cache.PostCounterCache;
+import com.forum.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers post view increments in memory and writes them to MySQL in batches.
+ * <p>
+ * Page views only touch a striped {@link LongAdder} per post; a scheduled flush drains the
+ * adders and applies the deltas with one multi-row UPDATE per distinct delta value, so a
+ * popular post costs one row update per flush interval instead of one per request. Each
+ * batch that reaches MySQL also feeds the {@link TrendingService} ranking, so a batch that
+ * is re-queued after a failure is only ranked once.
+ */
+@Service
+@RequiredArgsConstructor
+public class ViewCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCountService.class);
+
+    private final PostRepository postRepository;
+    private final TrendingService trendingService;
+    private final PostCounterCache postCounterCache;
+
+    @Value("${forum.view-count.batch-size:500}")
+    private int batchSize = 500;
+
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // Deltas drained from pending but not yet in the cached counters, still visible to readers
+    private final ConcurrentHashMap<Long, Long> inFlight = new ConcurrentHashMap<>();
+
+    // Adders removed by the previous flush; a request that looked one up just before its
+    // removal may still add to it, so they are drained once more on the next flush.
+    private Map<Long, LongAdder> retired = new HashMap<>();
+
+    public void increment(Long postId) {
+        pending.computeIfAbsent(postId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Views recorded on this node that are not yet reflected in {@code posts.view_count}.
+     */
+    public long getPendingDelta(Long postId) {
+        LongAdder adder = pending.get(postId);
+        long delta = adder == null ? 0 : adder.sum();
+        return delta + inFlight.getOrDefault(postId, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${forum.view-count.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, Long> deltas = new HashMap<>();
+        retired.forEach((postId, adder) -> addDelta(deltas, postId, adder.sumThenReset()));
+
+        Map<Long, LongAdder> removed = new HashMap<>();
+        for (Long postId : pending.keySet()) {
+            LongAdder adder = pending.remove(postId);
+            if (adder != null) {
+                removed.put(postId, adder);
+                addDelta(deltas, postId, adder.sumThenReset());
+            }
+        }
+        retired = removed;
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+        inFlight.putAll(deltas);
+        try {
+            writeDeltas(deltas);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        // Nothing can race with shutdown any more, so the retired adders are final
+        flush();
+    }
+
+    private void writeDeltas(Map<Long, Long> deltas) {
+        // Group posts by delta so each statement updates many rows; ids are sorted so that
+        // concurrent flushes on other nodes take row locks in the same order.
+        Map<Long, List<Long>> postIdsByDelta = new TreeMap<>();
+        new TreeMap<>(deltas).forEach((postId, delta) ->
+                postIdsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(postId));
+
+        int written = 0;
+        for (Map.Entry<Long, List<Long>> group : postIdsByDelta.entrySet()) {
+            List<Long> postIds = group.getValue();
+            for (int from = 0; from < postIds.size(); from += batchSize) {
+                List<Long> batch = postIds.subList(from, Math.min(from + batchSize, postIds.size()));
+                try {
+                    postRepository.incrementViewCounts(batch, group.getKey().intValue());
+                    postCounterCache.addViews(batch, group.getKey());
+                    // The cached counters now include the batch, so readers must stop adding it
+                    batch.forEach(inFlight::remove);
+                    trendingService.recordViews(toDeltas(batch, group.getKey()));
+                    written += batch.size();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to flush view counts for {} posts, re-queueing: {}", batch.size(), e.getMessage());
+                    batch.forEach(postId -> pending.computeIfAbsent(postId, id -> new LongAdder()).add(group.getKey()));
+                    batch.forEach(inFlight::remove);
+                }
+            }
+        }
+        logger.debug("Flushed view counts for {} posts", written);
+    }
+
+    private static Map<Long, Long> toDeltas(List<Long> postIds, Long delta) {
+        Map<Long, Long> deltas = new HashMap<>();
+        postIds.forEach(postId -> deltas.put(postId, delta));
+        return deltas;
+    }
+
+    private static void addDelta(Map<Long, Long> deltas, Long postId, long delta) {
+        if (delta != 0) {
+            deltas.merge(postId, delta, Long::sum);
+        }
+    }
+}
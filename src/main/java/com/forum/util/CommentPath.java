@@ -0,0 +1,39 @@
+package com.forum.util;
+
+/**
+ * Materialized path of a comment: the fixed-width base-36 ids of its ancestors and itself,
+ * each followed by {@code /}. Fixed-width segments keep lexical order equal to depth-first
+ * order by id, and a subtree is every comment whose path starts with the root's path.
+ */
+public final class CommentPath {
+
+    /** Deepest reply level unless {@code forum.comment-tree.max-depth} says otherwise; roots are at depth 0. */
+    public static final int DEFAULT_MAX_DEPTH = 20;
+
+    private static final int SEGMENT_WIDTH = 8;
+    private static final char SEPARATOR = '/';
+    private static final int COLUMN_LENGTH = 255;
+
+    /** Deepest reply level whose path still fits the {@code comments.path} column. */
+    public static final int DEPTH_LIMIT = COLUMN_LENGTH / (SEGMENT_WIDTH + 1) - 1;
+
+    private CommentPath() {
+    }
+
+    public static String root(long id) {
+        return segment(id);
+    }
+
+    public static String child(String parentPath, long id) {
+        return parentPath + segment(id);
+    }
+
+    private static String segment(long id) {
+        String digits = Long.toString(id, 36);
+        StringBuilder segment = new StringBuilder(SEGMENT_WIDTH + 1);
+        for (int i = digits.length(); i < SEGMENT_WIDTH; i++) {
+            segment.append('0');
+        }
+        return segment.append(digits).append(SEPARATOR).toString();
+    }
+}
@@ -1,61 +1,153 @@
 package com.forum.util;
 
+import com.forum.model.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+
     @Value("${jwt.secret}")
     protected String jwtSecret;
 
     @Value("${jwt.expiration}")
     protected int jwtExpirationMs;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    protected long verifiedCacheSize = 10000;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private Cache<String, Claims> verifiedTokens;
+
+    /**
+     * Builds the signing key, parser and verified-token cache; must run again after the
+     * secret changes.
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.trim().getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
     public String generateJwtToken(Authentication authentication) {
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
+        return generateJwtToken((UserDetails) authentication.getPrincipal());
+    }
 
-        return Jwts.builder()
+    public String generateJwtToken(UserDetails userPrincipal) {
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userPrincipal.getUsername())
+                .claim(CLAIM_ROLES, userPrincipal.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .collect(Collectors.toList()));
+        if (userPrincipal instanceof UserPrincipal) {
+            builder.claim(CLAIM_USER_ID, ((UserPrincipal) userPrincipal).getId());
+        }
+        return builder
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.trim().getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public long getExpirationSeconds() {
+        return jwtExpirationMs / 1000L;
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verifyJwtToken(token).getSubject();
+    }
+
+    public Claims getClaimsFromJwtToken(String token) {
+        return verifyJwtToken(token);
+    }
+
+    /**
+     * Verifies a token and returns its claims, parsing and checking the signature at most once
+     * per distinct token until it expires. The returned claims are shared and must not be modified.
+     *
+     * @throws JwtException if the token is malformed, expired, unsupported or wrongly signed
+     */
+    public Claims verifyJwtToken(String token) {
+        if (token == null || token.isEmpty()) {
+            logger.error("JWT claims string is empty");
+            throw new JwtException("JWT claims string is empty");
+        }
+        String digest = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parse(token);
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Rebuilds the authenticated user from verified claims, or returns {@code null} for tokens
+     * issued before the user id claim was added.
+     */
+    public UserPrincipal getPrincipalFromClaims(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        if (userId == null) {
+            return null;
+        }
+        List<SimpleGrantedAuthority> authorities;
+        Object roles = claims.get(CLAIM_ROLES);
+        if (roles instanceof Collection) {
+            authorities = ((Collection<?>) roles).stream()
+                    .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                    .collect(Collectors.toList());
+        } else {
+            authorities = List.of(new SimpleGrantedAuthority(UserPrincipal.DEFAULT_ROLE));
+        }
+        return new UserPrincipal(userId.longValue(), claims.getSubject(), null, authorities, true);
     }
 
     public boolean validateJwtToken(String authToken) {
+        verifyJwtToken(authToken);
+        return true;
+    }
+
+    private Claims parse(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
             throw new JwtException("Invalid JWT token");
@@ -73,4 +165,33 @@ public class JwtUtil {
             throw new JwtException("JWT signature does not match");
         }
     }
+
+    // Cache key that does not keep the bearer token itself in memory
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Keeps each verified token only until it expires
+    private static class UntilTokenExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package com.forum.util;
+
+/**
+ * The leading text of a post as shown in feed listings: whitespace runs collapsed to single
+ * spaces and cut to {@link #MAX_LENGTH} characters. Computed when a post is written so that
+ * feed queries never have to read the content column.
+ */
+public final class PostExcerpt {
+
+    /** Length of {@code posts.excerpt}, counted in characters like MySQL does. */
+    public static final int MAX_LENGTH = 200;
+
+    private PostExcerpt() {
+    }
+
+    public static String of(String content) {
+        if (content == null) {
+            return "";
+        }
+        String collapsed = content.replaceAll("\\s+", " ").trim();
+        if (collapsed.codePointCount(0, collapsed.length()) <= MAX_LENGTH) {
+            return collapsed;
+        }
+        // Count code points, so an emoji is never split in half
+        return collapsed.substring(0, collapsed.offsetByCodePoints(0, MAX_LENGTH)).trim();
+    }
+}
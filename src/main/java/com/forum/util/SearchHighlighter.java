@@ -0,0 +1,95 @@
+package com.forum.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Cuts a snippet around the first query term found in a text and wraps every term occurrence
+ * in {@code <em>} tags. Everything else is HTML-escaped, so the snippet is safe to render as
+ * markup. Terms are matched case-insensitively as plain substrings, which also suits CJK
+ * text that has no spaces between words.
+ */
+public final class SearchHighlighter {
+
+    private static final String ELLIPSIS = "…";
+
+    private SearchHighlighter() {
+    }
+
+    public static String highlight(String text, String query, int maxLength) {
+        if (text == null) {
+            return "";
+        }
+        List<String> terms = terms(query);
+        int first = firstMatch(text, terms);
+        int start = first < 0 ? 0 : Math.max(0, first - maxLength / 4);
+        int end = Math.min(text.length(), start + maxLength);
+
+        StringBuilder snippet = new StringBuilder(maxLength + 32);
+        if (start > 0) {
+            snippet.append(ELLIPSIS);
+        }
+        int i = start;
+        while (i < end) {
+            String term = termAt(text, i, end, terms);
+            if (term != null) {
+                snippet.append("<em>");
+                escape(text, i, i + term.length(), snippet);
+                snippet.append("</em>");
+                i += term.length();
+            } else {
+                escape(text, i, i + 1, snippet);
+                i++;
+            }
+        }
+        if (end < text.length()) {
+            snippet.append(ELLIPSIS);
+        }
+        return snippet.toString();
+    }
+
+    // Longest first, so a term is never cut short by a shorter term it starts with
+    private static List<String> terms(String query) {
+        return Arrays.stream(query.trim().split("\\s+"))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term.toLowerCase(Locale.ROOT))
+                .distinct()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private static int firstMatch(String text, List<String> terms) {
+        for (int i = 0; i < text.length(); i++) {
+            if (termAt(text, i, text.length(), terms) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String termAt(String text, int offset, int end, List<String> terms) {
+        for (String term : terms) {
+            if (offset + term.length() <= end && text.regionMatches(true, offset, term, 0, term.length())) {
+                return term;
+            }
+        }
+        return null;
+    }
+
+    private static void escape(String text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': out.append("&lt;"); break;
+                case '>': out.append("&gt;"); break;
+                case '&': out.append("&amp;"); break;
+                case '"': out.append("&quot;"); break;
+                case '\'': out.append("&#39;"); break;
+                default: out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.forum.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.forum.model.PostContent;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryRedisSerializerTest {
+
+    private final BinaryRedisSerializer<PostContent> serializer = new BinaryRedisSerializer<>(new PostContentCodec());
+
+    @Test
+    void deserialize_ShouldRestoreEveryField() {
+        PostContent post = post();
+
+        assertEquals(post, serializer.deserialize(serializer.serialize(post)));
+    }
+
+    @Test
+    void deserialize_ShouldKeepNullFields() {
+        PostContent post = new PostContent();
+        post.setId(1L);
+
+        assertEquals(post, serializer.deserialize(serializer.serialize(post)));
+    }
+
+    @Test
+    void deserialize_ShouldTreatJsonEntryAsMiss() {
+        byte[] json = jsonSerializer().serialize(post());
+
+        assertNull(serializer.deserialize(json));
+    }
+
+    @Test
+    void deserialize_ShouldTreatNewerVersionAsMiss() {
+        byte[] bytes = serializer.serialize(post());
+        bytes[1] = (byte) (new PostContentCodec().getVersion() + 1);
+
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    void deserialize_ShouldTreatTruncatedEntryAsMiss() {
+        byte[] bytes = serializer.serialize(post());
+
+        assertNull(serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2)));
+    }
+
+    @Test
+    void deserialize_ShouldTreatImpossibleStringLengthAsMiss() {
+        byte[] bytes = serializer.serialize(post());
+        // Header, then the id as a presence flag and a long, then the title length
+        ByteBuffer.wrap(bytes, 2 + 1 + 8, 4).putInt(Integer.MAX_VALUE);
+
+        assertNull(serializer.deserialize(bytes));
+
+        ByteBuffer.wrap(bytes, 2 + 1 + 8, 4).putInt(-5);
+
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    void serialize_ShouldBeSmallerThanTypedJson() {
+        PostContent post = post();
+
+        assertTrue(serializer.serialize(post).length < jsonSerializer().serialize(post).length);
+    }
+
+    private static PostContent post() {
+        return new PostContent(1L, "Title", "内容 with some text", 2L, "author",
+                LocalDateTime.of(2025, 9, 1, 12, 0, 0, 123456789), LocalDateTime.of(2025, 9, 2, 8, 30), true);
+    }
+
+    // The serializer RedisConfig uses for caches without a binary codec
+    private static GenericJackson2JsonRedisSerializer jsonSerializer() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        return new GenericJackson2JsonRedisSerializer(objectMapper);
+    }
+}
@@ -0,0 +1,113 @@
+package com.forum.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheGenerationsTest {
+
+    private static final List<String> GENERATION_KEY = List.of("cache:generation:authorPosts");
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisCacheWriter delegateWriter;
+
+    private CacheGenerations generations;
+    private CacheKeyPrefix keyPrefix;
+
+    @BeforeEach
+    void setUp() {
+        generations = new CacheGenerations(redisTemplate, Set.of("authorPosts"), Duration.ofMinutes(1));
+        keyPrefix = generations.keyPrefix();
+    }
+
+    @Test
+    void keyPrefix_ForOtherCaches_ShouldBeTheDefault() {
+        assertEquals("postContent::", keyPrefix.compute("postContent"));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void keyPrefix_ShouldCarryTheGeneration_ReadFromRedisOnce() {
+        when(redisTemplate.execute(eq(VersionStamp.CURRENT_SCRIPT), eq(GENERATION_KEY))).thenReturn("100");
+
+        assertEquals("authorPosts:g100::", keyPrefix.compute("authorPosts"));
+        assertEquals("authorPosts:g100::", keyPrefix.compute("authorPosts"));
+
+        verify(redisTemplate, times(1)).execute(eq(VersionStamp.CURRENT_SCRIPT), eq(GENERATION_KEY));
+    }
+
+    @Test
+    void bump_ShouldMoveToTheNewGeneration_AndBroadcastIt() {
+        when(redisTemplate.execute(eq(VersionStamp.CURRENT_SCRIPT), eq(GENERATION_KEY))).thenReturn("100");
+        when(redisTemplate.execute(eq(VersionStamp.BUMP_SCRIPT), eq(GENERATION_KEY))).thenReturn(101L);
+        keyPrefix.compute("authorPosts");
+
+        generations.bump("authorPosts");
+
+        assertEquals("authorPosts:g101::", keyPrefix.compute("authorPosts"));
+        verify(redisTemplate).convertAndSend(CacheGenerations.CHANNEL, "authorPosts\n101");
+    }
+
+    @Test
+    void bump_OfOtherCache_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> generations.bump("postContent"));
+    }
+
+    @Test
+    void onMessage_ShouldOnlyMoveGenerationsForward() {
+        when(redisTemplate.execute(eq(VersionStamp.CURRENT_SCRIPT), eq(GENERATION_KEY))).thenReturn("100");
+        keyPrefix.compute("authorPosts");
+
+        generations.onMessage(message("authorPosts\n105"), null);
+        assertEquals(105, generations.current("authorPosts"));
+
+        generations.onMessage(message("authorPosts\n103"), null);
+        assertEquals(105, generations.current("authorPosts"));
+    }
+
+    @Test
+    void clean_OfGenerationalCache_ShouldBumpInsteadOfDeletingKeys() {
+        when(redisTemplate.execute(eq(VersionStamp.BUMP_SCRIPT), eq(GENERATION_KEY))).thenReturn(101L);
+        GenerationalCacheWriter writer = new GenerationalCacheWriter(delegateWriter, generations);
+
+        writer.clean("authorPosts", "authorPosts:g100::*".getBytes(StandardCharsets.UTF_8));
+
+        verify(delegateWriter, never()).clean(anyString(), any());
+        assertEquals(101, generations.current("authorPosts"));
+    }
+
+    @Test
+    void clean_OfOtherCache_ShouldDelegate() {
+        GenerationalCacheWriter writer = new GenerationalCacheWriter(delegateWriter, generations);
+        byte[] pattern = "postContent::*".getBytes(StandardCharsets.UTF_8);
+
+        writer.clean("postContent", pattern);
+
+        verify(delegateWriter).clean("postContent", pattern);
+        verifyNoInteractions(redisTemplate);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CacheGenerations.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
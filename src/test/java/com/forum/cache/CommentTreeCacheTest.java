@@ -0,0 +1,186 @@
+package com.forum.cache;
+
+import com.forum.dto.response.CommentResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommentTreeCacheTest {
+
+    private static final String HASH_KEY = "comment:tree:1";
+    private static final String VERSION_KEY = "comment:tree:1:v";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private CommentTreeCache cache;
+
+    // Nests each reply under its parent, enough to tell assembled output from flat input
+    private final UnaryOperator<List<CommentResponse>> assembler = flat -> {
+        Map<Long, CommentResponse> byId = new HashMap<>();
+        flat.forEach(c -> byId.put(c.getId(), c));
+        List<CommentResponse> roots = new ArrayList<>();
+        for (CommentResponse c : flat) {
+            if (c.getParentId() == null) {
+                roots.add(c);
+            } else {
+                byId.get(c.getParentId()).getReplies().add(c);
+            }
+        }
+        return roots;
+    };
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        cache = new CommentTreeCache(redisTemplate, Duration.ofMinutes(15), Duration.ofMinutes(1), 1024 * 1024);
+    }
+
+    @Test
+    void getTree_WhenCachedInRedis_ShouldAssembleWithoutLoading() {
+        when(hashOperations.get(HASH_KEY, "_v")).thenReturn("3");
+        when(hashOperations.entries(HASH_KEY)).thenReturn(snapshot("3"));
+
+        List<CommentResponse> tree = cache.getTree(1L, () -> fail("should not load"), assembler);
+
+        assertEquals(1, tree.size());
+        assertEquals(11L, tree.get(0).getReplies().get(0).getId());
+    }
+
+    @Test
+    void getTree_WhenVersionUnchanged_ShouldReuseLocalTree() {
+        when(hashOperations.get(HASH_KEY, "_v")).thenReturn("3");
+        when(hashOperations.entries(HASH_KEY)).thenReturn(snapshot("3"));
+
+        List<CommentResponse> first = cache.getTree(1L, () -> fail("should not load"), assembler);
+        List<CommentResponse> second = cache.getTree(1L, () -> fail("should not load"), assembler);
+
+        assertSame(first, second);
+        verify(hashOperations, times(1)).entries(HASH_KEY);
+    }
+
+    @Test
+    void getTree_WhenVersionMoved_ShouldReassemble() {
+        when(hashOperations.get(HASH_KEY, "_v")).thenReturn("3", "4");
+        when(hashOperations.entries(HASH_KEY)).thenReturn(snapshot("3"), snapshot("4"));
+
+        cache.getTree(1L, () -> fail("should not load"), assembler);
+        cache.getTree(1L, () -> fail("should not load"), assembler);
+
+        verify(hashOperations, times(2)).entries(HASH_KEY);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getTree_OnMiss_ShouldLoadOnceAndStoreGuardedByVersion() {
+        when(valueOperations.get(VERSION_KEY)).thenReturn("7");
+        AtomicInteger loads = new AtomicInteger();
+
+        List<CommentResponse> tree = cache.getTree(1L, () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(List.of(comment(10L, null), comment(11L, 10L)));
+        }, assembler);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, tree.size());
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(HASH_KEY, VERSION_KEY)), args.capture());
+        List<Object> values = args.getAllValues();
+        assertEquals("900", values.get(0));
+        assertEquals("7", values.get(1));
+        assertEquals("c:10", values.get(2));
+        assertEquals(6, values.size());
+    }
+
+    @Test
+    void getTree_WhenRedisUnavailable_ShouldServeFromLoader() {
+        when(hashOperations.get(HASH_KEY, "_v")).thenThrow(new RedisConnectionFailureException("down"));
+        when(valueOperations.get(VERSION_KEY)).thenThrow(new RedisConnectionFailureException("down"));
+
+        List<CommentResponse> tree = cache.getTree(1L, () -> new ArrayList<>(List.of(comment(10L, null))), assembler);
+
+        assertEquals(1, tree.size());
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void put_OutsideTransaction_ShouldPatchSingleField() {
+        cache.put(1L, comment(12L, 10L));
+
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(HASH_KEY, VERSION_KEY)), args.capture());
+        assertEquals("c:12", args.getAllValues().get(1));
+        assertTrue(((String) args.getAllValues().get(2)).contains("\"id\":12"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void remove_ShouldDeleteEveryGivenField() {
+        cache.remove(1L, List.of(10L, 11L));
+
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(HASH_KEY, VERSION_KEY)), args.capture());
+        assertEquals(List.of("900", "c:10", "c:11"), args.getAllValues());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getVersion_ShouldReadVersionKey() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(HASH_KEY, VERSION_KEY)), any()))
+                .thenReturn("1756728000000");
+
+        assertEquals("1756728000000", cache.getVersion(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getVersion_WhenRedisUnavailable_ShouldReturnNull() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertNull(cache.getVersion(1L));
+    }
+
+    private Map<Object, Object> snapshot(String version) {
+        Map<Object, Object> fields = new HashMap<>();
+        fields.put("_v", version);
+        fields.put("c:10", "{\"id\":10,\"postId\":1,\"content\":\"root\",\"createdAt\":[2025,9,1,12,0]}");
+        fields.put("c:11", "{\"id\":11,\"postId\":1,\"content\":\"reply\",\"parentId\":10,\"createdAt\":[2025,9,1,12,1]}");
+        return fields;
+    }
+
+    private static CommentResponse comment(Long id, Long parentId) {
+        return new CommentResponse(id, 1L, 1L, "user", "content " + id, LocalDateTime.of(2025, 9, 1, 12, 0),
+                null, parentId, new ArrayList<>());
+    }
+}
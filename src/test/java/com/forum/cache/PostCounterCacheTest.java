@@ -0,0 +1,119 @@
+package com.forum.cache;
+
+import com.forum.model.PostCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostCounterCacheTest {
+
+    private static final String KEY = "post:counters:1";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private Supplier<PostCounters> loader;
+
+    private PostCounterCache cache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        cache = new PostCounterCache(redisTemplate, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void get_WhenCached_ShouldNotLoad() {
+        when(hashOperations.multiGet(KEY, Arrays.asList("views", "comments"))).thenReturn(Arrays.asList("42", "7"));
+
+        PostCounters counters = cache.get(1L, loader);
+
+        assertEquals(42, counters.getViewCount());
+        assertEquals(7, counters.getCommentCount());
+        verifyNoInteractions(loader);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void get_WhenMissing_ShouldLoadAndSeed() {
+        when(hashOperations.multiGet(KEY, Arrays.asList("views", "comments"))).thenReturn(Arrays.asList(null, null));
+        when(loader.get()).thenReturn(new PostCounters(42, 7));
+
+        PostCounters counters = cache.get(1L, loader);
+
+        assertEquals(42, counters.getViewCount());
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY)), args.capture());
+        assertEquals(List.of("600", "42", "7"), args.getAllValues());
+    }
+
+    @Test
+    void get_WhenRedisIsDown_ShouldLoadFromDatabase() {
+        when(hashOperations.multiGet(anyString(), anyCollection()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(loader.get()).thenReturn(new PostCounters(42, 7));
+
+        assertEquals(42, cache.get(1L, loader).getViewCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void addViews_ShouldIncrementAllPostsInOneScript() {
+        cache.addViews(List.of(1L, 2L), 3);
+
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY, "post:counters:2")), args.capture());
+        assertEquals(List.of("views", "3"), args.getAllValues());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getAll_ShouldReadInOnePipeline_AndLoadOnlyMisses() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(Arrays.asList(Arrays.asList("42", "7"), Arrays.asList(null, null)))
+                .thenReturn(List.of(1L));
+
+        Map<Long, PostCounters> counters = cache.getAll(List.of(1L, 2L), missing -> {
+            assertEquals(List.of(2L), missing);
+            return Map.of(2L, new PostCounters(3, 1));
+        });
+
+        assertEquals(42, counters.get(1L).getViewCount());
+        assertEquals(3, counters.get(2L).getViewCount());
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getAll_WhenRedisUnavailable_ShouldLoadEverything() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        Map<Long, PostCounters> counters = cache.getAll(List.of(1L), missing -> Map.of(1L, new PostCounters(5, 0)));
+
+        assertEquals(5, counters.get(1L).getViewCount());
+    }
+}
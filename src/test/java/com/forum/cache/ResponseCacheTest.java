@@ -0,0 +1,93 @@
+package com.forum.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseCacheTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache(redisTemplate, Duration.ofMinutes(1), 1024 * 1024);
+    }
+
+    @Test
+    void get_ShouldReturnStoredResponse() {
+        ResponseCache.Entry entry = entry(cache.tick(), ResponseCache.postTag(1L));
+        cache.put("/api/posts/1", entry);
+
+        assertSame(entry, cache.get("/api/posts/1"));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void purge_ShouldDropEveryResponseWithTag_AndBroadcast() {
+        cache.put("/api/posts/1", entry(cache.tick(), ResponseCache.postTag(1L)));
+        cache.put("/api/posts/2", entry(cache.tick(), ResponseCache.postTag(2L)));
+
+        cache.purge(ResponseCache.postTag(1L));
+
+        assertNull(cache.get("/api/posts/1"));
+        assertNotNull(cache.get("/api/posts/2"));
+        verify(redisTemplate).convertAndSend(eq(ResponseCache.PURGE_CHANNEL), endsWith("\npost:1"));
+    }
+
+    @Test
+    void put_ShouldRejectResponse_RenderedBeforeConcurrentPurge() {
+        long startedAt = cache.tick();
+        cache.purge(ResponseCache.FEED_TAG);
+
+        cache.put("/api/posts/feed", entry(startedAt, ResponseCache.FEED_TAG));
+
+        assertNull(cache.get("/api/posts/feed"));
+    }
+
+    @Test
+    void purge_WhenBroadcastFails_ShouldStillPurgeLocally() {
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(redisTemplate).convertAndSend(anyString(), anyString());
+        cache.put("/api/posts/feed", entry(cache.tick(), ResponseCache.FEED_TAG));
+
+        cache.purge(ResponseCache.FEED_TAG);
+
+        assertNull(cache.get("/api/posts/feed"));
+    }
+
+    @Test
+    void onMessage_FromOtherNode_ShouldPurgeLocally() {
+        cache.put("/api/posts/1/comments", entry(cache.tick(), ResponseCache.commentsTag(1L)));
+
+        cache.onMessage(message("other-node\ncomments:1"), null);
+
+        assertNull(cache.get("/api/posts/1/comments"));
+    }
+
+    private static ResponseCache.Entry entry(long startedAt, String tag) {
+        return new ResponseCache.Entry("{}".getBytes(StandardCharsets.UTF_8), null, "application/json",
+                "no-cache", null, -1, List.of(tag), startedAt, null);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(ResponseCache.PURGE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.forum.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    void execute_ConcurrentCallsForSameKey_ShouldRunLoaderOnce() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("post:1", () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "value";
+                })));
+            }
+            // Wait until every caller has either taken the lead or joined it
+            while (loads.get() == 0) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_WhenLoaderFails_ShouldPropagateToWaitersAndAllowRetry() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> leader = executor.submit(() -> singleFlight.execute("post:1", () -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                throw new IllegalStateException("db down");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            AtomicInteger waiterLoads = new AtomicInteger();
+            Exception[] waiterError = new Exception[1];
+            Thread waiter = new Thread(() -> {
+                try {
+                    singleFlight.execute("post:1", () -> waiterLoads.incrementAndGet());
+                } catch (Exception e) {
+                    waiterError[0] = e;
+                }
+            });
+            waiter.start();
+            Thread.sleep(100);
+            release.countDown();
+            waiter.join(5000);
+
+            ExecutionException leaderError = assertThrows(ExecutionException.class, leader::get);
+            assertTrue(leaderError.getCause() instanceof IllegalStateException);
+            assertTrue(waiterError[0] instanceof IllegalStateException);
+            assertEquals(0, waiterLoads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("retried", singleFlight.execute("post:1", () -> "retried"));
+    }
+
+    @Test
+    void execute_DifferentKeys_ShouldNotShareResults() throws Exception {
+        assertEquals("a", singleFlight.execute("post:1", () -> "a"));
+        assertEquals("b", singleFlight.execute("post:2", () -> "b"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.forum.cache;
+
+import com.forum.config.LocalCacheProperties;
+import com.forum.config.SingleFlightProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheManagerTest {
+
+    @Mock
+    private CacheManager redisCacheManager;
+
+    @Mock
+    private Cache redisCache;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        LocalCacheProperties.Spec spec = new LocalCacheProperties.Spec();
+        spec.setTtl(Duration.ofMinutes(1));
+        spec.setMaxWeightBytes(1024 * 1024);
+        properties.getCaches().put("hotPosts", spec);
+
+        lenient().when(redisCacheManager.getCache("hotPosts")).thenReturn(redisCache);
+        cacheManager = new TwoLevelCacheManager(redisCacheManager, properties, redisTemplate,
+                new SingleFlightProperties());
+    }
+
+    @Test
+    void getCache_WithoutLocalSpec_ShouldReturnRedisCache() {
+        Cache plainCache = mock(Cache.class);
+        when(redisCacheManager.getCache("plainCache")).thenReturn(plainCache);
+
+        assertSame(plainCache, cacheManager.getCache("plainCache"));
+    }
+
+    @Test
+    void get_ShouldServeRepeatedReadsFromLocalCache() {
+        when(redisCache.get(1L)).thenReturn(() -> "post-1");
+        Cache cache = cacheManager.getCache("hotPosts");
+
+        assertEquals("post-1", cache.get(1L).get());
+        assertEquals("post-1", cache.get(1L).get());
+
+        verify(redisCache, times(1)).get(1L);
+    }
+
+    @Test
+    void put_ShouldWriteBothLevels() {
+        Cache cache = cacheManager.getCache("hotPosts");
+
+        cache.put(1L, "post-1");
+
+        verify(redisCache).put(1L, "post-1");
+        assertEquals("post-1", cache.get(1L).get());
+        verify(redisCache, never()).get(1L);
+    }
+
+    @Test
+    void evict_ShouldDropBothLevels_AndNotifyOtherNodes() {
+        Cache cache = cacheManager.getCache("hotPosts");
+        cache.put(1L, "post-1");
+
+        cache.evict(1L);
+
+        verify(redisCache).evict(1L);
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), message.capture());
+        assertTrue(message.getValue().endsWith("\nevict\nhotPosts\n1"));
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void onMessage_FromOtherNode_ShouldDropLocalEntryOnly() {
+        Cache cache = cacheManager.getCache("hotPosts");
+        cache.put(1L, "post-1");
+
+        cacheManager.onMessage(message("other-node\nevict\nhotPosts\n1"), null);
+
+        when(redisCache.get(1L)).thenReturn(() -> "post-1-reloaded");
+        assertEquals("post-1-reloaded", cache.get(1L).get());
+        verify(redisCache, never()).evict(any());
+    }
+
+    @Test
+    void onMessage_FromSameNode_ShouldBeIgnored() {
+        Cache cache = cacheManager.getCache("hotPosts");
+        cache.evict(1L);
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), published.capture());
+        cache.put(1L, "post-1");
+
+        cacheManager.onMessage(message(published.getValue()), null);
+
+        assertEquals("post-1", cache.get(1L).get());
+        verify(redisCache, never()).get(1L);
+    }
+
+    @Test
+    void localCache_ShouldStayWithinConfiguredWeight() {
+        Cache cache = cacheManager.getCache("hotPosts");
+        String largeValue = "x".repeat(400 * 1024);
+
+        for (long key = 0; key < 10; key++) {
+            cache.put(key, largeValue);
+        }
+
+        for (long key = 0; key < 10; key++) {
+            cache.get(key);
+        }
+        verify(redisCache, atLeast(7)).get(anyLong());
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,128 @@
+package com.forum.cache;
+
+import com.forum.config.SingleFlightProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheTest {
+
+    @Mock
+    private Cache redisCache;
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    @Mock
+    private LoadLease loadLease;
+
+    private SingleFlightProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SingleFlightProperties();
+        properties.setLeaseWait(Duration.ofMillis(200));
+        properties.setPollInterval(Duration.ofMillis(10));
+    }
+
+    @Test
+    void getWithLoader_OnMiss_ShouldLoadAndFillBothLevels() {
+        TwoLevelCache cache = cache(null);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("post-1", cache.get(1L, () -> "post-" + loads.incrementAndGet()));
+        assertEquals("post-1", cache.get(1L, () -> "post-" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        verify(redisCache).put(1L, "post-1");
+    }
+
+    @Test
+    void getWithLoader_WhenLoaderFails_ShouldWrapInValueRetrievalException() {
+        TwoLevelCache cache = cache(null);
+
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get(1L, () -> { throw new IllegalStateException("db down"); }));
+
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        verify(redisCache, never()).put(any(), any());
+    }
+
+    @Test
+    void getWithLoader_WithLease_ShouldLoadAndRelease() {
+        when(loadLease.tryAcquire("hotPosts::1")).thenReturn("token");
+        TwoLevelCache cache = cache(loadLease);
+
+        assertEquals("post-1", cache.get(1L, () -> "post-1"));
+
+        verify(redisCache).put(1L, "post-1");
+        verify(loadLease).release("hotPosts::1", "token");
+    }
+
+    @Test
+    void getWithLoader_WhenLeaseHeldElsewhere_ShouldWaitForRemoteValue() {
+        when(loadLease.tryAcquire("hotPosts::1")).thenReturn(null);
+        when(redisCache.get(1L)).thenReturn(null, null, null, () -> "post-1");
+        TwoLevelCache cache = cache(loadLease);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("post-1", cache.get(1L, () -> "loaded-" + loads.incrementAndGet()));
+
+        assertEquals(0, loads.get());
+        verify(redisCache, never()).put(any(), any());
+        verify(loadLease, never()).release(any(), any());
+    }
+
+    @Test
+    void getWithLoader_WhenLeaseHolderNeverFills_ShouldLoadAfterWaiting() {
+        when(loadLease.tryAcquire("hotPosts::1")).thenReturn(null);
+        TwoLevelCache cache = cache(loadLease);
+
+        assertEquals("post-1", cache.get(1L, () -> "post-1"));
+
+        verify(redisCache).put(1L, "post-1");
+    }
+
+    @Test
+    void getAll_ShouldServeLocalHits_AndReadOnlyTheRestFromRemote() {
+        TwoLevelCache cache = cache(null);
+        cache.put(1L, "post-1");
+        when(redisCache.get(2L)).thenReturn(() -> "post-2");
+
+        Map<Object, Object> found = cache.getAll(List.of(1L, 2L, 3L));
+
+        assertEquals(Map.of(1L, "post-1", 2L, "post-2"), found);
+        verify(redisCache, never()).get(1L);
+    }
+
+    @Test
+    void putAll_ShouldFillBothLevels() {
+        TwoLevelCache cache = cache(null);
+
+        cache.putAll(Map.of(1L, "post-1"));
+
+        verify(redisCache).put(1L, "post-1");
+        assertEquals(Map.of(1L, "post-1"), cache.getAll(List.of(1L)));
+    }
+
+    private TwoLevelCache cache(LoadLease lease) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(100)
+                .executor(Runnable::run)
+                .build();
+        return new TwoLevelCache("hotPosts", local, redisCache, invalidationPublisher, lease, properties);
+    }
+}
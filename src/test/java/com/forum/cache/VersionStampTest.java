@@ -0,0 +1,58 @@
+package com.forum.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VersionStampTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private VersionStamp versionStamp;
+
+    @BeforeEach
+    void setUp() {
+        versionStamp = new VersionStamp(redisTemplate, "feed:version");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void current_ShouldReturnStoredVersion() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("feed:version")))).thenReturn("42");
+
+        assertEquals("42", versionStamp.current());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void current_WhenRedisUnavailable_ShouldReturnNull() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertNull(versionStamp.current());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bump_OutsideTransaction_ShouldRunImmediately_AndSwallowFailures() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(versionStamp::bump);
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("feed:version")));
+    }
+}
@@ -0,0 +1,104 @@
+package com.forum.config;
+
+import com.forum.model.UserPrincipal;
+import com.forum.service.TokenRevocationService;
+import com.forum.service.UserDetailsServiceImpl;
+import com.forum.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthTokenFilterTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @InjectMocks
+    private AuthTokenFilter filter;
+
+    private MockHttpServletRequest request;
+    private Claims claims;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+        claims = Jwts.claims().setSubject("testUser").setIssuedAt(new Date());
+        when(jwtUtil.verifyJwtToken(TOKEN)).thenReturn(claims);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WithUserIdClaim_ShouldAuthenticateWithoutUserLookup() throws Exception {
+        when(jwtUtil.getPrincipalFromClaims(claims)).thenReturn(principal());
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals(42L, ((UserPrincipal) authentication.getPrincipal()).getId());
+        verify(jwtUtil, times(1)).verifyJwtToken(TOKEN);
+        verify(jwtUtil, never()).validateJwtToken(any());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilter_WithLegacyToken_ShouldFallBackToUserLookup() throws Exception {
+        when(jwtUtil.getPrincipalFromClaims(claims)).thenReturn(null);
+        when(userDetailsService.loadUserByUsername("testUser")).thenReturn(principal());
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(userDetailsService).loadUserByUsername("testUser");
+    }
+
+    @Test
+    void doFilter_WithRevokedToken_ShouldLeaveRequestUnauthenticated() throws Exception {
+        when(jwtUtil.getPrincipalFromClaims(claims)).thenReturn(principal());
+        when(tokenRevocationService.isRevoked(eq(42L), any())).thenReturn(true);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(chain.getRequest());
+    }
+
+    private static UserPrincipal principal() {
+        return new UserPrincipal(42L, "testUser", null, List.of(new SimpleGrantedAuthority("ROLE_USER")), true);
+    }
+}
@@ -0,0 +1,119 @@
+package com.forum.config;
+
+import com.forum.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_ShouldDelegateOnWorkerPool() {
+        encoder = new BoundedPasswordEncoder(new PrefixEncoder(null, null), properties(1, 1, Duration.ofSeconds(2)));
+
+        String encoded = encoder.encode("secret");
+
+        assertEquals("hashed:secret", encoded);
+        assertTrue(encoder.matches("secret", encoded));
+        assertFalse(encoder.matches("other", encoded));
+        assertEquals(3, encoder.getCompletedCount());
+    }
+
+    @Test
+    void encode_WhenPoolAndQueueAreFull_ShouldRejectImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new PrefixEncoder(started, release), properties(1, 1, Duration.ofSeconds(10)));
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        waitForQueueDepth(1);
+
+        ServiceBusyException ex = assertThrows(ServiceBusyException.class, () -> encoder.encode("c"));
+        assertEquals(1, ex.getRetryAfterSeconds());
+        assertEquals(1, encoder.getRejectedCount());
+
+        release.countDown();
+        assertEquals("hashed:a", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hashed:b", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void encode_WhenQueuedLongerThanMaxWait_ShouldFailWithoutHashing() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new PrefixEncoder(started, release), properties(1, 4, Duration.ofMillis(50)));
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        waitForQueueDepth(1);
+        Thread.sleep(100);
+
+        release.countDown();
+        assertEquals("hashed:a", running.get(5, TimeUnit.SECONDS));
+        Exception ex = assertThrows(Exception.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof ServiceBusyException);
+        assertEquals(1, encoder.getCompletedCount());
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (encoder.getQueueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, encoder.getQueueDepth());
+    }
+
+    private static PasswordHashingProperties properties(int threads, int queueCapacity, Duration maxWait) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setMaxWait(maxWait);
+        return properties;
+    }
+
+    // Stands in for BCrypt; optionally blocks the first hash until released
+    private static class PrefixEncoder implements PasswordEncoder {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        PrefixEncoder(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (started != null && started.getCount() > 0) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+    }
+}
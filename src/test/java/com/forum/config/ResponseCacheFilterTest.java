@@ -0,0 +1,126 @@
+package com.forum.config;
+
+import com.forum.cache.ResponseCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseCacheFilterTest {
+
+    private static final String BODY = "{\"id\":1,\"content\":\"" + "x".repeat(2000) + "\"}";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ResponseCache responseCache;
+    private ResponseCacheFilter filter;
+    private final AtomicInteger renders = new AtomicInteger();
+    private final AtomicInteger hits = new AtomicInteger();
+
+    // Stands in for the dispatcher: renders the post and opts the response into the cache
+    private final HttpServlet handler = new HttpServlet() {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            renders.incrementAndGet();
+            ResponseCacheFilter.cacheable(new ServletWebRequest(request), hits::incrementAndGet,
+                    ResponseCache.postTag(1L));
+            response.setContentType("application/json");
+            response.setHeader("ETag", "W/\"p1-1000\"");
+            response.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        responseCache = new ResponseCache(redisTemplate, Duration.ofMinutes(1), 1024 * 1024);
+        filter = new ResponseCacheFilter(responseCache, "/api/posts", 1024);
+    }
+
+    @Test
+    void doFilter_ShouldServeRepeatAnonymousRequestFromCache() throws Exception {
+        perform(get());
+        MockHttpServletResponse response = perform(get());
+
+        assertEquals(1, renders.get());
+        assertEquals(1, hits.get());
+        assertEquals(BODY, response.getContentAsString());
+        assertEquals("W/\"p1-1000\"", response.getHeader("ETag"));
+    }
+
+    @Test
+    void doFilter_ShouldServePrecompressedBody_WhenClientAcceptsGzip() throws Exception {
+        perform(get());
+        MockHttpServletRequest request = get();
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+
+        MockHttpServletResponse response = perform(request);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals(BODY, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void doFilter_ShouldAnswerNotModified_FromCachedETag() throws Exception {
+        perform(get());
+        MockHttpServletRequest request = get();
+        request.addHeader("If-None-Match", "W/\"p1-1000\"");
+
+        MockHttpServletResponse response = perform(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void doFilter_ShouldRenderAgain_AfterPurge() throws Exception {
+        perform(get());
+
+        responseCache.purge(ResponseCache.postTag(1L));
+        perform(get());
+
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void doFilter_ShouldBypassCache_ForAuthenticatedRequests() throws Exception {
+        perform(get());
+        MockHttpServletRequest request = get();
+        request.addHeader("Authorization", "Bearer token");
+
+        perform(request);
+
+        assertEquals(2, renders.get());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(handler));
+        return response;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/posts/1");
+    }
+}
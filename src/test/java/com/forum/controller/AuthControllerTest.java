@@ -1,8 +1,11 @@
 package com.forum.controller;
 
 import com.forum.dto.request.LoginRequest;
+import com.forum.dto.request.RefreshTokenRequest;
 import com.forum.dto.request.RegisterRequest;
 import com.forum.dto.response.JwtResponse;
+import com.forum.exception.InvalidTokenException;
+import com.forum.model.UserPrincipal;
 import com.forum.service.AuthService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -13,10 +16,17 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -54,7 +64,7 @@ class AuthControllerTest {
         mockJwtResponse.setToken("mock-jwt-token");
         mockJwtResponse.setUsername("testUser");
 
-        when(authService.login(any(LoginRequest.class))).thenReturn(mockJwtResponse);
+        when(authService.login(any(LoginRequest.class), anyString(), any())).thenReturn(mockJwtResponse);
 
         mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -86,7 +96,7 @@ class AuthControllerTest {
         mockJwtResponse.setToken("register-jwt-token");
         mockJwtResponse.setUsername("newUser");
 
-        when(authService.register(any(RegisterRequest.class))).thenReturn(mockJwtResponse);
+        when(authService.register(any(RegisterRequest.class), any())).thenReturn(mockJwtResponse);
 
         mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -108,4 +118,67 @@ class AuthControllerTest {
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void refreshToken_WithValidToken_ShouldReturnNewTokens() throws Exception {
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest();
+        refreshRequest.setRefreshToken("1.session.secret");
+
+        JwtResponse mockJwtResponse = new JwtResponse();
+        mockJwtResponse.setToken("refreshed-jwt-token");
+        mockJwtResponse.setRefreshToken("1.session.rotated");
+
+        when(authService.refresh("1.session.secret")).thenReturn(mockJwtResponse);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("refreshed-jwt-token"))
+                .andExpect(jsonPath("$.refreshToken").value("1.session.rotated"));
+    }
+
+    @Test
+    void refreshToken_WithRevokedToken_ShouldReturnUnauthorized() throws Exception {
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest();
+        refreshRequest.setRefreshToken("1.session.used");
+
+        when(authService.refresh("1.session.used")).thenThrow(new InvalidTokenException("Refresh token has already been used"));
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logout_ShouldEndSessionAndReturnNoContent() throws Exception {
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest();
+        refreshRequest.setRefreshToken("1.session.secret");
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isNoContent());
+
+        verify(authService).logout("1.session.secret");
+    }
+
+    @Test
+    void logoutEverywhere_ShouldRevokeForTheCurrentUser() throws Exception {
+        UserPrincipal principal = new UserPrincipal(7L, "testUser", null,
+                List.of(new SimpleGrantedAuthority(UserPrincipal.DEFAULT_ROLE)), true);
+
+        // Security filters are off here, so the principal is placed in the context directly
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        try {
+            mockMvc.perform(post("/api/auth/logout-all"))
+                    .andExpect(status().isNoContent());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        verify(authService).logoutEverywhere(7L);
+    }
 }
@@ -4,9 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.forum.config.AuthEntryPointJwt;
 import com.forum.dto.request.CommentRequest;
 import com.forum.dto.response.CommentResponse;
-import com.forum.model.User;
+import com.forum.dto.response.CursorPageResponse;
+import com.forum.model.UserPrincipal;
 import com.forum.service.CommentService;
 import com.forum.repository.UserRepository;
+import com.forum.service.TokenRevocationService;
 import com.forum.service.UserDetailsServiceImpl;
 import com.forum.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,14 +19,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -53,6 +57,9 @@ public class CommentControllerTest {
     @MockBean
     JwtUtil jwtUtil;
 
+    @MockBean
+    TokenRevocationService tokenRevocationService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -66,8 +73,10 @@ public class CommentControllerTest {
 
     @BeforeEach
     void setUp() {
+        UserPrincipal principal = new UserPrincipal(TEST_USER_ID, TEST_USERNAME, null,
+                List.of(new SimpleGrantedAuthority(UserPrincipal.DEFAULT_ROLE)), true);
         SecurityContextHolder.getContext().setAuthentication(
-                new UsernamePasswordAuthenticationToken(TEST_USERNAME, null, List.of())
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())
         );
 
         commentRequest = new CommentRequest();
@@ -82,9 +91,6 @@ public class CommentControllerTest {
 
     @Test
     void createComment_ShouldReturnCreatedComment() throws Exception {
-        User mockUser = new User();
-        mockUser.setId(TEST_USER_ID);
-        when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockUser));
         when(commentService.createComment(eq(TEST_POST_ID), any(CommentRequest.class), eq(TEST_USER_ID)))
                 .thenReturn(commentResponse);
 
@@ -112,15 +118,23 @@ public class CommentControllerTest {
                 .andExpect(jsonPath("$[0].id").value(TEST_COMMENT_ID));
     }
 
+    @Test
+    void getCommentsByPostId_ShouldReturnNotModified_WhenThreadUnchanged() throws Exception {
+        when(commentService.getCommentTreeETag(TEST_POST_ID)).thenReturn("\"c1-7\"");
+
+        mockMvc.perform(get("/api/posts/{postId}/comments", TEST_POST_ID)
+                        .header("If-None-Match", "\"c1-7\""))
+                .andExpect(status().isNotModified());
+
+        verify(commentService, never()).getCommentsByPostId(any());
+    }
+
     @Test
     void updateComment_ShouldReturnUpdatedComment() throws Exception {
         String updatedContent = "这是更新后的评论内容";
         commentRequest.setContent(updatedContent);
         commentResponse.setContent(updatedContent);
 
-        User mockUser = new User();
-        mockUser.setId(TEST_USER_ID);
-        when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockUser));
         when(commentService.updateComment(eq(TEST_POST_ID), eq(TEST_COMMENT_ID),
                 any(CommentRequest.class), eq(TEST_USER_ID)))
                 .thenReturn(commentResponse);
@@ -135,12 +149,37 @@ public class CommentControllerTest {
 
     @Test
     void deleteComment_ShouldReturnNoContent() throws Exception {
-        User mockUser = new User();
-        mockUser.setId(TEST_USER_ID);
-        when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockUser));
 
         mockMvc.perform(delete("/api/posts/{postId}/comments/{commentId}", TEST_POST_ID, TEST_COMMENT_ID)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void getCommentThread_ShouldPassCursorAndSizes() throws Exception {
+        commentResponse.setReplyCount(4);
+        when(commentService.getCommentThread(TEST_POST_ID, "abc", 10, 2))
+                .thenReturn(new CursorPageResponse<>(List.of(commentResponse), "next", true));
+
+        mockMvc.perform(get("/api/posts/{postId}/comments/thread", TEST_POST_ID)
+                        .param("cursor", "abc")
+                        .param("size", "10")
+                        .param("replies", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(TEST_COMMENT_ID))
+                .andExpect(jsonPath("$.content[0].replyCount").value(4))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    void getReplies_ShouldReturnRepliesPage() throws Exception {
+        when(commentService.getReplies(TEST_POST_ID, TEST_COMMENT_ID, null, 20, 3))
+                .thenReturn(new CursorPageResponse<>(List.of(commentResponse), null, false));
+
+        mockMvc.perform(get("/api/posts/{postId}/comments/{commentId}/replies", TEST_POST_ID, TEST_COMMENT_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
 }
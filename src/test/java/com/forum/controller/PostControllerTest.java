@@ -3,10 +3,14 @@ package com.forum.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.forum.config.AuthEntryPointJwt;
 import com.forum.dto.request.PostRequest;
+import com.forum.dto.response.CursorPageResponse;
 import com.forum.dto.response.PostResponse;
-import com.forum.model.User;
+import com.forum.dto.response.PostSummaryResponse;
+import com.forum.model.ResourceVersion;
+import com.forum.model.UserPrincipal;
 import com.forum.service.PostService;
 import com.forum.repository.UserRepository;
+import com.forum.service.TokenRevocationService;
 import com.forum.service.UserDetailsServiceImpl;
 import com.forum.util.JwtUtil;
 import org.junit.jupiter.api.Test;
@@ -18,14 +22,18 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.http.MediaType;
-import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Collections;
-import java.util.Optional;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -56,13 +64,15 @@ class PostControllerTest {
     @MockBean
     JwtUtil jwtUtil;
 
+    @MockBean
+    TokenRevocationService tokenRevocationService;
+
     private final String BASE_URL = "/api/posts";
     private final Long TEST_USER_ID = 1L;
     private final Long TEST_POST_ID = 1L;
     private final String TEST_USERNAME = "testUser";
 
     @Test
-    @WithMockUser(username = TEST_USERNAME)
     void createPost_ShouldReturnCreatedPost() throws Exception {
         PostRequest postRequest = new PostRequest();
         postRequest.setTitle("Test Title");
@@ -74,12 +84,10 @@ class PostControllerTest {
         postResponse.setContent(postRequest.getContent());
         postResponse.setAuthorUsername(TEST_USERNAME);
 
-        User mockUser = new User();
-        mockUser.setId(TEST_USER_ID);
-        when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockUser));
         when(postService.createPost(any(PostRequest.class), eq(TEST_USER_ID))).thenReturn(postResponse);
 
         mockMvc.perform(post(BASE_URL)
+                        .with(user(principal()))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(postRequest)))
                 .andExpect(status().isOk())
@@ -96,23 +104,65 @@ class PostControllerTest {
         postResponse.setContent("Test Content");
         postResponse.setAuthorUsername(TEST_USERNAME);
 
+        when(postService.getPostVersion(TEST_POST_ID)).thenReturn(new ResourceVersion("W/\"p1-1000\"", 1000));
         when(postService.getPostById(TEST_POST_ID)).thenReturn(postResponse);
 
         mockMvc.perform(get(BASE_URL + "/{id}", TEST_POST_ID)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"p1-1000\""))
+                .andExpect(header().exists("Last-Modified"))
                 .andExpect(jsonPath("$.id").value(TEST_POST_ID))
                 .andExpect(jsonPath("$.title").value(postResponse.getTitle()));
     }
 
+    @Test
+    void getPostsByIds_ShouldReturnPostsInRequestOrder() throws Exception {
+        PostResponse second = new PostResponse();
+        second.setId(2L);
+        PostResponse first = new PostResponse();
+        first.setId(1L);
+
+        when(postService.getPostsByIds(List.of(2L, 1L))).thenReturn(List.of(second, first));
+
+        mockMvc.perform(get(BASE_URL + "/batch").param("ids", "2,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[1].id").value(1));
+    }
+
+    @Test
+    void getPostById_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        when(postService.getPostVersion(TEST_POST_ID)).thenReturn(new ResourceVersion("W/\"p1-1000\"", 1000));
+
+        mockMvc.perform(get(BASE_URL + "/{id}", TEST_POST_ID)
+                        .header("If-None-Match", "W/\"p1-1000\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(postService).recordView(TEST_POST_ID);
+        verify(postService, never()).getPostById(any());
+    }
+
+    @Test
+    void getPublishedPostFeed_ShouldReturnNotModified_WhenFeedUnchanged() throws Exception {
+        when(postService.getFeedETag()).thenReturn("W/\"f42\"");
+
+        mockMvc.perform(get(BASE_URL + "/feed")
+                        .header("If-None-Match", "W/\"f42\""))
+                .andExpect(status().isNotModified());
+
+        verify(postService, never()).getPublishedPostFeed(any(), anyInt());
+    }
+
     @Test
     void getAllPublishedPosts_ShouldReturnPostsPage() throws Exception {
-        PostResponse postResponse = new PostResponse();
+        PostSummaryResponse postResponse = new PostSummaryResponse();
         postResponse.setId(TEST_POST_ID);
         postResponse.setTitle("Test Title");
-        postResponse.setContent("Test Content");
+        postResponse.setExcerpt("Test Content");
 
-        Page<PostResponse> postPage = new PageImpl<>(Collections.singletonList(postResponse));
+        Page<PostSummaryResponse> postPage = new PageImpl<>(Collections.singletonList(postResponse));
 
         when(postService.getAllPublishedPosts(any(Pageable.class))).thenReturn(postPage);
 
@@ -122,11 +172,48 @@ class PostControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content[0].id").value(TEST_POST_ID))
+                .andExpect(jsonPath("$.content[0].excerpt").value("Test Content"))
+                .andExpect(jsonPath("$.content[0].content").doesNotExist())
                 .andExpect(jsonPath("$.totalElements").value(1));
     }
 
     @Test
-    @WithMockUser(username = TEST_USERNAME)
+    void getPublishedPostFeed_ShouldReturnSliceWithNextCursor() throws Exception {
+        PostSummaryResponse postResponse = new PostSummaryResponse();
+        postResponse.setId(TEST_POST_ID);
+        postResponse.setTitle("Test Title");
+
+        CursorPageResponse<PostSummaryResponse> slice =
+                new CursorPageResponse<>(Collections.singletonList(postResponse), "next-cursor", true);
+
+        when(postService.getPublishedPostFeed("cursor", 10)).thenReturn(slice);
+
+        mockMvc.perform(get(BASE_URL + "/feed")
+                        .param("cursor", "cursor")
+                        .param("size", "10")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(TEST_POST_ID))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    void getTrendingPosts_ShouldReturnRankedPosts() throws Exception {
+        PostResponse postResponse = new PostResponse();
+        postResponse.setId(TEST_POST_ID);
+        postResponse.setTitle("Test Title");
+
+        when(postService.getTrendingPosts(5)).thenReturn(Collections.singletonList(postResponse));
+
+        mockMvc.perform(get(BASE_URL + "/trending")
+                        .param("limit", "5")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(TEST_POST_ID));
+    }
+
+    @Test
     void updatePost_ShouldReturnUpdatedPost() throws Exception {
         PostRequest updateRequest = new PostRequest();
         updateRequest.setTitle("Updated Title");
@@ -138,12 +225,10 @@ class PostControllerTest {
         updatedResponse.setContent(updateRequest.getContent());
         updatedResponse.setAuthorUsername(TEST_USERNAME);
 
-        User mockUser = new User();
-        mockUser.setId(TEST_USER_ID);
-        when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockUser));
         when(postService.updatePost(eq(TEST_POST_ID), any(PostRequest.class), eq(TEST_USER_ID))).thenReturn(updatedResponse);
 
         mockMvc.perform(put(BASE_URL + "/{id}", TEST_POST_ID)
+                        .with(user(principal()))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updateRequest)))
                 .andExpect(status().isOk())
@@ -153,29 +238,49 @@ class PostControllerTest {
     }
 
     @Test
-    @WithMockUser(username = TEST_USERNAME)
     void deletePost_ShouldReturnNoContent() throws Exception {
-        User mockUser = new User();
-        mockUser.setId(TEST_USER_ID);
-        when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockUser));
 
         mockMvc.perform(delete(BASE_URL + "/{id}", TEST_POST_ID)
+                        .with(user(principal()))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
     }
 
     @Test
-    @WithMockUser(username = TEST_USERNAME)
-    void createPost_WhenUserNotFound_ShouldReturnBadRequest() throws Exception {
+    void createPost_ShouldTakeUserIdFromPrincipalWithoutLookup() throws Exception {
         PostRequest postRequest = new PostRequest();
         postRequest.setTitle("Test Title");
         postRequest.setContent("Test Content");
 
-        when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.empty());
+        PostResponse postResponse = new PostResponse();
+        postResponse.setId(TEST_POST_ID);
+        when(postService.createPost(any(PostRequest.class), eq(TEST_USER_ID))).thenReturn(postResponse);
 
         mockMvc.perform(post(BASE_URL)
+                        .with(user(principal()))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(postRequest)))
-                .andExpect(status().is5xxServerError()); // 实际项目中应自定义异常处理返回4xx
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(TEST_POST_ID));
+
+        verifyNoInteractions(userRepository, userDetailsServiceImpl);
+    }
+
+    @Test
+    void createPost_WithoutAuthentication_ShouldNotReachService() throws Exception {
+        PostRequest postRequest = new PostRequest();
+        postRequest.setTitle("Test Title");
+        postRequest.setContent("Test Content");
+
+        // The entry point is mocked here, so only the absence of a service call is observable
+        mockMvc.perform(post(BASE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(postRequest)));
+        verifyNoInteractions(postService);
+    }
+
+    private UserPrincipal principal() {
+        return new UserPrincipal(TEST_USER_ID, TEST_USERNAME, null,
+                List.of(new SimpleGrantedAuthority(UserPrincipal.DEFAULT_ROLE)), true);
     }
 }
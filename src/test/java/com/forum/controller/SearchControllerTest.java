@@ -0,0 +1,75 @@
+package com.forum.controller;
+
+import com.forum.config.AuthEntryPointJwt;
+import com.forum.dto.response.SearchHit;
+import com.forum.dto.response.SearchResponse;
+import com.forum.exception.BadRequestException;
+import com.forum.repository.UserRepository;
+import com.forum.service.SearchService;
+import com.forum.service.TokenRevocationService;
+import com.forum.service.UserDetailsServiceImpl;
+import com.forum.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SearchController.class)
+class SearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SearchService searchService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    UserDetailsServiceImpl userDetailsServiceImpl;
+
+    @MockBean
+    AuthEntryPointJwt authEntryPointJwt;
+
+    @MockBean
+    JwtUtil jwtUtil;
+
+    @MockBean
+    TokenRevocationService tokenRevocationService;
+
+    @Test
+    void search_ShouldBeOpenToAnonymousUsers() throws Exception {
+        SearchHit hit = new SearchHit("post", 1L, 1L, "Redis tips", "alice", LocalDateTime.now(), 1.5,
+                "<em>Redis</em> tips");
+        when(searchService.search("redis", "posts", 0, 20))
+                .thenReturn(new SearchResponse(Collections.singletonList(hit), 0, false));
+
+        mockMvc.perform(get("/api/search").param("q", "redis"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits[0].id").value(1))
+                .andExpect(jsonPath("$.hits[0].highlight").value("<em>Redis</em> tips"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void search_ShouldReturnBadRequest_ForInvalidQuery() throws Exception {
+        when(searchService.search(" ", "comments", 1, 10))
+                .thenThrow(new BadRequestException("Search query must not be empty"));
+
+        mockMvc.perform(get("/api/search")
+                        .param("q", " ")
+                        .param("type", "comments")
+                        .param("page", "1")
+                        .param("size", "10"))
+                .andExpect(status().isBadRequest());
+    }
+}
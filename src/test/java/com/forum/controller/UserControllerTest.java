@@ -0,0 +1,72 @@
+package com.forum.controller;
+
+import com.forum.config.AuthEntryPointJwt;
+import com.forum.dto.response.CursorPageResponse;
+import com.forum.dto.response.PostSummaryResponse;
+import com.forum.exception.ResourceNotFoundException;
+import com.forum.repository.UserRepository;
+import com.forum.service.PostService;
+import com.forum.service.TokenRevocationService;
+import com.forum.service.UserDetailsServiceImpl;
+import com.forum.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UserController.class)
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PostService postService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    UserDetailsServiceImpl userDetailsServiceImpl;
+
+    @MockBean
+    AuthEntryPointJwt authEntryPointJwt;
+
+    @MockBean
+    JwtUtil jwtUtil;
+
+    @MockBean
+    TokenRevocationService tokenRevocationService;
+
+    @Test
+    void getPostsByAuthor_ShouldBeOpenToAnonymousUsers() throws Exception {
+        PostSummaryResponse post = new PostSummaryResponse();
+        post.setId(5L);
+        post.setTitle("Title");
+
+        when(postService.getPostsByAuthor(1L, null, 20))
+                .thenReturn(new CursorPageResponse<>(Collections.singletonList(post), "next", true));
+
+        mockMvc.perform(get("/api/users/{id}/posts", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(5))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    void getPostsByAuthor_ShouldReturnNotFound_ForUnknownUser() throws Exception {
+        when(postService.getPostsByAuthor(9L, null, 20))
+                .thenThrow(new ResourceNotFoundException("User not found with id: 9"));
+
+        mockMvc.perform(get("/api/users/{id}/posts", 9L))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -4,14 +4,27 @@ import com.forum.dto.request.LoginRequest;
 import com.forum.dto.request.RegisterRequest;
 import com.forum.dto.response.JwtResponse;
 import com.forum.exception.BadRequestException;
+import com.forum.exception.TooManyRequestsException;
+import com.forum.exception.InvalidTokenException;
 import com.forum.model.User;
+import com.forum.model.UserPrincipal;
 import com.forum.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import com.forum.util.JwtUtil;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 
@@ -29,7 +42,19 @@ class AuthServiceTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private TokenCacheService tokenCacheService;
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
 
     @InjectMocks
     private AuthService authService;
@@ -39,6 +64,14 @@ class AuthServiceTest {
     private static final String TEST_PASSWORD = "testPassword";
     private static final String TEST_JWT = "testJwtToken";
     private static final Long TEST_USER_ID = 1L;
+    private static final String TEST_IP = "127.0.0.1";
+    private static final String TEST_DEVICE = "JUnit";
+    private static final String TEST_REFRESH = "1.session.secret";
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(authService, "transactionTemplate", new TransactionTemplate(new NoOpTransactionManager()));
+    }
 
     @Test
     void login_ShouldReturnJwtResponse_WhenCredentialsAreValid() {
@@ -52,9 +85,14 @@ class AuthServiceTest {
         mockUser.setEmail(TEST_EMAIL);
 
         when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockUser));
-        when(tokenCacheService.getOrGenerateToken(TEST_USERNAME, TEST_PASSWORD)).thenReturn(TEST_JWT);
+        UserPrincipal principal = UserPrincipal.fromUser(mockUser);
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        when(jwtUtil.generateJwtToken(principal)).thenReturn(TEST_JWT);
+        when(jwtUtil.getExpirationSeconds()).thenReturn(900L);
+        when(sessionService.createSession(TEST_USER_ID, TEST_DEVICE)).thenReturn(TEST_REFRESH);
 
-        JwtResponse response = authService.login(loginRequest);
+        JwtResponse response = authService.login(loginRequest, TEST_IP, TEST_DEVICE);
 
         assertNotNull(response);
         assertEquals(TEST_JWT, response.getToken());
@@ -62,7 +100,22 @@ class AuthServiceTest {
         assertEquals(TEST_USER_ID, response.getId());
         assertEquals(TEST_USERNAME, response.getUsername());
         assertEquals(TEST_EMAIL, response.getEmail());
+        assertEquals(TEST_REFRESH, response.getRefreshToken());
+        assertEquals(900L, response.getExpiresIn());
+        verify(loginRateLimiter).checkAttempt(TEST_USERNAME, TEST_IP);
+        verify(loginRateLimiter).recordSuccess(TEST_USERNAME);
+    }
 
+    @Test
+    void login_ShouldNotAuthenticate_WhenAttemptIsThrottled() {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setUsername(TEST_USERNAME);
+        loginRequest.setPassword(TEST_PASSWORD);
+        doThrow(new TooManyRequestsException("Too many login attempts", 60))
+                .when(loginRateLimiter).checkAttempt(TEST_USERNAME, TEST_IP);
+
+        assertThrows(TooManyRequestsException.class, () -> authService.login(loginRequest, TEST_IP, TEST_DEVICE));
+        verifyNoInteractions(userRepository, authenticationManager);
     }
 
     @Test
@@ -73,8 +126,8 @@ class AuthServiceTest {
 
         when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.empty());
 
-        assertThrows(Exception.class, () -> authService.login(loginRequest));
-        verify(tokenCacheService, never()).getOrGenerateToken(anyString(), anyString());
+        assertThrows(Exception.class, () -> authService.login(loginRequest, TEST_IP, TEST_DEVICE));
+        verify(authenticationManager, never()).authenticate(any());
     }
 
     @Test
@@ -96,9 +149,10 @@ class AuthServiceTest {
         when(userRepository.existsByEmail(TEST_EMAIL)).thenReturn(false);
         when(passwordEncoder.encode(TEST_PASSWORD)).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(savedUser);
-        when(tokenCacheService.getOrGenerateToken(TEST_USERNAME, TEST_PASSWORD)).thenReturn(TEST_JWT);
+        when(jwtUtil.generateJwtToken(any(UserPrincipal.class))).thenReturn(TEST_JWT);
+        when(sessionService.createSession(TEST_USER_ID, TEST_DEVICE)).thenReturn(TEST_REFRESH);
 
-        JwtResponse response = authService.register(registerRequest);
+        JwtResponse response = authService.register(registerRequest, TEST_DEVICE);
 
         assertNotNull(response);
         assertEquals(TEST_JWT, response.getToken());
@@ -109,7 +163,34 @@ class AuthServiceTest {
         verify(userRepository).existsByEmail(TEST_EMAIL);
         verify(passwordEncoder).encode(TEST_PASSWORD);
         verify(userRepository).save(any(User.class));
-        verify(tokenCacheService).getOrGenerateToken(TEST_USERNAME, TEST_PASSWORD);
+        verifyNoInteractions(authenticationManager);
+    }
+
+    @Test
+    void register_ShouldHashThePassword_BeforeOpeningTheTransaction() {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername(TEST_USERNAME);
+        registerRequest.setEmail(TEST_EMAIL);
+        registerRequest.setPassword(TEST_PASSWORD);
+
+        User savedUser = new User();
+        savedUser.setId(TEST_USER_ID);
+        savedUser.setUsername(TEST_USERNAME);
+
+        when(passwordEncoder.encode(TEST_PASSWORD)).thenAnswer(invocation -> {
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive(),
+                    "a transaction would hold a pooled connection while the hash waits");
+            return "encodedPassword";
+        });
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+            assertEquals("encodedPassword", invocation.<User>getArgument(0).getPasswordHash());
+            return savedUser;
+        });
+
+        authService.register(registerRequest, TEST_DEVICE);
+
+        verify(userRepository).save(any(User.class));
     }
 
     @Test
@@ -122,7 +203,7 @@ class AuthServiceTest {
         when(userRepository.existsByUsername(TEST_USERNAME)).thenReturn(true);
 
         BadRequestException exception = assertThrows(BadRequestException.class,
-                () -> authService.register(registerRequest));
+                () -> authService.register(registerRequest, TEST_DEVICE));
         assertEquals("Username is already exist!", exception.getMessage());
 
         verify(userRepository, never()).existsByEmail(anyString());
@@ -140,9 +221,72 @@ class AuthServiceTest {
         when(userRepository.existsByEmail(TEST_EMAIL)).thenReturn(true);
 
         BadRequestException exception = assertThrows(BadRequestException.class,
-                () -> authService.register(registerRequest));
+                () -> authService.register(registerRequest, TEST_DEVICE));
         assertEquals("Email is already in use!", exception.getMessage());
 
         verify(userRepository, never()).save(any(User.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void refresh_ShouldIssueNewTokensWithoutPasswordCheck() {
+        User user = new User();
+        user.setId(TEST_USER_ID);
+        user.setUsername(TEST_USERNAME);
+        user.setEmail(TEST_EMAIL);
+        user.setActive(true);
+        when(sessionService.refresh(TEST_REFRESH))
+                .thenReturn(new SessionService.RefreshedSession(TEST_USER_ID, "1.session.rotated"));
+        when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(user));
+        when(jwtUtil.generateJwtToken(any(UserPrincipal.class))).thenReturn(TEST_JWT);
+
+        JwtResponse response = authService.refresh(TEST_REFRESH);
+
+        assertEquals(TEST_JWT, response.getToken());
+        assertEquals("1.session.rotated", response.getRefreshToken());
+        verifyNoInteractions(authenticationManager, passwordEncoder);
+    }
+
+    @Test
+    void refresh_ShouldEndEverySessionAndRevokeTokens_WhenUserIsDeactivated() {
+        User user = new User();
+        user.setId(TEST_USER_ID);
+        user.setActive(false);
+        when(sessionService.refresh(TEST_REFRESH))
+                .thenReturn(new SessionService.RefreshedSession(TEST_USER_ID, "1.session.rotated"));
+        when(userRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(user));
+
+        assertThrows(InvalidTokenException.class, () -> authService.refresh(TEST_REFRESH));
+        verify(sessionService).endAllSessions(TEST_USER_ID);
+        verify(tokenRevocationService).revokeAllTokens(TEST_USER_ID);
+        verifyNoInteractions(jwtUtil);
+    }
+
+    @Test
+    void logoutEverywhere_ShouldEndSessionsAndRevokeAccessTokens() {
+        authService.logoutEverywhere(TEST_USER_ID);
+
+        verify(sessionService).endAllSessions(TEST_USER_ID);
+        verify(tokenRevocationService).revokeAllTokens(TEST_USER_ID);
+    }
+
+    // Marks a transaction active the way a real manager does, without a database
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
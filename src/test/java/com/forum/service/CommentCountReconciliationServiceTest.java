@@ -0,0 +1,46 @@
+package com.forum.service;
+
+import com.forum.repository.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommentCountReconciliationServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @InjectMocks
+    private CommentCountReconciliationService reconciliationService;
+
+    @Test
+    void reconcile_ShouldWalkAllPostsInIdRanges() {
+        ReflectionTestUtils.setField(reconciliationService, "chunkSize", 100);
+        when(postRepository.findMaxId()).thenReturn(250L);
+
+        reconciliationService.reconcile();
+
+        verify(postRepository).reconcileCommentCounts(0, 100);
+        verify(postRepository).reconcileCommentCounts(100, 200);
+        verify(postRepository).reconcileCommentCounts(200, 300);
+        verify(postRepository, times(3)).reconcileCommentCounts(anyLong(), anyLong());
+    }
+
+    @Test
+    void reconcile_ShouldContinueAfterAFailedRange() {
+        ReflectionTestUtils.setField(reconciliationService, "chunkSize", 100);
+        when(postRepository.findMaxId()).thenReturn(200L);
+        when(postRepository.reconcileCommentCounts(0, 100)).thenThrow(new RuntimeException("Lock wait timeout"));
+
+        assertDoesNotThrow(() -> reconciliationService.reconcile());
+
+        verify(postRepository).reconcileCommentCounts(100, 200);
+    }
+}
@@ -0,0 +1,107 @@
+package com.forum.service;
+
+import com.forum.cache.LoadLease;
+import com.forum.repository.CommentRepository;
+import com.forum.util.CommentPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommentPathBackfillServiceTest {
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private LoadLease lease;
+
+    private CommentPathBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        backfillService = new CommentPathBackfillService(commentRepository, redisTemplate, lease, 100,
+                CommentPath.DEFAULT_MAX_DEPTH);
+    }
+
+    @Test
+    void backfill_ShouldWalkCommentsInIdRanges_FillingLevelsUntilNoRowsChange() {
+        when(commentRepository.findMaxId()).thenReturn(150L);
+        when(commentRepository.backfillRootPaths(0, 100)).thenReturn(3);
+        when(commentRepository.backfillChildPaths(0, 100, CommentPath.DEFAULT_MAX_DEPTH)).thenReturn(5, 2, 0);
+        when(commentRepository.backfillRootPaths(100, 200)).thenReturn(1);
+        when(commentRepository.backfillChildPaths(100, 200, CommentPath.DEFAULT_MAX_DEPTH)).thenReturn(0);
+
+        assertEquals(11, backfillService.backfill());
+        verify(commentRepository, times(3)).backfillChildPaths(0, 100, CommentPath.DEFAULT_MAX_DEPTH);
+        verify(commentRepository, times(2)).backfillRootPaths(anyLong(), anyLong());
+    }
+
+    @Test
+    void backfill_ShouldAlsoWalkCommentsPostedDuringTheRun() {
+        when(commentRepository.findMaxId()).thenReturn(100L, 120L, 120L);
+
+        backfillService.backfill();
+
+        verify(commentRepository).backfillRootPaths(0, 100);
+        verify(commentRepository).backfillRootPaths(100, 200);
+        verify(commentRepository, times(2)).backfillRootPaths(anyLong(), anyLong());
+    }
+
+    @Test
+    void backfillOnStartup_ShouldLeaveAMarker_SoLaterStartsSkipTheScan() {
+        when(redisTemplate.hasKey(CommentPathBackfillService.DONE_KEY)).thenReturn(false);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(lease.tryAcquire(any())).thenReturn("token");
+        when(commentRepository.findMaxId()).thenReturn(0L);
+
+        backfillService.backfillOnStartup();
+
+        verify(valueOperations).set(CommentPathBackfillService.DONE_KEY, "1");
+        verify(lease).release(any(), eq("token"));
+    }
+
+    @Test
+    void backfillOnStartup_WhenAlreadyDone_ShouldNotTouchTheTable() {
+        when(redisTemplate.hasKey(CommentPathBackfillService.DONE_KEY)).thenReturn(true);
+
+        backfillService.backfillOnStartup();
+
+        verifyNoInteractions(commentRepository, lease);
+    }
+
+    @Test
+    void backfillOnStartup_WhenAnotherNodeHoldsTheLease_ShouldLeaveItToThatNode() {
+        when(redisTemplate.hasKey(CommentPathBackfillService.DONE_KEY)).thenReturn(false);
+        when(lease.tryAcquire(any())).thenReturn(null);
+
+        backfillService.backfillOnStartup();
+
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    void backfillOnStartup_WhenDatabaseFails_ShouldNotPropagate_NorMarkItDone() {
+        when(redisTemplate.hasKey(CommentPathBackfillService.DONE_KEY)).thenReturn(false);
+        when(lease.tryAcquire(any())).thenReturn("token");
+        when(commentRepository.findMaxId()).thenThrow(new IllegalStateException("db down"));
+
+        assertDoesNotThrow(() -> backfillService.backfillOnStartup());
+
+        verify(redisTemplate, never()).opsForValue();
+        verify(lease).release(any(), eq("token"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.forum.service;
+
+import com.forum.cache.LoadLease;
+import com.forum.repository.CommentRepository;
+import com.forum.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommentPurgeServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private LoadLease lease;
+
+    private CommentPurgeService purgeService;
+
+    @BeforeEach
+    void setUp() {
+        purgeService = new CommentPurgeService(postRepository, commentRepository, lease, Duration.ofMinutes(1));
+        lenient().when(lease.tryAcquire(any())).thenReturn("token");
+        ReflectionTestUtils.setField(purgeService, "batchSize", 2);
+        ReflectionTestUtils.setField(purgeService, "batchPauseMs", 0L);
+        ReflectionTestUtils.setField(purgeService, "maxBatchesPerRun", 10);
+        ReflectionTestUtils.setField(purgeService, "maxPostsPerRun", 5);
+    }
+
+    @Test
+    void purgeDeletedPosts_ShouldDeleteCommentsInBatchesThenThePost() {
+        when(postRepository.findSoftDeletedPostIds(5)).thenReturn(List.of(7L));
+        when(commentRepository.deleteBatchByPostId(7L, 2)).thenReturn(2, 2, 1);
+        when(postRepository.deleteSoftDeletedPost(7L)).thenReturn(1);
+
+        purgeService.purgeDeletedPosts();
+
+        verify(commentRepository, times(3)).deleteBatchByPostId(7L, 2);
+        verify(postRepository).deleteSoftDeletedPost(7L);
+        assertEquals(5, purgeService.getCommentsPurged());
+        assertEquals(1, purgeService.getPostsPurged());
+        assertEquals(3, purgeService.getBatchesExecuted());
+        verify(lease).release(any(), eq("token"));
+    }
+
+    @Test
+    void purgeDeletedPosts_WithoutTheLease_ShouldLeaveThePurgeToTheHolder() {
+        when(lease.tryAcquire(any())).thenReturn(null);
+
+        purgeService.purgeDeletedPosts();
+
+        verifyNoInteractions(postRepository, commentRepository);
+    }
+
+    @Test
+    void purgeDeletedPosts_ShouldStopBeforeTheLeaseRunsOut() {
+        CommentPurgeService hurried = new CommentPurgeService(postRepository, commentRepository, lease, Duration.ZERO);
+        when(postRepository.findSoftDeletedPostIds(anyInt())).thenReturn(List.of(7L));
+
+        hurried.purgeDeletedPosts();
+
+        verifyNoInteractions(commentRepository);
+        verify(postRepository, never()).deleteSoftDeletedPost(anyLong());
+        verify(lease).release(any(), eq("token"));
+    }
+
+    @Test
+    void purgeDeletedPosts_WhenACommentArrivesAfterTheLastBatch_ShouldKeepThePostForTheNextRun() {
+        when(postRepository.findSoftDeletedPostIds(5)).thenReturn(List.of(7L));
+        when(commentRepository.deleteBatchByPostId(7L, 2)).thenReturn(1);
+        when(postRepository.deleteSoftDeletedPost(7L)).thenReturn(0);
+
+        purgeService.purgeDeletedPosts();
+
+        assertEquals(1, purgeService.getCommentsPurged());
+        assertEquals(0, purgeService.getPostsPurged());
+    }
+
+    @Test
+    void purgeDeletedPosts_ShouldStopAtBatchBudget_AndKeepThePostForTheNextRun() {
+        ReflectionTestUtils.setField(purgeService, "maxBatchesPerRun", 2);
+        when(postRepository.findSoftDeletedPostIds(5)).thenReturn(List.of(7L, 8L));
+        when(commentRepository.deleteBatchByPostId(7L, 2)).thenReturn(2);
+
+        purgeService.purgeDeletedPosts();
+
+        verify(commentRepository, times(2)).deleteBatchByPostId(7L, 2);
+        verify(commentRepository, never()).deleteBatchByPostId(eq(8L), anyInt());
+        verify(postRepository, never()).deleteSoftDeletedPost(anyLong());
+        assertEquals(0, purgeService.getPostsPurged());
+    }
+
+    @Test
+    void purgeDeletedPosts_ShouldSurviveDatabaseErrors() {
+        when(postRepository.findSoftDeletedPostIds(5)).thenReturn(List.of(7L));
+        when(commentRepository.deleteBatchByPostId(7L, 2)).thenThrow(new RuntimeException("Lock wait timeout"));
+
+        assertDoesNotThrow(() -> purgeService.purgeDeletedPosts());
+        verify(postRepository, never()).deleteSoftDeletedPost(anyLong());
+    }
+}
@@ -1,26 +1,38 @@
 package com.forum.service;
 
+import com.forum.cache.CommentTreeCache;
 import com.forum.dto.request.CommentRequest;
 import com.forum.dto.response.CommentResponse;
+import com.forum.dto.response.CursorPageResponse;
 import com.forum.exception.BadRequestException;
 import com.forum.exception.ResourceNotFoundException;
 import com.forum.model.Comment;
+import com.forum.model.CommentWithUserName;
+import com.forum.model.PostEvent;
 import com.forum.model.User;
 import com.forum.repository.CommentRepository;
 import com.forum.repository.PostRepository;
 import com.forum.repository.UserRepository;
+import com.forum.util.CommentPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +47,16 @@ public class CommentServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private CommentTreeCache commentTreeCache;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Spy
+    private CommentTreeAssembler commentTreeAssembler =
+            new CommentTreeAssembler(CommentPath.DEFAULT_MAX_DEPTH, CommentTreeAssembler.OrphanPolicy.DROP);
+
     @InjectMocks
     private CommentService commentService;
 
@@ -67,6 +89,13 @@ public class CommentServiceTest {
         commentRequest = new CommentRequest();
         commentRequest.setContent("New comment");
         commentRequest.setParentId(null);
+
+        // Behave like an empty cache: load from the repositories and assemble
+        lenient().when(commentTreeCache.getTree(any(), any(), any())).thenAnswer(invocation -> {
+            Supplier<List<CommentResponse>> loader = invocation.getArgument(1);
+            UnaryOperator<List<CommentResponse>> assembler = invocation.getArgument(2);
+            return assembler.apply(loader.get());
+        });
     }
 
     @Test
@@ -88,6 +117,23 @@ public class CommentServiceTest {
         verify(postRepository).existsById(postId);
         verify(userRepository).findById(userId);
         verify(commentRepository).save(any(Comment.class));
+        verify(postRepository).adjustCommentCount(postId, 1);
+        PostEvent event = recordedEvent();
+        assertEquals(PostEvent.Type.COMMENT_CREATED, event.getType());
+        assertEquals(postId, event.getPostId());
+    }
+
+    @Test
+    void createComment_ShouldLockThePostRow_BeforeInsertingTheComment() {
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(commentRepository.save(any(Comment.class))).thenReturn(comment);
+
+        commentService.createComment(postId, commentRequest, userId);
+
+        InOrder inOrder = inOrder(postRepository, commentRepository);
+        inOrder.verify(postRepository).adjustCommentCount(postId, 1);
+        inOrder.verify(commentRepository).save(any(Comment.class));
     }
 
     @Test
@@ -222,7 +268,7 @@ public class CommentServiceTest {
         commentRequest.setContent(updatedContent);
 
         when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
-        when(commentRepository.save(any(Comment.class))).thenAnswer(i -> i.getArgument(0));
+        when(commentRepository.saveAndFlush(any(Comment.class))).thenAnswer(i -> i.getArgument(0));
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
 
         // Act
@@ -234,7 +280,7 @@ public class CommentServiceTest {
         assertEquals(commentId, result.getId());
 
         verify(commentRepository).findById(commentId);
-        verify(commentRepository).save(comment);
+        verify(commentRepository).saveAndFlush(comment);
         verify(userRepository).findById(userId);
     }
 
@@ -293,6 +339,11 @@ public class CommentServiceTest {
         // Assert
         verify(commentRepository).findById(commentId);
         verify(commentRepository).delete(comment);
+        verify(postRepository).adjustCommentCount(postId, -1);
+        PostEvent event = recordedEvent();
+        assertEquals(PostEvent.Type.COMMENT_DELETED, event.getType());
+        // Replies removed by the cascade are unknown, so the tree and counters are reloaded
+        assertNull(event.getCommentIds());
     }
 
     @Test
@@ -323,4 +374,214 @@ public class CommentServiceTest {
         verify(commentRepository).findById(commentId);
         verifyNoMoreInteractions(commentRepository);
     }
+
+    @Test
+    void createComment_Root_ShouldAssignPathFromOwnId() {
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(commentRepository.save(any(Comment.class))).thenReturn(comment);
+
+        commentService.createComment(postId, commentRequest, userId);
+
+        assertEquals(0, comment.getDepth());
+        assertEquals(CommentPath.root(commentId), comment.getPath());
+    }
+
+    @Test
+    void createComment_Reply_ShouldExtendParentPath() {
+        Comment parent = createComment(10L, null);
+        parent.setPath(CommentPath.root(10L));
+        commentRequest.setParentId(10L);
+        Comment reply = createComment(11L, 10L);
+
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(commentRepository.findById(10L)).thenReturn(Optional.of(parent));
+        when(commentRepository.save(any(Comment.class))).thenAnswer(invocation -> {
+            Comment saved = invocation.getArgument(0);
+            reply.setDepth(saved.getDepth());
+            return reply;
+        });
+
+        commentService.createComment(postId, commentRequest, userId);
+
+        assertEquals(1, reply.getDepth());
+        assertEquals(CommentPath.child(parent.getPath(), 11L), reply.getPath());
+    }
+
+    @Test
+    void createComment_ParentInOtherPost_ShouldThrowBadRequest() {
+        Comment parent = createComment(10L, null);
+        parent.setPostId(2L);
+        commentRequest.setParentId(10L);
+
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(commentRepository.findById(10L)).thenReturn(Optional.of(parent));
+
+        assertThrows(BadRequestException.class, () -> commentService.createComment(postId, commentRequest, userId));
+        verify(commentRepository, never()).save(any(Comment.class));
+    }
+
+    @Test
+    void createComment_ShouldLimitDepthByTheConfiguredTreeDepth() {
+        Comment parent = createComment(10L, 9L);
+        parent.setDepth(3);
+        commentRequest.setParentId(10L);
+
+        doReturn(3).when(commentTreeAssembler).getMaxDepth();
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(commentRepository.findById(10L)).thenReturn(Optional.of(parent));
+
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> commentService.createComment(postId, commentRequest, userId));
+        assertTrue(exception.getMessage().contains("3 levels"));
+        verify(commentRepository, never()).save(any(Comment.class));
+    }
+
+    @Test
+    void createComment_BeyondMaxDepth_ShouldThrowBadRequest() {
+        Comment parent = createComment(10L, 9L);
+        parent.setDepth(CommentPath.DEFAULT_MAX_DEPTH);
+        commentRequest.setParentId(10L);
+
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(commentRepository.findById(10L)).thenReturn(Optional.of(parent));
+
+        assertThrows(BadRequestException.class, () -> commentService.createComment(postId, commentRequest, userId));
+        verify(commentRepository, never()).save(any(Comment.class));
+    }
+
+    @Test
+    void getCommentThread_ShouldAttachReplyPreviewsAndMoreRepliesCursor() {
+        Comment root = createComment(1L, null);
+        Comment firstReply = createComment(2L, 1L);
+        Comment otherRoot = createComment(3L, null);
+
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(commentRepository.findRootComments(eq(postId), any())).thenReturn(List.of(
+                new CommentWithUserName(root, "testUser"),
+                new CommentWithUserName(otherRoot, "testUser")));
+        when(commentRepository.findFirstReplyIds(List.of(1L, 3L), 1)).thenReturn(List.of(2L));
+        when(commentRepository.findWithUsernamesByIdIn(List.of(2L)))
+                .thenReturn(List.of(new CommentWithUserName(firstReply, "testUser")));
+        when(commentRepository.countRepliesByParentIds(List.of(1L, 3L, 2L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 5L}, new Object[]{2L, 1L}));
+
+        CursorPageResponse<CommentResponse> page = commentService.getCommentThread(postId, null, 20, 1);
+
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+        CommentResponse first = page.getContent().get(0);
+        assertEquals(5L, first.getReplyCount());
+        assertEquals(1, first.getReplies().size());
+        assertEquals(1L, first.getReplies().get(0).getReplyCount());
+        assertNotNull(first.getRepliesCursor());
+        CommentResponse second = page.getContent().get(1);
+        assertEquals(0L, second.getReplyCount());
+        assertTrue(second.getReplies().isEmpty());
+        assertNull(second.getRepliesCursor());
+    }
+
+    @Test
+    void getCommentThread_WithExtraRow_ShouldReturnNextCursor() {
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(commentRepository.findRootComments(eq(postId), any())).thenReturn(List.of(
+                new CommentWithUserName(createComment(1L, null), "testUser"),
+                new CommentWithUserName(createComment(3L, null), "testUser")));
+        when(commentRepository.countRepliesByParentIds(anyCollection())).thenReturn(Collections.emptyList());
+
+        CursorPageResponse<CommentResponse> page = commentService.getCommentThread(postId, null, 1, 0);
+
+        assertTrue(page.isHasNext());
+        assertNotNull(page.getNextCursor());
+        assertEquals(1, page.getContent().size());
+        verify(commentRepository, never()).findFirstReplyIds(anyCollection(), anyInt());
+    }
+
+    @Test
+    void getReplies_CommentInOtherPost_ShouldThrowBadRequest() {
+        comment.setPostId(2L);
+        when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
+
+        assertThrows(BadRequestException.class, () -> commentService.getReplies(postId, commentId, null, 20, 3));
+        verify(commentRepository, never()).findReplies(any(), any());
+    }
+
+    @Test
+    void deleteComment_WithPath_ShouldDeleteWholeSubtree() {
+        comment.setPath(CommentPath.root(commentId));
+        when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
+        when(commentRepository.findSubtreeIds(postId, comment.getPath())).thenReturn(List.of(commentId, 2L, 3L));
+        when(commentRepository.deleteSubtree(postId, comment.getPath())).thenReturn(3);
+
+        commentService.deleteComment(postId, commentId, userId);
+
+        verify(commentRepository).deleteSubtree(postId, comment.getPath());
+        verify(postRepository).adjustCommentCount(postId, -3);
+        verify(commentRepository, never()).delete(any(Comment.class));
+        PostEvent event = recordedEvent();
+        assertEquals(List.of(commentId, 2L, 3L), event.getCommentIds());
+    }
+
+    @Test
+    void createComment_ShouldRecordTheCommentForTheCachedTree_WithoutTouchingCaches() {
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(commentRepository.save(any(Comment.class))).thenReturn(comment);
+
+        CommentResponse result = commentService.createComment(postId, commentRequest, userId);
+
+        assertSame(result, recordedEvent().getComment());
+        verify(commentTreeCache, never()).put(any(), any());
+        verify(commentTreeCache, never()).invalidate(any());
+    }
+
+    @Test
+    void updateComment_ShouldRecordTheUpdatedComment() {
+        when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
+        when(commentRepository.saveAndFlush(any(Comment.class))).thenReturn(comment);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+
+        CommentResponse result = commentService.updateComment(postId, commentId, commentRequest, userId);
+
+        PostEvent event = recordedEvent();
+        assertEquals(PostEvent.Type.COMMENT_UPDATED, event.getType());
+        assertSame(result, event.getComment());
+        InOrder inOrder = inOrder(commentRepository, outboxService);
+        inOrder.verify(commentRepository).saveAndFlush(comment);
+        inOrder.verify(outboxService).record(any());
+    }
+
+    @Test
+    void getCommentsByPostId_ShouldOrderRootsByCreationTime() {
+        Comment later = createComment(5L, null);
+        Comment earlier = createComment(4L, null);
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(commentRepository.findCommentsWithUsernamesByPostId(postId)).thenReturn(List.of(
+                new Object[]{later, "testUser"}, new Object[]{earlier, "testUser"}));
+
+        List<CommentResponse> result = commentService.getCommentsByPostId(postId);
+
+        assertEquals(List.of(4L, 5L), List.of(result.get(0).getId(), result.get(1).getId()));
+    }
+
+    private Comment createComment(Long id, Long parentId) {
+        Comment c = new Comment();
+        c.setId(id);
+        c.setPostId(postId);
+        c.setUserId(userId);
+        c.setContent("Comment " + id);
+        c.setParentId(parentId);
+        c.setCreatedAt(LocalDateTime.of(2025, 9, 1, 12, 0).plusMinutes(id));
+        return c;
+    }
+
+    private PostEvent recordedEvent() {
+        ArgumentCaptor<PostEvent> event = ArgumentCaptor.forClass(PostEvent.class);
+        verify(outboxService).record(event.capture());
+        return event.getValue();
+    }
 }
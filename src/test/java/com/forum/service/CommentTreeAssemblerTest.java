@@ -0,0 +1,130 @@
+package com.forum.service;
+
+import com.forum.dto.response.CommentResponse;
+import com.forum.util.CommentPath;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommentTreeAssemblerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final CommentTreeAssembler assembler =
+            new CommentTreeAssembler(CommentPath.DEFAULT_MAX_DEPTH, CommentTreeAssembler.OrphanPolicy.DROP);
+
+    @Test
+    void assemble_ShouldNestRepliesUnderTheirParents_InThreadOrder() {
+        List<CommentResponse> roots = assembler.assemble(List.of(
+                comment(1L, null, 0), comment(2L, 1L, 1), comment(3L, null, 2), comment(4L, 2L, 3), comment(5L, 1L, 4)));
+
+        assertEquals(List.of(1L, 3L), ids(roots));
+        assertEquals(List.of(2L, 5L), ids(roots.get(0).getReplies()));
+        assertEquals(List.of(4L), ids(roots.get(0).getReplies().get(0).getReplies()));
+        assertTrue(roots.get(1).getReplies().isEmpty());
+    }
+
+    @Test
+    void assemble_ShouldRestoreThreadOrder_WhenInputIsShuffled() {
+        List<CommentResponse> shuffled = new ArrayList<>(List.of(
+                comment(5L, 1L, 4), comment(3L, null, 2), comment(2L, 1L, 1), comment(1L, null, 0)));
+
+        List<CommentResponse> roots = assembler.assemble(shuffled);
+
+        assertEquals(List.of(1L, 3L), ids(roots));
+        assertEquals(List.of(2L, 5L), ids(roots.get(0).getReplies()));
+        assertEquals(List.of(5L, 3L, 2L, 1L), ids(shuffled), "input list should not be reordered");
+    }
+
+    @Test
+    void assemble_ShouldBreakTimestampTiesById() {
+        List<CommentResponse> roots = assembler.assemble(List.of(
+                comment(9L, null, 0), comment(4L, null, 0), comment(7L, 4L, 1), comment(6L, 4L, 1)));
+
+        assertEquals(List.of(4L, 9L), ids(roots));
+        assertEquals(List.of(6L, 7L), ids(roots.get(0).getReplies()));
+    }
+
+    @Test
+    void assemble_ShouldFlattenRepliesBeyondMaxDepth_OntoTheDeepestShownComment() {
+        CommentTreeAssembler shallow = new CommentTreeAssembler(2, CommentTreeAssembler.OrphanPolicy.DROP);
+
+        List<CommentResponse> roots = shallow.assemble(List.of(
+                comment(1L, null, 0), comment(2L, 1L, 1), comment(3L, 2L, 2), comment(4L, 3L, 3), comment(5L, 4L, 4)));
+
+        CommentResponse reply = roots.get(0).getReplies().get(0);
+        assertEquals(2L, reply.getId());
+        assertEquals(List.of(3L, 4L, 5L), ids(reply.getReplies()));
+        reply.getReplies().forEach(flattened -> assertTrue(flattened.getReplies().isEmpty()));
+    }
+
+    @Test
+    void assemble_ShouldDropOrphansAndTheirReplies_ByDefault() {
+        List<CommentResponse> roots = assembler.assemble(List.of(
+                comment(1L, null, 0), comment(3L, 2L, 1), comment(4L, 3L, 2)));
+
+        assertEquals(List.of(1L), ids(roots));
+        assertTrue(roots.get(0).getReplies().isEmpty());
+    }
+
+    @Test
+    void assemble_ShouldPromoteOrphansToRoots_InThreadOrder_WhenConfigured() {
+        CommentTreeAssembler promoting = new CommentTreeAssembler(CommentPath.DEFAULT_MAX_DEPTH,
+                CommentTreeAssembler.OrphanPolicy.PROMOTE_TO_ROOT);
+
+        List<CommentResponse> roots = promoting.assemble(List.of(
+                comment(1L, null, 0), comment(3L, 2L, 1), comment(4L, 3L, 2), comment(5L, null, 3)));
+
+        assertEquals(List.of(1L, 3L, 5L), ids(roots));
+        assertEquals(List.of(4L), ids(roots.get(1).getReplies()));
+    }
+
+    @Test
+    void assemble_ShouldLinkRepliesStampedBeforeTheirParent() {
+        List<CommentResponse> roots = assembler.assemble(List.of(
+                comment(1L, null, 0), comment(3L, 2L, 1), comment(4L, 1L, 2), comment(2L, 1L, 3)));
+
+        assertEquals(List.of(4L, 2L), ids(roots.get(0).getReplies()));
+        assertEquals(List.of(3L), ids(roots.get(0).getReplies().get(1).getReplies()));
+    }
+
+    @Test
+    void assemble_ShouldKeepTheFirstOfDuplicateIds_AndResetStaleReplies() {
+        CommentResponse root = comment(1L, null, 0);
+        root.getReplies().add(comment(99L, 1L, 9));
+
+        List<CommentResponse> roots = assembler.assemble(List.of(
+                root, comment(2L, 1L, 1), comment(2L, 1L, 1)));
+
+        assertEquals(List.of(1L), ids(roots));
+        assertEquals(List.of(2L), ids(roots.get(0).getReplies()));
+    }
+
+    @Test
+    void constructor_ShouldRejectMaxDepthBelowOne() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CommentTreeAssembler(0, CommentTreeAssembler.OrphanPolicy.DROP));
+    }
+
+    @Test
+    void constructor_ShouldRejectMaxDepthWhosePathsWouldNotFitTheColumn() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CommentTreeAssembler(CommentPath.DEPTH_LIMIT + 1, CommentTreeAssembler.OrphanPolicy.DROP));
+        assertEquals(CommentPath.DEPTH_LIMIT,
+                new CommentTreeAssembler(CommentPath.DEPTH_LIMIT, CommentTreeAssembler.OrphanPolicy.DROP).getMaxDepth());
+    }
+
+    private static CommentResponse comment(Long id, Long parentId, int minutes) {
+        LocalDateTime at = START.plusMinutes(minutes);
+        return new CommentResponse(id, 1L, 1L, "testUser", "Comment " + id, at, at, parentId, new ArrayList<>());
+    }
+
+    private static List<Long> ids(List<CommentResponse> comments) {
+        return comments.stream().map(CommentResponse::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,89 @@
+package com.forum.service;
+
+import com.forum.config.LoginRateLimitProperties;
+import com.forum.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginRateLimiterTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private LoginRateLimitProperties properties;
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LoginRateLimitProperties();
+        limiter = new LoginRateLimiter(redisTemplate, properties);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkAttempt_ShouldCheckUsernameAndIpWindowsInOneScript_WhenUnderLimit() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any())).thenReturn(0L);
+
+        limiter.checkAttempt("Alice", "10.0.0.1");
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), args.capture());
+        assertEquals(List.of(LoginRateLimiter.USERNAME_KEY_PREFIX + "alice", LoginRateLimiter.IP_KEY_PREFIX + "10.0.0.1"),
+                keys.getValue());
+        List<Object> values = args.getAllValues();
+        assertEquals(String.valueOf(properties.getWindow().toMillis()), values.get(0));
+        assertEquals("10", values.get(1));
+        assertEquals("100", values.get(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkAttempt_ShouldThrowWithRetryAfter_WhenWindowIsFull() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any())).thenReturn(1500L);
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> limiter.checkAttempt("alice", "10.0.0.1"));
+
+        assertEquals(2, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkAttempt_ShouldAllow_WhenRedisIsUnavailable() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> limiter.checkAttempt("alice", "10.0.0.1"));
+    }
+
+    @Test
+    void checkAttempt_ShouldSkipRedis_WhenDisabled() {
+        properties.setEnabled(false);
+
+        limiter.checkAttempt("alice", "10.0.0.1");
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void recordSuccess_ShouldClearUsernameWindow() {
+        limiter.recordSuccess("Alice");
+
+        verify(redisTemplate).delete(LoginRateLimiter.USERNAME_KEY_PREFIX + "alice");
+    }
+}
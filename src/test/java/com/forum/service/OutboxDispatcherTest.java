@@ -0,0 +1,161 @@
+package com.forum.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forum.cache.LoadLease;
+import com.forum.model.OutboxEvent;
+import com.forum.model.PostEvent;
+import com.forum.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxSubscriber caches;
+
+    @Mock
+    private OutboxSubscriber counters;
+
+    @Mock
+    private LoadLease lease;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new OutboxDispatcher(outboxEventRepository, List.of(caches, counters), objectMapper, lease, 2, 10,
+                Duration.ofMinutes(1));
+        lenient().when(lease.tryAcquire(any())).thenReturn("token");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatch_ShouldDeliverBatchesInOrderToEverySubscriber_ThenDeleteThem() throws Exception {
+        OutboxEvent first = row(1L, PostEvent.postCreated(10L, 1L));
+        OutboxEvent second = row(2L, PostEvent.postUpdated(10L, 1L));
+        OutboxEvent third = row(3L, PostEvent.postDeleted(10L, 1L));
+        when(outboxEventRepository.findOldest(any()))
+                .thenReturn(List.of(first, second), List.of(third));
+
+        assertEquals(3, dispatcher.dispatch());
+
+        ArgumentCaptor<List<PostEvent>> batches = ArgumentCaptor.forClass(List.class);
+        verify(caches, times(2)).handle(batches.capture());
+        assertEquals(List.of(PostEvent.Type.POST_CREATED, PostEvent.Type.POST_UPDATED),
+                batches.getAllValues().get(0).stream().map(PostEvent::getType).collect(Collectors.toList()));
+        assertEquals(PostEvent.Type.POST_DELETED, batches.getAllValues().get(1).get(0).getType());
+        InOrder inOrder = inOrder(caches, counters, outboxEventRepository);
+        inOrder.verify(caches).handle(any());
+        inOrder.verify(counters).handle(any());
+        inOrder.verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(lease).release(any(), eq("token"));
+        assertEquals(3, dispatcher.getEventsDelivered());
+        assertEquals(0, dispatcher.getOldestPendingAgeMillis());
+    }
+
+    @Test
+    void dispatch_WhenASubscriberFails_ShouldKeepTheBatchForRetry() throws Exception {
+        when(outboxEventRepository.findOldest(any())).thenReturn(List.of(row(1L, PostEvent.postCreated(10L, 1L))));
+        doThrow(new IllegalStateException("redis down")).when(caches).handle(any());
+
+        assertEquals(0, dispatcher.dispatch());
+
+        verify(counters, never()).handle(any());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+        assertEquals(1, dispatcher.getFailedBatches());
+        verify(lease).release(any(), eq("token"));
+    }
+
+    @Test
+    void dispatch_ShouldStopBeforeTheLeaseRunsOut_AndLeaveTheRestToTheNextRun() throws Exception {
+        OutboxDispatcher hurried = new OutboxDispatcher(outboxEventRepository, List.of(caches, counters), objectMapper,
+                lease, 2, 10, Duration.ZERO);
+        when(outboxEventRepository.findOldest(any())).thenReturn(
+                List.of(row(1L, PostEvent.postCreated(10L, 1L)), row(2L, PostEvent.postCreated(11L, 1L))),
+                List.of(row(3L, PostEvent.postCreated(12L, 1L))));
+
+        assertEquals(2, hurried.dispatch());
+
+        verify(outboxEventRepository, times(1)).findOldest(any());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(lease).release(any(), eq("token"));
+    }
+
+    @Test
+    void dispatch_WithoutTheLease_ShouldLeaveEventsToTheHolder() {
+        when(lease.tryAcquire(any())).thenReturn(null);
+
+        assertEquals(0, dispatcher.dispatch());
+
+        verifyNoInteractions(outboxEventRepository, caches, counters);
+    }
+
+    @Test
+    void dispatch_ShouldDiscardUnreadableEvents_InsteadOfBlockingTheQueue() throws Exception {
+        OutboxEvent broken = row(1L, PostEvent.postCreated(10L, 1L));
+        broken.setPayload("{not json");
+        OutboxEvent good = row(2L, PostEvent.postCreated(11L, 1L));
+        when(outboxEventRepository.findOldest(any())).thenReturn(List.of(broken, good), Collections.emptyList());
+
+        assertEquals(2, dispatcher.dispatch());
+
+        verify(caches).handle(argThat(events -> events.size() == 1 && events.get(0).getPostId().equals(11L)));
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        assertEquals(1, dispatcher.getDiscardedEvents());
+    }
+
+    @Test
+    void dispatch_ShouldReadEventsRecordedWithFieldsSinceDropped() throws Exception {
+        OutboxEvent old = row(1L, PostEvent.commentsDeleted(10L, null));
+        old.setPayload("{\"type\":\"COMMENT_DELETED\",\"postId\":10,\"commentDelta\":-1}");
+        when(outboxEventRepository.findOldest(any())).thenReturn(List.of(old));
+
+        assertEquals(1, dispatcher.dispatch());
+
+        verify(caches).handle(argThat(events -> events.size() == 1 && events.get(0).getPostId().equals(10L)));
+        assertEquals(0, dispatcher.getDiscardedEvents());
+    }
+
+    @Test
+    void dispatch_ShouldReportTheLagOfDeliveredEvents() throws Exception {
+        OutboxEvent old = row(1L, PostEvent.postCreated(10L, 1L));
+        old.setCreatedAt(LocalDateTime.now().minusSeconds(5));
+        when(outboxEventRepository.findOldest(any())).thenReturn(List.of(old));
+
+        dispatcher.dispatch();
+
+        assertTrue(dispatcher.getLastLagMillis() >= 5000);
+    }
+
+    private OutboxEvent row(Long id, PostEvent event) throws Exception {
+        OutboxEvent row = new OutboxEvent();
+        row.setId(id);
+        row.setType(event.getType());
+        row.setPostId(event.getPostId());
+        row.setPayload(objectMapper.writeValueAsString(event));
+        row.setCreatedAt(LocalDateTime.now());
+        return row;
+    }
+}
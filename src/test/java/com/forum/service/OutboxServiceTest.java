@@ -0,0 +1,74 @@
+package com.forum.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.forum.dto.response.CommentResponse;
+import com.forum.model.OutboxEvent;
+import com.forum.model.PostEvent;
+import com.forum.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxDispatcher outboxDispatcher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new OutboxService(outboxEventRepository, outboxDispatcher, objectMapper);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void record_ShouldStoreEventThatReadsBackTheSame() throws Exception {
+        CommentResponse comment = new CommentResponse(7L, 1L, 2L, "testUser", "Hi",
+                LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 1, 12, 0), null, List.of());
+
+        outboxService.record(PostEvent.commentCreated(comment));
+
+        ArgumentCaptor<OutboxEvent> row = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(row.capture());
+        assertEquals(PostEvent.Type.COMMENT_CREATED, row.getValue().getType());
+        assertEquals(1L, row.getValue().getPostId());
+        PostEvent readBack = objectMapper.readValue(row.getValue().getPayload(), PostEvent.class);
+        assertEquals(PostEvent.commentCreated(comment), readBack);
+    }
+
+    @Test
+    void record_ShouldStartDeliveryOnlyAfterCommit() {
+        outboxService.record(PostEvent.postCreated(1L, 2L));
+
+        verifyNoInteractions(outboxDispatcher);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(outboxDispatcher).dispatchSoon();
+    }
+}
@@ -0,0 +1,156 @@
+package com.forum.service;
+
+import com.forum.cache.CommentTreeCache;
+import com.forum.cache.ResponseCache;
+import com.forum.cache.VersionStamp;
+import com.forum.dto.response.CommentResponse;
+import com.forum.model.PostEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostCacheInvalidatorTest {
+
+    @Mock
+    private CommentTreeCache commentTreeCache;
+
+    @Mock
+    private VersionStamp feedVersion;
+
+    @Mock
+    private ResponseCache responseCache;
+
+    private ConcurrentMapCacheManager cacheManager;
+    private Cache postContent;
+    private Cache authorPosts;
+    private PostCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(
+                PostCacheInvalidator.POST_CONTENT, PostCacheInvalidator.AUTHOR_POSTS);
+        postContent = cacheManager.getCache(PostCacheInvalidator.POST_CONTENT);
+        authorPosts = cacheManager.getCache(PostCacheInvalidator.AUTHOR_POSTS);
+        for (long id = 1; id <= 3; id++) {
+            postContent.put(id, "post-" + id);
+            authorPosts.put(id, "author-page-" + id);
+        }
+        invalidator = new PostCacheInvalidator(cacheManager, commentTreeCache, feedVersion, responseCache);
+    }
+
+    @Test
+    void handle_PostCreated_ShouldLeaveExistingPostsCached() {
+        invalidator.handle(List.of(PostEvent.postCreated(4L, 1L)));
+
+        for (long id = 1; id <= 3; id++) {
+            assertNotNull(postContent.get(id), "post " + id + " should still be cached");
+        }
+        assertNull(authorPosts.get(1L));
+        assertNotNull(authorPosts.get(2L));
+        assertNotNull(authorPosts.get(3L));
+        verify(feedVersion).bump();
+        verify(responseCache).purge(ResponseCache.FEED_TAG);
+        verifyNoInteractions(commentTreeCache);
+    }
+
+    @Test
+    void handle_PostUpdated_ShouldEvictThatPostAndItsAuthorPageOnly() {
+        invalidator.handle(List.of(PostEvent.postUpdated(2L, 1L)));
+
+        assertNull(postContent.get(2L));
+        assertNotNull(postContent.get(1L));
+        assertNotNull(postContent.get(3L));
+        assertNull(authorPosts.get(1L));
+        assertNotNull(authorPosts.get(2L));
+        verify(responseCache).purge(ResponseCache.postTag(2L), ResponseCache.FEED_TAG);
+        verifyNoInteractions(commentTreeCache);
+    }
+
+    @Test
+    void handle_PostDeleted_ShouldAlsoDropTheCommentTree() {
+        invalidator.handle(List.of(PostEvent.postDeleted(2L, 1L)));
+
+        assertNull(postContent.get(2L));
+        assertNotNull(postContent.get(1L));
+        verify(commentTreeCache).invalidate(2L);
+        verify(responseCache).purge(ResponseCache.postTag(2L), ResponseCache.commentsTag(2L), ResponseCache.FEED_TAG);
+    }
+
+    @Test
+    void handle_PostDeleted_ShouldDropTheTree_WhenSynchronizationIsActive() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        CommentTreeCache trees = new CommentTreeCache(redisTemplate, Duration.ofMinutes(15), Duration.ofMinutes(1), 1024 * 1024);
+        PostCacheInvalidator withRealTrees = new PostCacheInvalidator(cacheManager, trees, feedVersion, responseCache);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            withRealTrees.handle(List.of(PostEvent.postDeleted(2L, 1L)));
+            // Like Spring, run only the callbacks registered before the commit, once
+            List<TransactionSynchronization> registered = TransactionSynchronizationManager.getSynchronizations();
+            registered.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("comment:tree:2", "comment:tree:2:v")), any());
+    }
+
+    @Test
+    void allAuthorPagesChanged_ShouldClearAuthorPages_AndKeepPosts() {
+        invalidator.allAuthorPagesChanged();
+
+        assertNull(authorPosts.get(1L));
+        assertNull(authorPosts.get(2L));
+        assertNotNull(postContent.get(1L));
+    }
+
+    @Test
+    void handle_ShouldPatchCommentTrees_AndMoveTheCountsShown_WithoutTouchingPostEntries() {
+        CommentResponse comment = new CommentResponse(7L, 2L, 1L, "testUser", "Hi", null, null, null, List.of());
+
+        invalidator.handle(List.of(
+                PostEvent.commentCreated(comment),
+                PostEvent.commentsDeleted(3L, List.of(8L, 9L)),
+                PostEvent.commentsDeleted(3L, null)));
+
+        verify(commentTreeCache).put(2L, comment);
+        verify(commentTreeCache).remove(3L, List.of(8L, 9L));
+        verify(commentTreeCache).invalidate(3L);
+        assertNotNull(postContent.get(2L));
+        assertNotNull(postContent.get(3L));
+        verify(feedVersion, times(1)).bump();
+        verify(responseCache).purge(ResponseCache.commentsTag(2L), ResponseCache.postTag(2L),
+                ResponseCache.commentsTag(3L), ResponseCache.postTag(3L), ResponseCache.FEED_TAG);
+    }
+
+    @Test
+    void handle_ShouldCoalesceFeedChangesPerBatch() {
+        invalidator.handle(List.of(
+                PostEvent.postCreated(4L, 1L),
+                PostEvent.postCreated(5L, 2L),
+                PostEvent.postUpdated(3L, 3L)));
+
+        verify(feedVersion, times(1)).bump();
+        verify(responseCache, times(1)).purge(ResponseCache.postTag(3L), ResponseCache.FEED_TAG);
+        assertNull(authorPosts.get(1L));
+        assertNull(authorPosts.get(2L));
+        assertNull(authorPosts.get(3L));
+        assertNull(postContent.get(3L));
+        assertNotNull(postContent.get(1L));
+    }
+}
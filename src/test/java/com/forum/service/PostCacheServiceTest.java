@@ -1,8 +1,9 @@
 package com.forum.service;
 
-import com.forum.dto.response.PostResponse;
+import com.forum.cache.TwoLevelCache;
 import com.forum.exception.ResourceNotFoundException;
 import com.forum.model.Post;
+import com.forum.model.PostContent;
 import com.forum.model.PostWithUserName;
 import com.forum.repository.PostRepository;
 import org.junit.jupiter.api.AfterEach;
@@ -16,9 +17,12 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -59,7 +63,7 @@ class PostCacheServiceTest {
     }
 
     @Test
-    void getPostByIdFromCacheOrDB_WhenPostExists_ShouldReturnPostResponse() {
+    void getPostContent_WhenPostExists_ShouldReturnPostContent() {
         Long postId = 1L;
         String username = "testUser";
         Post post = createSamplePost(postId, 20);
@@ -67,40 +71,58 @@ class PostCacheServiceTest {
 
         when(postRepository.findPostWithUsernameById(postId)).thenReturn(Optional.of(postWithUserName));
 
-        PostResponse result = postCacheService.getPostByIdFromCacheOrDB(postId);
+        PostContent result = postCacheService.getPostContent(postId);
 
         assertNotNull(result);
         assertEquals(postId, result.getId());
+        assertEquals(post.getTitle(), result.getTitle());
         assertEquals(username, result.getAuthorUsername());
         verify(postRepository, times(1)).findPostWithUsernameById(postId);
     }
 
     @Test
-    void getPostByIdFromCacheOrDB_WhenPostNotFound_ShouldThrowException() {
+    void getPostContent_WhenPostNotFound_ShouldThrowException() {
         Long postId = 999L;
         when(postRepository.findPostWithUsernameById(postId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () ->
-                postCacheService.getPostByIdFromCacheOrDB(postId)
+                postCacheService.getPostContent(postId)
         );
         verify(postRepository, times(1)).findPostWithUsernameById(postId);
     }
 
 
     @Test
-    void getPostByIdFromCacheOrDB_WhenViewCountLessThan10_ShouldNotBeCached() {
+    void getPostContent_ShouldMapRegardlessOfViewCount() {
         Long postId = 2L;
-        Post post = createSamplePost(postId, 5);
+        Post post = createSamplePost(postId, 0);
         PostWithUserName postWithUserName = new PostWithUserName(post, "testUser");
 
         when(postRepository.findPostWithUsernameById(postId)).thenReturn(Optional.of(postWithUserName));
 
-        PostResponse firstResult = postCacheService.getPostByIdFromCacheOrDB(postId);
-        PostResponse secondResult = postCacheService.getPostByIdFromCacheOrDB(postId);
+        PostContent result = postCacheService.getPostContent(postId);
 
-        assertNotNull(firstResult);
-        assertNotNull(secondResult);
-        verify(postRepository, times(2)).findPostWithUsernameById(postId);
+        assertEquals(post.getContent(), result.getContent());
+        assertTrue(result.isPublished());
+    }
+
+    @Test
+    void getPostContents_ShouldLoadOnlyMisses_AndWriteThemBackInOneBatch() {
+        TwoLevelCache contentCache = mock(TwoLevelCache.class);
+        PostContent cached = new PostContent();
+        cached.setId(1L);
+        when(cacheManager.getCache("postContent")).thenReturn(contentCache);
+        when(contentCache.getAll(List.of(1L, 2L, 3L))).thenReturn(Map.of(1L, cached));
+        when(postRepository.findPostsWithUsernameByIdIn(List.of(2L, 3L)))
+                .thenReturn(List.of(new PostWithUserName(createSamplePost(2L, 0), "testUser")));
+
+        Map<Long, PostContent> result = postCacheService.getPostContents(List.of(1L, 2L, 3L, 1L));
+
+        assertEquals(2, result.size());
+        assertSame(cached, result.get(1L));
+        assertEquals("testUser", result.get(2L).getAuthorUsername());
+        verify(contentCache).putAll(Map.of(2L, result.get(2L)));
+        verify(postRepository, never()).findPostWithUsernameById(any());
     }
 
     private Post createSamplePost(Long id, int viewCount) {
@@ -0,0 +1,68 @@
+package com.forum.service;
+
+import com.forum.cache.PostCounterCache;
+import com.forum.dto.response.CommentResponse;
+import com.forum.model.PostEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostCounterUpdaterTest {
+
+    @Mock
+    private PostCounterCache postCounterCache;
+
+    @Mock
+    private TrendingService trendingService;
+
+    @InjectMocks
+    private PostCounterUpdater updater;
+
+    @Test
+    void handle_ShouldReseedChangedCounts_OncePerPost_AndRankCommentsById() {
+        CommentResponse first = new CommentResponse(7L, 1L, 1L, "testUser", "Hi", null, null, null, List.of());
+        CommentResponse second = new CommentResponse(8L, 1L, 1L, "testUser", "Hi again", null, null, null, List.of());
+
+        updater.handle(List.of(
+                PostEvent.commentCreated(first),
+                PostEvent.commentCreated(second),
+                PostEvent.commentsDeleted(2L, List.of(9L, 10L)),
+                PostEvent.commentsDeleted(3L, null)));
+
+        verify(postCounterCache, times(1)).evict(1L);
+        verify(postCounterCache).evict(2L);
+        verify(postCounterCache).evict(3L);
+        verify(trendingService).recordComment(1L, 7L);
+        verify(trendingService).recordComment(1L, 8L);
+        verifyNoMoreInteractions(postCounterCache, trendingService);
+    }
+
+    @Test
+    void handle_Redelivery_ShouldRepeatOnlyIdempotentCalls() {
+        CommentResponse comment = new CommentResponse(7L, 1L, 1L, "testUser", "Hi", null, null, null, List.of());
+        List<PostEvent> batch = List.of(PostEvent.commentCreated(comment));
+
+        updater.handle(batch);
+        updater.handle(batch);
+
+        verify(postCounterCache, times(2)).evict(1L);
+        // TrendingService counts a comment id once however often it is reported
+        verify(trendingService, times(2)).recordComment(1L, 7L);
+        verifyNoMoreInteractions(postCounterCache, trendingService);
+    }
+
+    @Test
+    void handle_PostDeleted_ShouldDropItFromTrending() {
+        updater.handle(List.of(PostEvent.postCreated(3L, 1L), PostEvent.postDeleted(2L, 1L)));
+
+        verify(trendingService).remove(2L);
+        verifyNoInteractions(postCounterCache);
+    }
+}
@@ -0,0 +1,112 @@
+package com.forum.service;
+
+import com.forum.cache.LoadLease;
+import com.forum.repository.PostRepository;
+import com.forum.util.PostExcerpt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostExcerptBackfillServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private PostCacheInvalidator postCacheInvalidator;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private LoadLease lease;
+
+    private PostExcerptBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        backfillService = new PostExcerptBackfillService(postRepository, postCacheInvalidator, redisTemplate, lease, 2);
+    }
+
+    @Test
+    void backfill_ShouldWalkPostsInIdRanges() {
+        when(postRepository.findMaxId()).thenReturn(5L);
+        when(postRepository.backfillExcerpts(anyLong(), anyLong(), eq(PostExcerpt.MAX_LENGTH))).thenReturn(2, 2, 1);
+
+        assertEquals(5, backfillService.backfill());
+        verify(postRepository).backfillExcerpts(0, 2, PostExcerpt.MAX_LENGTH);
+        verify(postRepository).backfillExcerpts(2, 4, PostExcerpt.MAX_LENGTH);
+        verify(postRepository).backfillExcerpts(4, 6, PostExcerpt.MAX_LENGTH);
+    }
+
+    @Test
+    void backfillOnStartup_WhenPostsWereUpdated_ShouldInvalidateAuthorPages_AndLeaveAMarker() {
+        startAsLeaseHolder();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(postRepository.findMaxId()).thenReturn(1L);
+        when(postRepository.backfillExcerpts(anyLong(), anyLong(), anyInt())).thenReturn(1);
+
+        backfillService.backfillOnStartup();
+
+        verify(postCacheInvalidator).allAuthorPagesChanged();
+        verify(valueOperations).set(PostExcerptBackfillService.DONE_KEY, "1");
+        verify(lease).release(any(), eq("token"));
+    }
+
+    @Test
+    void backfillOnStartup_WhenNothingToBackfill_ShouldLeaveCachesAlone() {
+        startAsLeaseHolder();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(postRepository.findMaxId()).thenReturn(0L);
+
+        backfillService.backfillOnStartup();
+
+        verifyNoInteractions(postCacheInvalidator);
+    }
+
+    @Test
+    void backfillOnStartup_WhenAlreadyDone_ShouldNotTouchTheTable() {
+        when(redisTemplate.hasKey(PostExcerptBackfillService.DONE_KEY)).thenReturn(true);
+
+        backfillService.backfillOnStartup();
+
+        verifyNoInteractions(postRepository, lease);
+    }
+
+    @Test
+    void backfillOnStartup_WhenAnotherNodeHoldsTheLease_ShouldLeaveItToThatNode() {
+        when(redisTemplate.hasKey(PostExcerptBackfillService.DONE_KEY)).thenReturn(false);
+        when(lease.tryAcquire(any())).thenReturn(null);
+
+        backfillService.backfillOnStartup();
+
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    void backfillOnStartup_WhenDatabaseFails_ShouldNotPropagate_NorMarkItDone() {
+        startAsLeaseHolder();
+        when(postRepository.findMaxId()).thenThrow(new IllegalStateException("db down"));
+
+        assertDoesNotThrow(() -> backfillService.backfillOnStartup());
+
+        verify(redisTemplate, never()).opsForValue();
+        verify(lease).release(any(), eq("token"));
+    }
+
+    private void startAsLeaseHolder() {
+        when(redisTemplate.hasKey(PostExcerptBackfillService.DONE_KEY)).thenReturn(false);
+        when(lease.tryAcquire(any())).thenReturn("token");
+    }
+}
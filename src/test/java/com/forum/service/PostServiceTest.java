@@ -1,31 +1,47 @@
 package com.forum.service;
 
+import com.forum.cache.PostCounterCache;
+import com.forum.cache.VersionStamp;
 import com.forum.dto.request.PostRequest;
+import com.forum.dto.response.CursorPageResponse;
 import com.forum.dto.response.PostResponse;
+import com.forum.dto.response.PostSummaryResponse;
+import com.forum.exception.BadRequestException;
 import com.forum.exception.ResourceNotFoundException;
 import com.forum.model.Post;
+import com.forum.model.PostContent;
+import com.forum.model.PostCounters;
+import com.forum.model.PostEvent;
 import com.forum.model.PostWithUserName;
+import com.forum.model.ResourceVersion;
 import com.forum.model.User;
 import com.forum.repository.CommentRepository;
 import com.forum.repository.PostRepository;
 import com.forum.repository.UserRepository;
+import com.forum.util.PageCursor;
+import com.forum.util.PostExcerpt;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +59,21 @@ public class PostServiceTest {
     @Mock
     private PostCacheService postCacheService;
 
+    @Mock
+    private ViewCountService viewCountService;
+
+    @Mock
+    private TrendingService trendingService;
+
+    @Mock
+    private PostCounterCache postCounterCache;
+
+    @Mock
+    private VersionStamp feedVersion;
+
+    @Mock
+    private OutboxService outboxService;
+
     @InjectMocks
     private PostService postService;
 
@@ -94,6 +125,19 @@ public class PostServiceTest {
         verify(postRepository, times(1)).save(any(Post.class));
     }
 
+    @Test
+    void createPost_ShouldStoreExcerpt_WithContent() {
+        testPostRequest.setContent("First line\n\n   second line");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        postService.createPost(testPostRequest, 1L);
+
+        ArgumentCaptor<Post> saved = ArgumentCaptor.forClass(Post.class);
+        verify(postRepository).save(saved.capture());
+        assertEquals("First line second line", saved.getValue().getExcerpt());
+    }
+
     @Test
     void createPost_ShouldThrowResourceNotFoundException_WhenUserDoesNotExist() {
         
@@ -107,65 +151,268 @@ public class PostServiceTest {
     }
 
     @Test
-    void getPostById_ShouldReturnPostResponse_WhenPostExists() {
-        
-        PostResponse expectedResponse = new PostResponse();
-        expectedResponse.setId(1L);
-        expectedResponse.setTitle("Test Title");
+    void createPost_ShouldRecordEvent_AndLeaveCachesToItsSubscribers() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(postRepository.save(any(Post.class))).thenReturn(testPost);
 
-        when(postCacheService.getPostByIdFromCacheOrDB(1L)).thenReturn(expectedResponse);
-        when(postRepository.incrementViewCount(1L)).thenReturn(2);
+        postService.createPost(testPostRequest, 1L);
+
+        PostEvent event = recordedEvent();
+        assertEquals(PostEvent.Type.POST_CREATED, event.getType());
+        assertEquals(1L, event.getPostId());
+        assertEquals(1L, event.getAuthorId());
+        verifyNoInteractions(feedVersion, postCounterCache, trendingService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getPostsByIds_ShouldKeepRequestOrder_WithoutCountingViews() {
+        PostContent first = new PostContent();
+        first.setId(1L);
+        PostContent third = new PostContent();
+        third.setId(3L);
+
+        when(postCacheService.getPostContents(List.of(3L, 2L, 1L))).thenReturn(Map.of(1L, first, 3L, third));
+        when(postCounterCache.getAll(any(), any())).thenReturn(Map.of(1L, new PostCounters(10, 2)));
+
+        List<PostResponse> result = postService.getPostsByIds(List.of(3L, 2L, 1L, 3L));
+
+        assertEquals(List.of(3L, 1L), result.stream().map(PostResponse::getId).collect(java.util.stream.Collectors.toList()));
+        assertEquals(0, result.get(0).getViewCount());
+        assertEquals(10, result.get(1).getViewCount());
+        verify(viewCountService, never()).increment(any());
+    }
+
+    @Test
+    void getPostsByIds_ShouldRejectOversizedBatch() {
+        List<Long> ids = java.util.stream.LongStream.rangeClosed(1, PostService.MAX_BATCH_SIZE + 1)
+                .boxed().collect(java.util.stream.Collectors.toList());
+
+        assertThrows(BadRequestException.class, () -> postService.getPostsByIds(ids));
+        verifyNoInteractions(postCacheService);
+    }
+
+    @Test
+    void getPostVersion_ShouldDeriveWeakETag_FromCachedContentAndCommentCount() {
+        PostContent content = new PostContent();
+        content.setId(1L);
+        content.setUpdatedAt(LocalDateTime.of(2025, 9, 1, 12, 0));
+        long updatedMillis = content.getUpdatedAt().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        when(postCacheService.getPostContent(1L)).thenReturn(content);
+        when(postCounterCache.get(eq(1L), any())).thenReturn(new PostCounters(40, 3L), new PostCounters(41, 4L));
+
+        ResourceVersion version = postService.getPostVersion(1L);
+
+        assertEquals("W/\"p1-" + updatedMillis + "-3\"", version.getEtag());
+        assertEquals(-1, version.getLastModified(), "a new comment does not move the modification time");
+        assertNotEquals(version.getEtag(), postService.getPostVersion(1L).getEtag());
+        verifyNoInteractions(viewCountService);
+    }
+
+    @Test
+    void getFeedETag_ShouldBeNull_WhenVersionUnavailable() {
+        when(feedVersion.current()).thenReturn(null, "42");
+
+        assertNull(postService.getFeedETag());
+        assertEquals("W/\"f42\"", postService.getFeedETag());
+    }
+
+    @Test
+    void getPostById_ShouldMergeCachedContent_WithLiveCounters() {
+        PostContent content = new PostContent();
+        content.setId(1L);
+        content.setTitle("Test Title");
+
+        when(postCacheService.getPostContent(1L)).thenReturn(content);
+        when(postCounterCache.get(eq(1L), any())).thenReturn(new PostCounters(40, 6));
 
         PostResponse result = postService.getPostById(1L);
 
         assertNotNull(result);
-        assertEquals(expectedResponse.getId(), result.getId());
-        assertEquals(expectedResponse.getTitle(), result.getTitle());
-        verify(postRepository, times(1)).incrementViewCount(1L);
-        verify(postCacheService, times(1)).getPostByIdFromCacheOrDB(1L);
+        assertEquals(content.getId(), result.getId());
+        assertEquals(content.getTitle(), result.getTitle());
+        assertEquals(40, result.getViewCount());
+        assertEquals(6, result.getCommentCount());
+        verify(viewCountService, times(1)).increment(1L);
+        verify(postCacheService, times(1)).getPostContent(1L);
+    }
+
+    @Test
+    void getPostById_ShouldAddPendingViews_ToStoredViewCount() {
+        PostContent content = new PostContent();
+        content.setId(1L);
+
+        when(postCacheService.getPostContent(1L)).thenReturn(content);
+        when(postCounterCache.get(eq(1L), any())).thenReturn(new PostCounters(40, 0));
+        when(viewCountService.getPendingDelta(1L)).thenReturn(3L);
+
+        PostResponse result = postService.getPostById(1L);
+
+        assertEquals(43, result.getViewCount());
     }
 
     @Test
-    void incrementViewCount_ShouldUpdateCount_WhenPostExists() {
-        when(postRepository.incrementViewCount(1L)).thenReturn(1);
+    @SuppressWarnings("unchecked")
+    void getPostById_ShouldLoadCountersFromDatabase_WhenNotCached() {
+        when(postCacheService.getPostContent(1L)).thenReturn(new PostContent());
+        when(postCounterCache.get(eq(1L), any())).thenAnswer(invocation ->
+                ((Supplier<PostCounters>) invocation.getArgument(1)).get());
+        when(postRepository.findCountersById(1L)).thenReturn(Optional.of(new PostCounters(5, 2)));
 
-        assertDoesNotThrow(() -> postService.incrementViewCount(1L));
+        PostResponse result = postService.getPostById(1L);
 
-        verify(postRepository, times(1)).incrementViewCount(1L);
+        assertEquals(5, result.getViewCount());
+        assertEquals(2, result.getCommentCount());
     }
 
     @Test
-    void incrementViewCount_ShouldThrowException_WhenPostDoesNotExist() {
-        when(postRepository.incrementViewCount(1L)).thenReturn(0);
+    void getPostById_ShouldNotCountView_WhenPostDoesNotExist() {
+        when(postCacheService.getPostContent(1L))
+                .thenThrow(new ResourceNotFoundException("Post not found with id: 1"));
 
         assertThrows(ResourceNotFoundException.class, () -> {
-            postService.incrementViewCount(1L);
+            postService.getPostById(1L);
         });
-        verify(postRepository, times(1)).incrementViewCount(1L);
+        verify(viewCountService, never()).increment(anyLong());
     }
 
     @Test
-    void getAllPublishedPosts_ShouldReturnPageOfPostResponses() {
+    void getAllPublishedPosts_ShouldReturnPageOfSummaries() {
         
         Pageable pageable = Pageable.ofSize(10);
-        List<PostWithUserName> postList = Arrays.asList(testPostWithUserName);
-        Page<PostWithUserName> postPage = new PageImpl<>(postList, pageable, postList.size());
+        List<PostSummaryResponse> postList = Arrays.asList(summary(testPost));
+        Page<PostSummaryResponse> postPage = new PageImpl<>(postList, pageable, postList.size());
 
-        when(postRepository.findAllPublishedPostsWithAuthors(pageable)).thenReturn(postPage);
+        when(postRepository.findPublishedPostSummaries(pageable)).thenReturn(postPage);
 
-        Page<PostResponse> result = postService.getAllPublishedPosts(pageable);
+        Page<PostSummaryResponse> result = postService.getAllPublishedPosts(pageable);
 
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals(testPost.getTitle(), result.getContent().get(0).getTitle());
-        verify(postRepository, times(1)).findAllPublishedPostsWithAuthors(pageable);
+        verify(postRepository, times(1)).findPublishedPostSummaries(pageable);
+    }
+
+    @Test
+    void getPublishedPostFeed_ShouldReturnNextCursor_WhenMoreRowsExist() {
+        Post older = new Post();
+        older.setId(2L);
+        older.setTitle("Older");
+        testPost.setCommentCount(12);
+        older.setCreatedAt(testPost.getCreatedAt().minusMinutes(1));
+        List<PostSummaryResponse> rows = Arrays.asList(summary(testPost), summary(older));
+
+        when(postRepository.findPublishedPostFeed(PageRequest.of(0, 2))).thenReturn(rows);
+
+        CursorPageResponse<PostSummaryResponse> result = postService.getPublishedPostFeed(null, 1);
+
+        assertEquals(1, result.getContent().size());
+        assertEquals(12, result.getContent().get(0).getCommentCount());
+        assertTrue(result.isHasNext());
+        PageCursor next = PageCursor.decode(result.getNextCursor());
+        assertEquals(testPost.getId(), next.getId());
+        assertEquals(testPost.getCreatedAt(), next.getCreatedAt());
+    }
+
+    @Test
+    void getPublishedPostFeed_ShouldSeekPastCursor_WithoutCountQuery() {
+        String cursor = PageCursor.of(testPost.getCreatedAt(), 5L).encode();
+        when(postRepository.findPublishedPostFeedAfter(testPost.getCreatedAt(), 5L, PageRequest.of(0, 21)))
+                .thenReturn(Arrays.asList(summary(testPost)));
+
+        CursorPageResponse<PostSummaryResponse> result = postService.getPublishedPostFeed(cursor, 20);
+
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        verify(postRepository, never()).findPublishedPostSummaries(any(Pageable.class));
+    }
+
+    @Test
+    void getPostsByAuthor_FirstPage_ShouldBeServedFromCachedPage() {
+        List<PostSummaryResponse> cachedPage = new java.util.ArrayList<>();
+        for (long id = 21; id >= 1; id--) {
+            cachedPage.add(summary(id, LocalDateTime.of(2025, 9, 1, 12, 0).plusMinutes(id)));
+        }
+        when(postCacheService.getAuthorFirstPage(1L)).thenReturn(cachedPage);
+
+        CursorPageResponse<PostSummaryResponse> page = postService.getPostsByAuthor(1L, null, 5);
+
+        assertEquals(5, page.getContent().size());
+        assertTrue(page.isHasNext());
+        assertEquals(PageCursor.of(cachedPage.get(4).getCreatedAt(), 17L).encode(), page.getNextCursor());
+        assertEquals(21, cachedPage.size());
+        verify(postRepository, never()).findPublishedPostsByAuthor(any(), any());
+    }
+
+    @Test
+    void getPostsByAuthor_WithCursor_ShouldSeekWithinAuthor() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 9, 1, 12, 0);
+        String cursor = PageCursor.of(createdAt, 40L).encode();
+        when(postRepository.findPublishedPostsByAuthorAfter(1L, createdAt, 40L, PageRequest.of(0, 11)))
+                .thenReturn(List.of(summary(39L, createdAt.minusMinutes(1))));
+
+        CursorPageResponse<PostSummaryResponse> page = postService.getPostsByAuthor(1L, cursor, 10);
+
+        assertEquals(1, page.getContent().size());
+        assertFalse(page.isHasNext());
+        verifyNoInteractions(postCacheService);
+    }
+
+    @Test
+    void getPostsByAuthor_ShouldThrowNotFound_WhenAuthorDoesNotExist() {
+        when(postCacheService.getAuthorFirstPage(9L)).thenReturn(List.of());
+        when(userRepository.existsById(9L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> postService.getPostsByAuthor(9L, null, 20));
+    }
+
+    @Test
+    void getPublishedPostFeed_ShouldRejectMalformedCursor() {
+        assertThrows(BadRequestException.class, () -> postService.getPublishedPostFeed("not-a-cursor", 20));
+    }
+
+    @Test
+    void getTrendingPosts_ShouldKeepRankOrder_AndSkipUnpublishedPosts() {
+        Post second = new Post();
+        second.setId(2L);
+        second.setTitle("Second");
+        when(trendingService.getTopPostIds(3)).thenReturn(Arrays.asList(2L, 3L, 1L));
+        when(postRepository.findPublishedPostsWithAuthorsByIdIn(Arrays.asList(2L, 3L, 1L)))
+                .thenReturn(Arrays.asList(testPostWithUserName, new PostWithUserName(second, "testUser")));
+
+        List<PostResponse> result = postService.getTrendingPosts(3);
+
+        assertEquals(2, result.size());
+        assertEquals(2L, result.get(0).getId());
+        assertEquals(1L, result.get(1).getId());
+    }
+
+    @Test
+    void getTrendingPosts_ShouldAddViewsNotYetFlushed() {
+        when(trendingService.getTopPostIds(1)).thenReturn(List.of(1L));
+        when(postRepository.findPublishedPostsWithAuthorsByIdIn(List.of(1L))).thenReturn(List.of(testPostWithUserName));
+        when(viewCountService.getPendingDelta(1L)).thenReturn(4L);
+
+        List<PostResponse> result = postService.getTrendingPosts(1);
+
+        assertEquals(testPost.getViewCount() + 4, result.get(0).getViewCount());
+    }
+
+    @Test
+    void getTrendingPosts_ShouldCapLimit_AndSkipQuery_WhenNothingRanked() {
+        when(trendingService.getTopPostIds(100)).thenReturn(List.of());
+
+        assertTrue(postService.getTrendingPosts(1000).isEmpty());
+        verify(postRepository, never()).findPublishedPostsWithAuthorsByIdIn(any());
     }
 
     @Test
     void updatePost_ShouldReturnUpdatedPost_WhenUserIsAuthor() {
         
         when(postRepository.findById(1L)).thenReturn(Optional.of(testPost));
-        when(postRepository.save(any(Post.class))).thenReturn(testPost);
+        when(postRepository.saveAndFlush(any(Post.class))).thenReturn(testPost);
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
 
         PostResponse result = postService.updatePost(1L, testPostRequest, 1L);
@@ -174,8 +421,9 @@ public class PostServiceTest {
         assertEquals(testPostRequest.getTitle(), result.getTitle());
         assertEquals(testPostRequest.getContent(), result.getContent());
         verify(postRepository, times(1)).findById(1L);
-        verify(postRepository, times(1)).save(any(Post.class));
+        verify(postRepository, times(1)).saveAndFlush(any(Post.class));
         verify(userRepository, times(1)).findById(1L);
+        assertEquals(PostEvent.Type.POST_UPDATED, recordedEvent().getType());
     }
 
     @Test
@@ -187,7 +435,7 @@ public class PostServiceTest {
             postService.updatePost(1L, testPostRequest, 1L);
         });
         verify(postRepository, times(1)).findById(1L);
-        verify(postRepository, never()).save(any(Post.class));
+        verify(postRepository, never()).saveAndFlush(any(Post.class));
     }
 
     @Test
@@ -198,18 +446,21 @@ public class PostServiceTest {
             postService.updatePost(1L, testPostRequest, 2L); // 不同的用户ID
         });
         verify(postRepository, times(1)).findById(1L);
-        verify(postRepository, never()).save(any(Post.class));
+        verify(postRepository, never()).saveAndFlush(any(Post.class));
     }
 
     @Test
-    void deletePost_ShouldDeletePost_WhenUserIsAuthor() {
+    void deletePost_ShouldSoftDeletePost_WhenUserIsAuthor() {
         when(postRepository.findById(1L)).thenReturn(Optional.of(testPost));
 
         assertDoesNotThrow(() -> postService.deletePost(1L, 1L));
 
         verify(postRepository, times(1)).findById(1L);
-        verify(commentRepository, times(1)).deleteByPostId(1L);
-        verify(postRepository, times(1)).delete(testPost);
+        assertNotNull(testPost.getDeletedAt());
+        verify(postRepository, times(1)).saveAndFlush(testPost);
+        verify(postRepository, never()).delete(any(Post.class));
+        verifyNoInteractions(commentRepository);
+        assertEquals(PostEvent.Type.POST_DELETED, recordedEvent().getType());
     }
 
     @Test
@@ -220,8 +471,7 @@ public class PostServiceTest {
             postService.deletePost(1L, 1L);
         });
         verify(postRepository, times(1)).findById(1L);
-        verify(commentRepository, never()).deleteByPostId(anyLong());
-        verify(postRepository, never()).delete(any(Post.class));
+        verify(postRepository, never()).saveAndFlush(any(Post.class));
     }
 
     @Test
@@ -232,7 +482,22 @@ public class PostServiceTest {
             postService.deletePost(1L, 2L); // 不同的用户ID
         });
         verify(postRepository, times(1)).findById(1L);
-        verify(commentRepository, never()).deleteByPostId(anyLong());
-        verify(postRepository, never()).delete(any(Post.class));
+        verify(postRepository, never()).saveAndFlush(any(Post.class));
+    }
+
+    private static PostSummaryResponse summary(Post post) {
+        return new PostSummaryResponse(post.getId(), post.getTitle(), PostExcerpt.of(post.getContent()),
+                post.getAuthorId(), "testUser", post.getCreatedAt(), post.getUpdatedAt(),
+                post.getViewCount(), post.getCommentCount());
+    }
+
+    private static PostSummaryResponse summary(Long id, LocalDateTime createdAt) {
+        return new PostSummaryResponse(id, "Title " + id, "Excerpt", 1L, "testUser", createdAt, createdAt, 0, 0);
+    }
+
+    private PostEvent recordedEvent() {
+        ArgumentCaptor<PostEvent> event = ArgumentCaptor.forClass(PostEvent.class);
+        verify(outboxService).record(event.capture());
+        return event.getValue();
     }
 }
@@ -0,0 +1,162 @@
+package com.forum.service;
+
+import com.forum.dto.response.SearchResponse;
+import com.forum.exception.BadRequestException;
+import com.forum.model.Comment;
+import com.forum.model.CommentWithUserName;
+import com.forum.model.Post;
+import com.forum.model.PostWithUserName;
+import com.forum.repository.CommentRepository;
+import com.forum.repository.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private SearchService searchService;
+
+    @Test
+    void search_Posts_ShouldKeepRelevanceOrder_AndHighlight() {
+        when(postRepository.searchPublishedPostIds("redis", 3, 0)).thenReturn(Arrays.asList(
+                new Object[]{BigInteger.valueOf(2), 1.5d},
+                new Object[]{BigInteger.valueOf(1), 0.5d}));
+        when(postRepository.findPublishedPostsWithAuthorsByIdIn(anyCollection())).thenReturn(Arrays.asList(
+                new PostWithUserName(post(1L, "Caching", "Try redis"), "alice"),
+                new PostWithUserName(post(2L, "Redis tips", "Use pipelines"), "bob")));
+
+        SearchResponse response = searchService.search(" redis ", SearchService.TYPE_POSTS, 0, 2);
+
+        assertEquals(2, response.getHits().size());
+        assertFalse(response.isHasNext());
+        assertEquals(2L, response.getHits().get(0).getId());
+        assertEquals("bob", response.getHits().get(0).getAuthorUsername());
+        assertEquals(1.5d, response.getHits().get(0).getScore());
+        assertTrue(response.getHits().get(0).getHighlight().contains("<em>Redis</em>"));
+        assertEquals(1L, response.getHits().get(1).getId());
+    }
+
+    @Test
+    void search_Posts_ShouldSkipRowsQuery_WhenNothingMatches() {
+        when(postRepository.searchPublishedPostIds("nothing", 21, 40)).thenReturn(Collections.emptyList());
+
+        SearchResponse response = searchService.search("nothing", SearchService.TYPE_POSTS, 2, 20);
+
+        assertTrue(response.getHits().isEmpty());
+        assertEquals(2, response.getPage());
+        verify(postRepository, never()).findPublishedPostsWithAuthorsByIdIn(any());
+        assertEquals(1, searchService.getSearches());
+    }
+
+    @Test
+    void search_Comments_ShouldReportNextPage_WhenExtraRowReturned() {
+        when(commentRepository.searchCommentIds("cache", 2, 0)).thenReturn(Arrays.asList(
+                new Object[]{7L, 2.0d},
+                new Object[]{8L, 1.0d}));
+        when(commentRepository.findWithUsernamesByIdIn(anyCollection())).thenReturn(Arrays.asList(
+                new CommentWithUserName(comment(7L, "cache me"), "alice"),
+                new CommentWithUserName(comment(8L, "cache you"), "bob")));
+
+        SearchResponse response = searchService.search("cache", SearchService.TYPE_COMMENTS, 0, 1);
+
+        assertEquals(1, response.getHits().size());
+        assertTrue(response.isHasNext());
+        assertEquals(7L, response.getHits().get(0).getId());
+        assertEquals(3L, response.getHits().get(0).getPostId());
+    }
+
+    @Test
+    void search_ShouldRejectBlankQuery_AndUnknownType() {
+        assertThrows(BadRequestException.class, () -> searchService.search("  ", SearchService.TYPE_POSTS, 0, 20));
+        assertThrows(BadRequestException.class, () -> searchService.search("redis", "users", 0, 20));
+        assertThrows(BadRequestException.class,
+                () -> searchService.search("x".repeat(SearchService.MAX_QUERY_LENGTH + 1), SearchService.TYPE_POSTS, 0, 20));
+    }
+
+    @Test
+    void search_ShouldRejectPagesBeyondTheResultCap_EvenWhenTheOffsetWouldOverflow() {
+        assertThrows(BadRequestException.class,
+                () -> searchService.search("redis", SearchService.TYPE_POSTS, SearchService.MAX_RESULTS / 20, 20));
+        assertThrows(BadRequestException.class,
+                () -> searchService.search("redis", SearchService.TYPE_POSTS, Integer.MAX_VALUE, 50));
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    void search_OnTheLastPageBeforeTheCap_ShouldNotReportANextPage() {
+        int lastPage = SearchService.MAX_RESULTS / 20 - 1;
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 21; id++) {
+            rows.add(new Object[]{id, 1.0d});
+        }
+        when(postRepository.searchPublishedPostIds("redis", 21, lastPage * 20)).thenReturn(rows);
+        when(postRepository.findPublishedPostsWithAuthorsByIdIn(anyCollection())).thenReturn(Collections.emptyList());
+
+        SearchResponse response = searchService.search("redis", SearchService.TYPE_POSTS, lastPage, 20);
+
+        assertFalse(response.isHasNext());
+    }
+
+    @Test
+    void ensureIndexes_ShouldOnlyReportMissingIndexes_ByDefault() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), anyString(), anyString())).thenReturn(0);
+
+        searchService.ensureIndexes();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void ensureIndexes_ShouldCreateOnlyMissingIndexes_WhenEnabled() {
+        ReflectionTestUtils.setField(searchService, "createMissingIndexes", true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq("posts"), anyString())).thenReturn(1);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq("comments"), anyString())).thenReturn(0);
+
+        searchService.ensureIndexes();
+
+        verify(jdbcTemplate).execute(
+                "ALTER TABLE comments ADD FULLTEXT INDEX ft_comments_content (content) WITH PARSER ngram");
+        verify(jdbcTemplate, times(1)).execute(anyString());
+    }
+
+    private static Post post(Long id, String title, String content) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle(title);
+        post.setContent(content);
+        return post;
+    }
+
+    private static Comment comment(Long id, String content) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setPostId(3L);
+        comment.setContent(content);
+        return comment;
+    }
+}
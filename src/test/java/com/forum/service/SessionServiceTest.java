@@ -0,0 +1,101 @@
+package com.forum.service;
+
+import com.forum.exception.InvalidTokenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private SessionService sessionService;
+
+    @BeforeEach
+    void setUp() {
+        sessionService = new SessionService(redisTemplate, Duration.ofDays(14), 10);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createSession_ShouldStoreHashedSecretOnly() {
+        String refreshToken = sessionService.createSession(42L, "Firefox");
+
+        String[] parts = refreshToken.split("\\.");
+        assertEquals(3, parts.length);
+        assertEquals("42", parts[0]);
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(SessionService.KEY_PREFIX + 42)), args.capture());
+        List<Object> values = args.getAllValues();
+        assertEquals(parts[1], values.get(0));
+        String entry = (String) values.get(1);
+        assertFalse(entry.contains(parts[2]));
+        assertTrue(entry.endsWith("|Firefox"));
+        assertEquals(String.valueOf(Duration.ofDays(14).toMillis()), values.get(3));
+        assertEquals("10", values.get(4));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refresh_ShouldRotateSecretOnSameSession() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any())).thenReturn(1L);
+
+        SessionService.RefreshedSession session = sessionService.refresh("42.session.secret");
+
+        assertEquals(42L, session.getUserId());
+        assertTrue(session.getRefreshToken().startsWith("42.session."));
+        assertNotEquals("42.session.secret", session.getRefreshToken());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refresh_ShouldReject_WhenSecretWasAlreadyUsed() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any())).thenReturn(-1L);
+
+        InvalidTokenException ex = assertThrows(InvalidTokenException.class,
+                () -> sessionService.refresh("42.session.secret"));
+        assertEquals("Refresh token has already been used", ex.getMessage());
+    }
+
+    @Test
+    void refresh_ShouldReject_MalformedTokenWithoutRedis() {
+        assertThrows(InvalidTokenException.class, () -> sessionService.refresh("not-a-refresh-token"));
+        assertThrows(InvalidTokenException.class, () -> sessionService.refresh("abc.session.secret"));
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void endSession_ShouldDeleteOnlyThatSession() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+
+        sessionService.endSession("42.session.secret");
+
+        verify(hashOperations).delete(SessionService.KEY_PREFIX + 42, "session");
+    }
+
+    @Test
+    void endAllSessions_ShouldDeleteTheUsersSessions() {
+        sessionService.endAllSessions(42L);
+
+        verify(redisTemplate).delete(SessionService.KEY_PREFIX + 42);
+    }
+}
@@ -0,0 +1,73 @@
+package com.forum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        revocationService = new TokenRevocationService(redisTemplate, 86400000L, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void isRevoked_WithoutCutoff_ShouldAcceptToken_AndCacheTheAnswer() {
+        when(valueOperations.get("auth:revoked-before:1")).thenReturn(null);
+
+        assertFalse(revocationService.isRevoked(1L, new Date()));
+        assertFalse(revocationService.isRevoked(1L, new Date()));
+
+        verify(valueOperations, times(1)).get("auth:revoked-before:1");
+    }
+
+    @Test
+    void isRevoked_ShouldRejectTokensIssuedBeforeCutoffOnly() {
+        long cutoff = Instant.now().getEpochSecond();
+        when(valueOperations.get("auth:revoked-before:1")).thenReturn(String.valueOf(cutoff));
+
+        assertTrue(revocationService.isRevoked(1L, Date.from(Instant.ofEpochSecond(cutoff - 60))));
+        assertFalse(revocationService.isRevoked(1L, Date.from(Instant.ofEpochSecond(cutoff))));
+    }
+
+    @Test
+    void revokeAllTokens_ShouldTakeEffectLocallyWithoutRereadingRedis() {
+        Date issuedEarlier = Date.from(Instant.now().minusSeconds(60));
+
+        revocationService.revokeAllTokens(1L);
+
+        verify(valueOperations).set(eq("auth:revoked-before:1"), anyString(), eq(Duration.ofMillis(86400000L)));
+        assertTrue(revocationService.isRevoked(1L, issuedEarlier));
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    void isRevoked_WhenRedisUnavailable_ShouldAcceptToken() {
+        when(valueOperations.get("auth:revoked-before:1")).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertFalse(revocationService.isRevoked(1L, new Date()));
+    }
+}
@@ -0,0 +1,114 @@
+package com.forum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    private TrendingService trendingService;
+
+    @BeforeEach
+    void setUp() {
+        trendingService = new TrendingService(redisTemplate, Duration.ofHours(6), Duration.ofDays(3), 10000, 1, 5);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordViews_ShouldAddWeightedViews_InOneScript() {
+        trendingService.recordViews(Map.of(7L, 3L));
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), args.capture());
+        assertEquals(List.of(TrendingService.RANKING_KEY, TrendingService.EPOCH_KEY), keys.getValue());
+        List<Object> values = args.getAllValues();
+        assertEquals(String.valueOf(Duration.ofHours(6).toMillis()), values.get(1));
+        assertEquals("7", values.get(2));
+        assertEquals("3.0", values.get(3));
+    }
+
+    @Test
+    void recordViews_ShouldSkipRedis_WhenNothingViewed() {
+        trendingService.recordViews(Map.of());
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordComment_ShouldNotFail_WhenRedisIsDown() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> trendingService.recordComment(7L, 70L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordComment_ShouldGuardEachCommentWithItsOwnMarker() {
+        trendingService.recordComment(7L, 70L);
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), args.capture());
+        assertEquals(List.of(TrendingService.RANKING_KEY, TrendingService.EPOCH_KEY,
+                TrendingService.COMMENT_MARKER_PREFIX + 70), keys.getValue());
+        List<Object> values = args.getAllValues();
+        assertEquals(String.valueOf(Duration.ofDays(3).getSeconds()), values.get(2));
+        assertEquals("7", values.get(3));
+        assertEquals("5.0", values.get(4));
+    }
+
+    @Test
+    void getTopPostIds_ShouldReturnIdsInRankOrder() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRange(TrendingService.RANKING_KEY, 0, 2))
+                .thenReturn(new LinkedHashSet<>(List.of("9", "4", "7")));
+
+        assertEquals(List.of(9L, 4L, 7L), trendingService.getTopPostIds(3));
+    }
+
+    @Test
+    void getTopPostIds_ShouldReturnEmpty_WhenRedisIsDown() {
+        when(redisTemplate.opsForZSet()).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertTrue(trendingService.getTopPostIds(3).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void renormalize_ShouldDropPosts_BelowOneViewAfterTheWindow() {
+        trendingService.renormalize();
+
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), args.capture());
+        List<Object> values = args.getAllValues();
+        // 3 days is 12 half-lives of 6 hours
+        assertEquals(String.valueOf(Math.pow(2, -12)), values.get(2));
+        assertEquals("10000", values.get(3));
+    }
+}
@@ -1,6 +1,7 @@
 package com.forum.service;
 
 import com.forum.model.User;
+import com.forum.model.UserPrincipal;
 import com.forum.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -72,4 +73,21 @@ class UserDetailsServiceImplTest {
 
         assertEquals(username, userDetails.getUsername());
     }
+
+    @Test
+    void loadUserByUsername_ShouldReturnPrincipalWithIdAndActiveFlag() {
+        User mockUser = new User();
+        mockUser.setId(7L);
+        mockUser.setUsername("testUser");
+        mockUser.setPasswordHash("hash");
+        mockUser.setActive(false);
+
+        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(mockUser));
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername("testUser");
+
+        assertTrue(userDetails instanceof UserPrincipal);
+        assertEquals(7L, ((UserPrincipal) userDetails).getId());
+        assertFalse(userDetails.isEnabled());
+    }
 }
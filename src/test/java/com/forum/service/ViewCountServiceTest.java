@@ -0,0 +1,156 @@
+package com.forum.service;
+
+import com.forum.cache.PostCounterCache;
+import com.forum.repository.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ViewCountServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private TrendingService trendingService;
+
+    @Mock
+    private PostCounterCache postCounterCache;
+
+    @InjectMocks
+    private ViewCountService viewCountService;
+
+    @Test
+    void increment_ShouldOnlyBufferViews_UntilFlush() {
+        viewCountService.increment(1L);
+        viewCountService.increment(1L);
+
+        assertEquals(2, viewCountService.getPendingDelta(1L));
+        assertEquals(0, viewCountService.getPendingDelta(2L));
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    void flush_ShouldGroupPostsWithSameDelta_IntoOneUpdate() {
+        viewCountService.increment(1L);
+        viewCountService.increment(2L);
+        viewCountService.increment(3L);
+        viewCountService.increment(3L);
+
+        viewCountService.flush();
+
+        verify(postRepository).incrementViewCounts(List.of(1L, 2L), 1);
+        verify(postRepository).incrementViewCounts(List.of(3L), 2);
+        verifyNoMoreInteractions(postRepository);
+        verify(postCounterCache).addViews(List.of(1L, 2L), 1);
+        verify(postCounterCache).addViews(List.of(3L), 2);
+        assertEquals(0, viewCountService.getPendingDelta(3L));
+    }
+
+    @Test
+    void flush_ShouldFeedDrainedViews_ToTrendingRanking() {
+        viewCountService.increment(1L);
+        viewCountService.increment(1L);
+        viewCountService.increment(2L);
+
+        viewCountService.flush();
+
+        verify(trendingService).recordViews(Map.of(1L, 2L));
+        verify(trendingService).recordViews(Map.of(2L, 1L));
+    }
+
+    @Test
+    void flush_ShouldRankFailedBatchOnce_WhenItIsWrittenOnRetry() {
+        viewCountService.increment(1L);
+        when(postRepository.incrementViewCounts(anyCollection(), anyInt()))
+                .thenThrow(new QueryTimeoutException("Lock wait timeout"));
+
+        viewCountService.flush();
+
+        verifyNoInteractions(trendingService);
+
+        reset(postRepository);
+        viewCountService.flush();
+
+        verify(trendingService, times(1)).recordViews(Map.of(1L, 1L));
+    }
+
+    @Test
+    void flush_ShouldSplitUpdates_ByBatchSize() {
+        ReflectionTestUtils.setField(viewCountService, "batchSize", 2);
+        viewCountService.increment(1L);
+        viewCountService.increment(2L);
+        viewCountService.increment(3L);
+
+        viewCountService.flush();
+
+        verify(postRepository).incrementViewCounts(List.of(1L, 2L), 1);
+        verify(postRepository).incrementViewCounts(List.of(3L), 1);
+    }
+
+    @Test
+    void flush_ShouldStopReportingBatchAsPending_OnceCachedCountersHaveIt() {
+        ReflectionTestUtils.setField(viewCountService, "batchSize", 1);
+        viewCountService.increment(1L);
+        viewCountService.increment(2L);
+        Map<Long, Long> pendingDuringSecondBatch = new HashMap<>();
+        when(postRepository.incrementViewCounts(anyCollection(), anyInt())).thenAnswer(invocation -> {
+            if (List.of(2L).equals(invocation.getArgument(0))) {
+                pendingDuringSecondBatch.put(1L, viewCountService.getPendingDelta(1L));
+                pendingDuringSecondBatch.put(2L, viewCountService.getPendingDelta(2L));
+            }
+            return 1;
+        });
+
+        viewCountService.flush();
+
+        assertEquals(Map.of(1L, 0L, 2L, 1L), pendingDuringSecondBatch);
+    }
+
+    @Test
+    void flush_ShouldDoNothing_WhenNoViewsRecorded() {
+        viewCountService.flush();
+
+        verifyNoInteractions(postRepository, trendingService);
+    }
+
+    @Test
+    void flush_ShouldKeepViews_WhenUpdateFails() {
+        viewCountService.increment(1L);
+        when(postRepository.incrementViewCounts(anyCollection(), anyInt()))
+                .thenThrow(new QueryTimeoutException("Lock wait timeout"));
+
+        viewCountService.flush();
+
+        assertEquals(1, viewCountService.getPendingDelta(1L));
+
+        reset(postRepository);
+        viewCountService.flush();
+
+        verify(postRepository).incrementViewCounts(List.of(1L), 1);
+        // Only the write that reached MySQL moves the cached counter
+        verify(postCounterCache, times(1)).addViews(List.of(1L), 1);
+    }
+
+    @Test
+    void flushOnShutdown_ShouldWriteBufferedViews() {
+        viewCountService.increment(5L);
+
+        viewCountService.flushOnShutdown();
+
+        verify(postRepository).incrementViewCounts(List.of(5L), 1);
+    }
+}
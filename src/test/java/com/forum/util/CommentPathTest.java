@@ -0,0 +1,37 @@
+package com.forum.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommentPathTest {
+
+    @Test
+    void root_ShouldBeFixedWidthSegment() {
+        assertEquals("0000000z/", CommentPath.root(35L));
+    }
+
+    @Test
+    void child_ShouldExtendParentPath() {
+        String parent = CommentPath.root(1L);
+
+        assertEquals("00000001/0000002s/", CommentPath.child(parent, 100L));
+    }
+
+    @Test
+    void pathAtDepthLimit_ShouldBeTheDeepestThatFitsTheColumn() {
+        String path = CommentPath.root(1L);
+        for (int depth = 1; depth <= CommentPath.DEPTH_LIMIT; depth++) {
+            path = CommentPath.child(path, depth + 1L);
+        }
+
+        assertTrue(path.length() <= 255);
+        assertTrue(path.length() + 9 > 255);
+    }
+
+    @Test
+    void paths_ShouldSortInIdOrderWithinALevel() {
+        assertTrue(CommentPath.root(9L).compareTo(CommentPath.root(10L)) < 0);
+        assertTrue(CommentPath.root(35L).compareTo(CommentPath.root(36L)) < 0);
+    }
+}
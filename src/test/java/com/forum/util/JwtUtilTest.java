@@ -1,5 +1,7 @@
 package com.forum.util;
 
+import com.forum.model.UserPrincipal;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,10 +10,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -34,6 +40,7 @@ public class JwtUtilTest {
     void setUp() {
         jwtUtil.jwtSecret = "testSecretKeyWithEnoughLengthToMeetHS256Requirements";
         jwtUtil.jwtExpirationMs = 3600000; // 1小时
+        jwtUtil.init();
 
         userDetails = new User("testUser", "password", Collections.emptyList());
         when(authentication.getPrincipal()).thenReturn(userDetails);
@@ -110,11 +117,64 @@ public class JwtUtilTest {
     void validateJwtToken_WithDifferentSecret_ShouldThrowException() {
         String originalSecret = jwtUtil.jwtSecret;
         jwtUtil.jwtSecret = "differentSecretKeyThatShouldFailVerification";
+        jwtUtil.init();
 
         assertThrows(JwtException.class, () -> {
             jwtUtil.validateJwtToken(validToken);
         });
 
         jwtUtil.jwtSecret = originalSecret;
+        jwtUtil.init();
+    }
+
+    @Test
+    void generateJwtToken_ForUserPrincipal_ShouldCarryUserIdAndRoles() {
+        UserPrincipal principal = new UserPrincipal(42L, "testUser", "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")), true);
+        when(authentication.getPrincipal()).thenReturn(principal);
+
+        Claims claims = jwtUtil.getClaimsFromJwtToken(jwtUtil.generateJwtToken(authentication));
+        UserPrincipal restored = jwtUtil.getPrincipalFromClaims(claims);
+
+        assertEquals(42L, restored.getId());
+        assertEquals("testUser", restored.getUsername());
+        assertNull(restored.getPassword());
+        assertEquals(List.of("ROLE_USER"), restored.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void getPrincipalFromClaims_WithoutUserIdClaim_ShouldReturnNull() {
+        Claims claims = jwtUtil.getClaimsFromJwtToken(validToken);
+
+        assertNull(jwtUtil.getPrincipalFromClaims(claims));
+    }
+
+    @Test
+    void verifyJwtToken_WithRepeatedToken_ShouldReuseVerifiedClaims() {
+        Claims first = jwtUtil.verifyJwtToken(validToken);
+        Claims second = jwtUtil.verifyJwtToken(validToken);
+
+        assertSame(first, second);
+        assertEquals("testUser", second.getSubject());
+    }
+
+    @Test
+    void verifyJwtToken_AfterTokenExpires_ShouldVerifyAgain() throws InterruptedException {
+        jwtUtil.jwtExpirationMs = 2000;
+        String shortLivedToken = jwtUtil.generateJwtToken(authentication);
+        jwtUtil.verifyJwtToken(shortLivedToken);
+
+        Thread.sleep(2100);
+
+        assertThrows(JwtException.class, () -> jwtUtil.verifyJwtToken(shortLivedToken));
+    }
+
+    @Test
+    void verifyJwtToken_WithTamperedCopyOfVerifiedToken_ShouldThrowException() {
+        jwtUtil.verifyJwtToken(validToken);
+
+        assertThrows(JwtException.class, () -> jwtUtil.verifyJwtToken(validToken + "tamper"));
     }
 }
@@ -0,0 +1,35 @@
+package com.forum.util;
+
+import com.forum.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void decode_ShouldReturnEncodedPosition() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 9, 1, 12, 30, 15, 123456000);
+
+        PageCursor cursor = PageCursor.decode(PageCursor.of(createdAt, 42L).encode());
+
+        assertEquals(createdAt, cursor.getCreatedAt());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    void encode_ShouldBeUrlSafe() {
+        String encoded = PageCursor.of(LocalDateTime.of(2025, 9, 1, 12, 0), Long.MAX_VALUE).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void decode_WithMalformedCursor_ShouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () -> PageCursor.decode("%%%"));
+        assertThrows(BadRequestException.class, () -> PageCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(BadRequestException.class, () -> PageCursor.decode("YWJjfDEyMw"));
+    }
+}
@@ -0,0 +1,26 @@
+package com.forum.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostExcerptTest {
+
+    @Test
+    void of_ShouldCollapseWhitespace() {
+        assertEquals("a b c", PostExcerpt.of("  a\n\n b\t c  "));
+    }
+
+    @Test
+    void of_ShouldCutToMaxLength() {
+        assertEquals(PostExcerpt.MAX_LENGTH, PostExcerpt.of("x".repeat(500)).length());
+    }
+
+    @Test
+    void of_ShouldNotSplitSurrogatePairs() {
+        String excerpt = PostExcerpt.of("😀".repeat(PostExcerpt.MAX_LENGTH + 1));
+
+        assertEquals(PostExcerpt.MAX_LENGTH, excerpt.codePointCount(0, excerpt.length()));
+        assertFalse(Character.isHighSurrogate(excerpt.charAt(excerpt.length() - 1)));
+    }
+}
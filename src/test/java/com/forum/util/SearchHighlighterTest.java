@@ -0,0 +1,38 @@
+package com.forum.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchHighlighterTest {
+
+    @Test
+    void highlight_ShouldWrapEveryTermCaseInsensitively() {
+        String snippet = SearchHighlighter.highlight("Spring caching with Redis and spring boot", "spring redis", 100);
+
+        assertEquals("<em>Spring</em> caching with <em>Redis</em> and <em>spring</em> boot", snippet);
+    }
+
+    @Test
+    void highlight_ShouldEscapeHtml_OutsideAndInsideMatches() {
+        String snippet = SearchHighlighter.highlight("<b>a&b</b>", "a&b", 100);
+
+        assertEquals("&lt;b&gt;<em>a&amp;b</em>&lt;/b&gt;", snippet);
+    }
+
+    @Test
+    void highlight_ShouldCutWindowAroundFirstMatch() {
+        String text = "x".repeat(200) + "缓存" + "y".repeat(200);
+
+        String snippet = SearchHighlighter.highlight(text, "缓存", 40);
+
+        assertTrue(snippet.startsWith("…"));
+        assertTrue(snippet.endsWith("…"));
+        assertTrue(snippet.contains("<em>缓存</em>"));
+    }
+
+    @Test
+    void highlight_WithoutMatch_ShouldReturnLeadingText() {
+        assertEquals("abc…", SearchHighlighter.highlight("abcdef", "zzz", 3));
+    }
+}